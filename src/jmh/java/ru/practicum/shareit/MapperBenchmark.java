@@ -0,0 +1,76 @@
+package ru.practicum.shareit;
+
+import org.openjdk.jmh.annotations.*;
+import ru.practicum.shareit.booking.dto.BookingDtoResponse;
+import ru.practicum.shareit.booking.dto.BookingItemDto;
+import ru.practicum.shareit.booking.dto.BookingMapper;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.item.comment.dto.CommentDtoResponse;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemMapper;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.request.dto.ItemRequestAnswerDto;
+import ru.practicum.shareit.request.dto.ItemRequestDtoResponseWithAnswers;
+import ru.practicum.shareit.request.dto.ItemRequestMapper;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Преобразования сущностей в DTO. Запускать вместе с -prof gc: для мапперов важнее всего аллокации на вызов.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapperBenchmark {
+    @Param({"0", "10"})
+    private int answers;
+
+    private Booking booking;
+    private Item item;
+    private List<CommentDtoResponse> comments;
+    private BookingItemDto lastBooking;
+    private BookingItemDto nextBooking;
+    private ItemRequest itemRequest;
+    private List<ItemRequestAnswerDto> requestAnswers;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        var owner = new User(1L, "Owner", "owner@mail.com");
+        var booker = new User(2L, "Booker", "booker@mail.com");
+        var now = LocalDateTime.now();
+        item = new Item(1L, "Дрель", "Аккумуляторная дрель", true, owner.getId(), 1L);
+        booking = new Booking(1L, now.plusDays(1), now.plusDays(2), item, booker, BookingStatus.APPROVED);
+        comments = List.of(new CommentDtoResponse(1L, "Хорошая вещь", booker.getName(), now));
+        lastBooking = new BookingItemDto(1L, booker.getId());
+        nextBooking = new BookingItemDto(2L, booker.getId());
+        itemRequest = new ItemRequest(1L, "Нужна дрель", booker, now);
+        requestAnswers = new ArrayList<>();
+        for (long id = 1; id <= answers; id++) {
+            requestAnswers.add(new ItemRequestAnswerDto(id, "Дрель " + id, "Аккумуляторная дрель", true, 1L));
+        }
+    }
+
+    @Benchmark
+    public BookingDtoResponse toBookingDtoResponse() {
+        return BookingMapper.toBookingDtoResponse(booking);
+    }
+
+    @Benchmark
+    public ItemDto toItemDto() {
+        return ItemMapper.toItemDto(item, comments, lastBooking, nextBooking);
+    }
+
+    @Benchmark
+    public ItemRequestDtoResponseWithAnswers toItemRequestDtoResponseWithAnswers() {
+        return ItemRequestMapper.toItemRequestDtoResponseWithAnswers(itemRequest, requestAnswers);
+    }
+}
@@ -0,0 +1,64 @@
+package ru.practicum.shareit;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import ru.practicum.shareit.booking.dto.BookingDtoResponse;
+import ru.practicum.shareit.booking.dto.BookingItemDto;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.item.comment.dto.CommentDtoResponse;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сериализация ответов списочных эндпоинтов тем же ObjectMapper, что собирает Spring MVC.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+    @Param({"10", "100"})
+    private int size;
+
+    private ObjectWriter writer;
+    private List<BookingDtoResponse> bookings;
+    private List<ItemDto> items;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        writer = Jackson2ObjectMapperBuilder.json().build().writer();
+        var owner = new User(1L, "Owner", "owner@mail.com");
+        var booker = new User(2L, "Booker", "booker@mail.com");
+        var now = LocalDateTime.now();
+        bookings = new ArrayList<>(size);
+        items = new ArrayList<>(size);
+        for (long id = 1; id <= size; id++) {
+            var item = new Item(id, "Дрель " + id, "Аккумуляторная дрель", true, owner.getId(), null);
+            bookings.add(new BookingDtoResponse(id, now.plusDays(id), now.plusDays(id + 1), BookingStatus.APPROVED,
+                    booker.getId(), booker.getName(), item.getId(), item.getName()));
+            items.add(new ItemDto(id, item.getName(), item.getDescription(), true, null,
+                    new BookingItemDto(id, booker.getId()), new BookingItemDto(id + 1, booker.getId()),
+                    List.of(new CommentDtoResponse(id, "Хорошая вещь", booker.getName(), now))));
+        }
+    }
+
+    @Benchmark
+    public byte[] bookings() throws JsonProcessingException {
+        return writer.writeValueAsBytes(bookings);
+    }
+
+    @Benchmark
+    public byte[] items() throws JsonProcessingException {
+        return writer.writeValueAsBytes(items);
+    }
+}
@@ -0,0 +1,123 @@
+package ru.practicum.shareit;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.BookingService;
+import ru.practicum.shareit.booking.dto.BookingDtoResponse;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.item.ItemSearchIndex;
+import ru.practicum.shareit.item.ItemService;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.UserRepository;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сервисы поверх полного контекста приложения и H2 в памяти с заранее заполненными таблицами.
+ * Поиск перебирает QUERIES разных запросов: при searchCacheSize = 0 кэш страниц отключён, и каждый вызов идёт
+ * в индекс и базу, при searchCacheSize = 10000 замеряются попадания в кэш.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ServiceBenchmark {
+    private static final String[] WORDS = {"дрель", "молоток", "отвёртка", "пила", "лестница", "палатка",
+            "велосипед", "hammer", "drill", "ladder", "tent", "camera", "большой", "аккумуляторная", "складная"};
+    private static final int USERS = 100;
+    private static final int ITEMS = 10_000;
+    private static final int BOOKINGS = 50_000;
+    private static final int PAGE_SIZE = 10;
+    private static final int QUERIES = 100;
+
+    @Param({"0", "10000"})
+    private int searchCacheSize;
+
+    private ConfigurableApplicationContext context;
+    private BookingService bookingService;
+    private ItemService itemService;
+    private Long bookerId;
+    private String[] queries;
+    private int query;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(ShareItApp.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                .run("--spring.datasource.url=jdbc:h2:mem:benchmark",
+                        "--shareit.search.cache.maximum-size=" + searchCacheSize,
+                        "--logging.level.root=WARN",
+                        "--logging.level.org.springframework.orm.jpa=WARN",
+                        "--logging.level.org.springframework.transaction=WARN",
+                        "--logging.level.org.springframework.transaction.interceptor=WARN",
+                        "--logging.level.org.springframework.orm.jpa.JpaTransactionManager=WARN");
+        bookingService = context.getBean(BookingService.class);
+        itemService = context.getBean(ItemService.class);
+        seed();
+        queries = new String[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            queries[i] = WORDS[i % WORDS.length] + " " + i % 100;
+        }
+        context.getBean(ItemSearchIndex.class).rebuild();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<BookingDtoResponse> getAllBookings() {
+        return bookingService.getAllBookings(bookerId, "ALL", 0, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<ItemDto> search() {
+        query = (query + 1) % QUERIES;
+        return itemService.search(queries[query], 0, PAGE_SIZE);
+    }
+
+    private void seed() {
+        var random = new Random(42);
+        var users = new ArrayList<User>(USERS);
+        for (int i = 0; i < USERS; i++) {
+            users.add(new User(null, "User " + i, "user" + i + "@mail.com"));
+        }
+        users = new ArrayList<>(context.getBean(UserRepository.class).saveAll(users));
+        var items = new ArrayList<Item>(ITEMS);
+        for (int i = 0; i < ITEMS; i++) {
+            items.add(new Item(null, word(random) + " " + random.nextInt(100),
+                    word(random) + " " + word(random) + " " + word(random), random.nextInt(10) > 0,
+                    users.get(random.nextInt(USERS)).getId(), null));
+        }
+        items = new ArrayList<>(context.getBean(ItemRepository.class).saveAll(items));
+        var now = LocalDateTime.now();
+        var bookings = new ArrayList<Booking>(BOOKINGS);
+        for (int i = 0; i < BOOKINGS; i++) {
+            var start = now.plusHours(random.nextInt(24 * 365) - 24 * 180);
+            bookings.add(new Booking(null, start, start.plusHours(1 + random.nextInt(48)),
+                    items.get(random.nextInt(ITEMS)), users.get(random.nextInt(USERS)),
+                    BookingStatus.values()[random.nextInt(BookingStatus.values().length)]));
+        }
+        context.getBean(BookingRepository.class).saveAll(bookings);
+        bookerId = users.get(0).getId();
+    }
+
+    private static String word(Random random) {
+        return WORDS[random.nextInt(WORDS.length)];
+    }
+}
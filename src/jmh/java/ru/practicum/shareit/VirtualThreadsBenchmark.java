@@ -0,0 +1,138 @@
+package ru.practicum.shareit;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.common.Constants;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.item.ItemSearchIndex;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.UserRepository;
+import ru.practicum.shareit.user.model.User;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Нагрузка на эндпоинты бронирований и поиска по HTTP из THREADS клиентских потоков: Tomcat с пулом платформенных
+ * потоков по умолчанию против виртуальных потоков. Пул соединений в обоих режимах одинаковый. Режим virtual = true
+ * требует сборки в профиле virtual-threads: mvn -P benchmark,virtual-threads verify
+ * -Djmh.args="VirtualThreadsBenchmark".
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(VirtualThreadsBenchmark.THREADS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class VirtualThreadsBenchmark {
+    static final int THREADS = 400;
+    private static final String[] WORDS = {"дрель", "молоток", "отвёртка", "пила", "лестница", "палатка",
+            "велосипед", "hammer", "drill", "ladder", "tent", "camera", "большой", "аккумуляторная", "складная"};
+    private static final int USERS = 100;
+    private static final int ITEMS = 10_000;
+    private static final int BOOKINGS = 50_000;
+    private static final int PAGE_SIZE = 10;
+
+    @Param({"false", "true"})
+    private boolean virtual;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private String baseUrl;
+    private final AtomicInteger query = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(ShareItApp.class)
+                .profiles("test")
+                .run("--spring.datasource.url=jdbc:h2:mem:benchmark",
+                        "--server.port=0",
+                        "--shareit.threads.virtual.enabled=" + virtual,
+                        "--spring.datasource.hikari.maximum-pool-size=20",
+                        "--logging.level.root=WARN",
+                        "--logging.level.org.springframework.orm.jpa=WARN",
+                        "--logging.level.org.springframework.transaction=WARN",
+                        "--logging.level.org.springframework.transaction.interceptor=WARN",
+                        "--logging.level.org.springframework.orm.jpa.JpaTransactionManager=WARN");
+        if (virtual && !context.containsBean("virtualThreadsProtocolHandlerCustomizer")) {
+            context.close();
+            throw new IllegalStateException("Виртуальные потоки доступны только в сборке с профилем virtual-threads");
+        }
+        seed();
+        context.getBean(ItemSearchIndex.class).rebuild();
+        baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int getAllBookings() throws IOException, InterruptedException {
+        int userId = 1 + query.incrementAndGet() % USERS;
+        return send(HttpRequest.newBuilder(URI.create(baseUrl + "/bookings?from=0&size=" + PAGE_SIZE))
+                .header(Constants.USER_HEADER, String.valueOf(userId)));
+    }
+
+    @Benchmark
+    public int search() throws IOException, InterruptedException {
+        int i = query.incrementAndGet();
+        var text = URLEncoder.encode(WORDS[i % WORDS.length] + " " + i % 100, StandardCharsets.UTF_8);
+        return send(HttpRequest.newBuilder(URI.create(baseUrl + "/items/search?from=0&size=" + PAGE_SIZE
+                + "&text=" + text)));
+    }
+
+    private int send(HttpRequest.Builder request) throws IOException, InterruptedException {
+        var response = client.send(request.GET().build(), HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Ответ " + response.statusCode() + " на " + response.uri());
+        }
+        return response.statusCode();
+    }
+
+    private void seed() {
+        var random = new Random(42);
+        var users = new ArrayList<User>(USERS);
+        for (int i = 0; i < USERS; i++) {
+            users.add(new User(null, "User " + i, "user" + i + "@mail.com"));
+        }
+        users = new ArrayList<>(context.getBean(UserRepository.class).saveAll(users));
+        var items = new ArrayList<Item>(ITEMS);
+        for (int i = 0; i < ITEMS; i++) {
+            items.add(new Item(null, word(random) + " " + random.nextInt(100),
+                    word(random) + " " + word(random) + " " + word(random), random.nextInt(10) > 0,
+                    users.get(random.nextInt(USERS)).getId(), null));
+        }
+        items = new ArrayList<>(context.getBean(ItemRepository.class).saveAll(items));
+        var now = LocalDateTime.now();
+        var bookings = new ArrayList<Booking>(BOOKINGS);
+        for (int i = 0; i < BOOKINGS; i++) {
+            var start = now.plusHours(random.nextInt(24 * 365) - 24 * 180);
+            bookings.add(new Booking(null, start, start.plusHours(1 + random.nextInt(48)),
+                    items.get(random.nextInt(ITEMS)), users.get(random.nextInt(USERS)),
+                    BookingStatus.values()[random.nextInt(BookingStatus.values().length)]));
+        }
+        context.getBean(BookingRepository.class).saveAll(bookings);
+    }
+
+    private static String word(Random random) {
+        return WORDS[random.nextInt(WORDS.length)];
+    }
+}
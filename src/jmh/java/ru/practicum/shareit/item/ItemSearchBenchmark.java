@@ -0,0 +1,98 @@
+package ru.practicum.shareit.item;
+
+import org.openjdk.jmh.annotations.*;
+import ru.practicum.shareit.item.model.Item;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ItemSearchBenchmark {
+    private static final String[] WORDS = {"дрель", "молоток", "отвёртка", "пила", "лестница", "палатка", "велосипед",
+            "самокат", "ноутбук", "проектор", "hammer", "drill", "ladder", "tent", "bicycle", "kayak", "camera",
+            "tripod", "большой", "маленький", "аккумуляторная", "электрическая", "складная", "новая", "старая"};
+    private static final String LIKE_QUERY = "select i.id from items i " +
+            "where (upper(i.name) like upper(concat('%', ?, '%')) or " +
+            "upper(i.description) like upper(concat('%', ?, '%'))) and i.is_available = true limit ?";
+    private static final int PAGE_SIZE = 10;
+
+    @Param({"10000", "100000", "1000000"})
+    private int items;
+    @Param({"аккумуляторная дрель", "camera", "kayak 7"})
+    private String text;
+
+    private Connection connection;
+    private PreparedStatement likeStatement;
+    private ItemSearchIndex index;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:search" + items, "sa", "");
+        try (var statement = connection.createStatement()) {
+            statement.execute("create table items (id bigint primary key, name varchar(255) not null, " +
+                    "description varchar(255) not null, is_available boolean not null, owner_id bigint not null, " +
+                    "request_id bigint)");
+        }
+        index = new ItemSearchIndex(null);
+        var random = new Random(42);
+        try (var insert = connection.prepareStatement("insert into items values (?, ?, ?, ?, ?, null)")) {
+            for (long id = 1; id <= items; id++) {
+                var item = new Item(id, word(random) + " " + random.nextInt(100),
+                        word(random) + " " + word(random) + " " + word(random), random.nextInt(10) > 0,
+                        (long) random.nextInt(1000), null);
+                insert.setLong(1, item.getId());
+                insert.setString(2, item.getName());
+                insert.setString(3, item.getDescription());
+                insert.setBoolean(4, item.getIsAvailable());
+                insert.setLong(5, item.getOwnerId());
+                insert.addBatch();
+                if (id % 1000 == 0) {
+                    insert.executeBatch();
+                }
+                index.index(item);
+            }
+            insert.executeBatch();
+        }
+        likeStatement = connection.prepareStatement(LIKE_QUERY);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        likeStatement.close();
+        connection.close();
+    }
+
+    @Benchmark
+    public List<Long> likeQuery() throws SQLException {
+        likeStatement.setString(1, text);
+        likeStatement.setString(2, text);
+        likeStatement.setInt(3, PAGE_SIZE);
+        var ids = new ArrayList<Long>(PAGE_SIZE);
+        try (var resultSet = likeStatement.executeQuery()) {
+            while (resultSet.next()) {
+                ids.add(resultSet.getLong(1));
+            }
+        }
+        return ids;
+    }
+
+    @Benchmark
+    public List<Long> searchIndex() {
+        return index.search(text, 0, PAGE_SIZE);
+    }
+
+    private static String word(Random random) {
+        return WORDS[random.nextInt(WORDS.length)];
+    }
+}
@@ -0,0 +1,33 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Последовательности для идентификаторов сущностей. Hibernate берёт из них значения блоками по ALLOCATION_SIZE
+ * (оптимизатор pooled), что позволяет отправлять вставки пакетами. Значение последовательности — верхняя граница
+ * блока, поэтому она начинается с max(id) + ALLOCATION_SIZE, и первый блок идёт сразу за существующими строками.
+ */
+@SuppressWarnings("checkstyle:TypeName")
+public class V3__Create_id_sequences extends BaseJavaMigration {
+    public static final int ALLOCATION_SIZE = 50;
+    private static final List<String> TABLES = List.of("users", "requests", "items", "comments", "bookings");
+
+    @Override
+    public void migrate(Context context) throws SQLException {
+        try (var statement = context.getConnection().createStatement()) {
+            for (String table : TABLES) {
+                long maxId;
+                try (var resultSet = statement.executeQuery("SELECT COALESCE(MAX(id), 0) FROM " + table)) {
+                    resultSet.next();
+                    maxId = resultSet.getLong(1);
+                }
+                statement.execute(String.format("CREATE SEQUENCE %s_seq START WITH %s INCREMENT BY %s",
+                        table, maxId + ALLOCATION_SIZE, ALLOCATION_SIZE));
+            }
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package ru.practicum.shareit.booking;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import ru.practicum.shareit.booking.dto.BookingDtoResponse;
+import ru.practicum.shareit.booking.model.ArchivedBooking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Все бронирования архива закончились в прошлом, поэтому списки архива одни и те же для состояний ALL и PAST.
+ */
+public interface ArchivedBookingRepository extends JpaRepository<ArchivedBooking, Long> {
+    String VIEW = "select new ru.practicum.shareit.booking.dto.BookingDtoResponse(a.id, a.startDate, a.endDate, " +
+            "a.status, u.id, u.name, i.id, i.name) from ArchivedBooking a, User u, Item i " +
+            "where u.id = a.bookerId and i.id = a.itemId ";
+
+    @Query(VIEW + "and a.bookerId = :bookerId order by a.startDate desc, a.id desc")
+    List<BookingDtoResponse> findBookerBookings(@Param("bookerId") Long bookerId, Pageable page);
+
+    @Query(VIEW + "and a.bookerId = :bookerId and (a.startDate < :afterStart or " +
+            "a.startDate = :afterStart and a.id < :afterId) order by a.startDate desc, a.id desc")
+    List<BookingDtoResponse> findBookerBookingsAfter(@Param("bookerId") Long bookerId,
+                                                     @Param("afterStart") LocalDateTime afterStart,
+                                                     @Param("afterId") Long afterId, Pageable page);
+
+    @Query(VIEW + "and a.ownerId = :ownerId order by a.startDate desc, a.id desc")
+    List<BookingDtoResponse> findOwnerBookings(@Param("ownerId") Long ownerId, Pageable page);
+
+    @Query(VIEW + "and a.ownerId = :ownerId and (a.startDate < :afterStart or " +
+            "a.startDate = :afterStart and a.id < :afterId) order by a.startDate desc, a.id desc")
+    List<BookingDtoResponse> findOwnerBookingsAfter(@Param("ownerId") Long ownerId,
+                                                    @Param("afterStart") LocalDateTime afterStart,
+                                                    @Param("afterId") Long afterId, Pageable page);
+
+    boolean existsByBookerIdAndItemIdAndStatus(Long bookerId, Long itemId, BookingStatus status);
+
+    @Modifying
+    @Query(value = "insert into bookings_archive (id, start_date, end_date, item_id, booker_id, owner_id, status) " +
+            "select b.id, b.start_date, b.end_date, b.item_id, b.booker_id, i.owner_id, b.status " +
+            "from bookings b join items i on i.id = b.item_id where b.id in (:ids)", nativeQuery = true)
+    int copyFromBookings(@Param("ids") Collection<Long> ids);
+}
@@ -0,0 +1,117 @@
+package ru.practicum.shareit.booking;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.dto.BookingDtoResponse;
+import ru.practicum.shareit.booking.model.BookingStates;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Списки бронирований вместе с архивом. Бронирования архива закончились раньше now - shareit.booking.archive.horizon,
+ * то есть и начались раньше этой границы, поэтому в списках ALL и PAST они идут после всех бронирований основной
+ * таблицы, начавшихся позже неё. Архив читается, только когда страница из основной таблицы неполная или дошла
+ * до границы.
+ */
+@Component
+public class BookingArchive {
+    private final ArchivedBookingRepository archivedBookingRepository;
+    private final Duration horizon;
+
+    public BookingArchive(ArchivedBookingRepository archivedBookingRepository,
+                          @Value("${shareit.booking.archive.horizon}") Duration horizon) {
+        this.archivedBookingRepository = archivedBookingRepository;
+        this.horizon = horizon;
+    }
+
+    public static boolean covers(BookingStates state) {
+        return state == BookingStates.ALL || state == BookingStates.PAST;
+    }
+
+    public LocalDateTime boundary(LocalDateTime now) {
+        return now.minus(horizon);
+    }
+
+    /**
+     * Страница по смещению. hotPage — эта же страница из основной таблицы, hot читает из неё первые строки
+     * списка, если страницу нужно собрать вместе с архивом.
+     */
+    public List<BookingDtoResponse> bookerPage(Long bookerId, List<BookingDtoResponse> hotPage, Pageable page,
+                                               LocalDateTime now, Function<Pageable, List<BookingDtoResponse>> hot) {
+        return page(hotPage, page, now, hot, top -> archivedBookingRepository.findBookerBookings(bookerId, top));
+    }
+
+    public List<BookingDtoResponse> ownerPage(Long ownerId, List<BookingDtoResponse> hotPage, Pageable page,
+                                              LocalDateTime now, Function<Pageable, List<BookingDtoResponse>> hot) {
+        return page(hotPage, page, now, hot, top -> archivedBookingRepository.findOwnerBookings(ownerId, top));
+    }
+
+    /**
+     * Страница после курсора. hotRows — до limit строк основной таблицы после того же курсора.
+     */
+    public List<BookingDtoResponse> bookerAfter(Long bookerId, List<BookingDtoResponse> hotRows, int limit,
+                                                LocalDateTime now, LocalDateTime afterStart, Long afterId) {
+        return after(hotRows, limit, now, () -> afterStart == null
+                ? archivedBookingRepository.findBookerBookings(bookerId, PageRequest.of(0, limit))
+                : archivedBookingRepository.findBookerBookingsAfter(bookerId, afterStart, afterId,
+                PageRequest.of(0, limit)));
+    }
+
+    public List<BookingDtoResponse> ownerAfter(Long ownerId, List<BookingDtoResponse> hotRows, int limit,
+                                               LocalDateTime now, LocalDateTime afterStart, Long afterId) {
+        return after(hotRows, limit, now, () -> afterStart == null
+                ? archivedBookingRepository.findOwnerBookings(ownerId, PageRequest.of(0, limit))
+                : archivedBookingRepository.findOwnerBookingsAfter(ownerId, afterStart, afterId,
+                PageRequest.of(0, limit)));
+    }
+
+    private List<BookingDtoResponse> page(List<BookingDtoResponse> hotPage, Pageable page, LocalDateTime now,
+                                          Function<Pageable, List<BookingDtoResponse>> hot,
+                                          Function<Pageable, List<BookingDtoResponse>> archived) {
+        if (!reachesArchive(hotPage, page.getPageSize(), now)) {
+            return hotPage;
+        }
+        int offset = (int) page.getOffset();
+        var top = PageRequest.of(0, offset + page.getPageSize());
+        var merged = merge(offset == 0 ? hotPage : hot.apply(top), archived.apply(top), top.getPageSize());
+        return offset >= merged.size() ? List.of() : merged.subList(offset, merged.size());
+    }
+
+    private List<BookingDtoResponse> after(List<BookingDtoResponse> hotRows, int limit, LocalDateTime now,
+                                           Supplier<List<BookingDtoResponse>> archived) {
+        if (!reachesArchive(hotRows, limit, now)) {
+            return hotRows;
+        }
+        return merge(hotRows, archived.get(), limit);
+    }
+
+    private boolean reachesArchive(List<BookingDtoResponse> hotRows, int limit, LocalDateTime now) {
+        return hotRows.size() < limit || hotRows.get(hotRows.size() - 1).getStart().isBefore(boundary(now));
+    }
+
+    /**
+     * Слияние двух списков, упорядоченных по началу бронирования от поздних к ранним, с сохранением порядка
+     * внутри каждого списка.
+     */
+    private static List<BookingDtoResponse> merge(List<BookingDtoResponse> hot, List<BookingDtoResponse> archived,
+                                                  int limit) {
+        var merged = new ArrayList<BookingDtoResponse>(Math.min(limit, hot.size() + archived.size()));
+        int i = 0;
+        int j = 0;
+        while (merged.size() < limit && (i < hot.size() || j < archived.size())) {
+            if (j == archived.size() || i < hot.size() && !hot.get(i).getStart().isBefore(archived.get(j).getStart())) {
+                merged.add(hot.get(i++));
+            } else {
+                merged.add(archived.get(j++));
+            }
+        }
+        return merged;
+    }
+}
@@ -0,0 +1,60 @@
+package ru.practicum.shareit.booking;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Переносит в bookings_archive бронирования, закончившиеся раньше now - shareit.booking.archive.horizon.
+ * Бронирования переносятся порциями по shareit.booking.archive.batch-size, каждая порция в своей транзакции,
+ * так что строки bookings заблокированы только на время одной порции. Строки owner_bookings удаляются вместе
+ * с бронированиями, список владельца дочитывает их из архива.
+ */
+@Slf4j
+@Component
+public class BookingArchiver {
+    private final BookingRepository bookingRepository;
+    private final ArchivedBookingRepository archivedBookingRepository;
+    private final TransactionTemplate transactions;
+    private final Duration horizon;
+    private final int batchSize;
+
+    public BookingArchiver(BookingRepository bookingRepository, ArchivedBookingRepository archivedBookingRepository,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${shareit.booking.archive.horizon}") Duration horizon,
+                           @Value("${shareit.booking.archive.batch-size}") int batchSize) {
+        this.bookingRepository = bookingRepository;
+        this.archivedBookingRepository = archivedBookingRepository;
+        this.transactions = new TransactionTemplate(transactionManager);
+        this.horizon = horizon;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.booking.archive.interval}",
+            initialDelayString = "${shareit.booking.archive.interval}")
+    public void archive() {
+        var before = LocalDateTime.now().minus(horizon);
+        int total = 0;
+        int moved;
+        do {
+            moved = transactions.execute(status -> {
+                var ids = bookingRepository.findIdsToArchive(before, batchSize);
+                if (!ids.isEmpty()) {
+                    archivedBookingRepository.copyFromBookings(ids);
+                    bookingRepository.deleteAllByIdInBatch(ids);
+                }
+                return ids.size();
+            });
+            total += moved;
+        } while (moved == batchSize);
+        if (total > 0) {
+            log.info("В архив перенесено {} бронирований, закончившихся раньше {}", total, before);
+        }
+    }
+}
@@ -1,14 +1,18 @@
 package ru.practicum.shareit.booking;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.bind.annotation.*;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
 import ru.practicum.shareit.booking.dto.BookingDtoRequest;
 import ru.practicum.shareit.booking.dto.BookingDtoResponse;
 import ru.practicum.shareit.common.Constants;
+import ru.practicum.shareit.common.NdjsonWriter;
 import ru.practicum.shareit.common.PaginationUtil;
 import ru.practicum.shareit.common.Validator;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 import java.util.List;
 
@@ -20,6 +24,7 @@ public class BookingController {
 
     private Validator validator;
     private BookingService bookingService;
+    private ObjectMapper objectMapper;
 
     @PostMapping
     public BookingDtoResponse createBooking(@RequestHeader(Constants.USER_HEADER) Long userId,
@@ -30,6 +35,16 @@ public class BookingController {
         return bookingService.createBooking(userId, bookingDtoRequest);
     }
 
+    @PostMapping("/batch")
+    public List<BookingBatchResultDto> createBookings(@RequestHeader(Constants.USER_HEADER) Long userId,
+                                                      @RequestBody List<BookingDtoRequest> bookingDtoRequests) {
+        log.info(String.format("Получен запрос POST /bookings/batch на %s бронирований от пользователя с id = %s",
+                bookingDtoRequests.size(), userId));
+        validator.validateId(userId);
+        validator.validateBatchSize(bookingDtoRequests.size());
+        return bookingService.createBookings(userId, bookingDtoRequests);
+    }
+
     @PatchMapping("/{bookingId}")
     public BookingDtoResponse approvedBooking(@PathVariable Long bookingId, @RequestParam Boolean approved,
                                               @RequestHeader(Constants.USER_HEADER) Long userId) {
@@ -54,25 +69,46 @@ public class BookingController {
     public List<BookingDtoResponse> getAllBookings(@RequestHeader(Constants.USER_HEADER) Long userId,
                                                    @RequestParam(defaultValue = "ALL") String state,
                                                    @RequestParam(defaultValue = Constants.DEFAULT_FROM) int from,
-                                                   @RequestParam(defaultValue = Constants.DEFAULT_SIZE) int size) {
+                                                   @RequestParam(defaultValue = Constants.DEFAULT_SIZE) int size,
+                                                   @RequestParam(required = false) String cursor,
+                                                   HttpServletResponse response) {
         log.info(String.format("Получен запрос GET/bookings на получение %s бронирований пользователя с id = %s, " +
                         "начиная с бронирования %s, по %s бронирований на странице", state, userId, from, size));
         validator.validateId(userId);
         validator.validatePageParams(from, size);
-        int page = PaginationUtil.positionToPage(from, size);
-        return bookingService.getAllBookings(userId, state, page, size);
+        if (cursor != null) {
+            var cursorPage = bookingService.getAllBookingsAfter(userId, state, cursor, size);
+            return PaginationUtil.writeCursorHeaders(cursorPage, response);
+        }
+        return bookingService.getAllBookings(userId, state, from, size);
+    }
+
+    @GetMapping("/export")
+    public void exportBookings(@RequestHeader(Constants.USER_HEADER) Long userId,
+                               HttpServletResponse response) {
+        log.info(String.format("Получен запрос GET /bookings/export на выгрузку бронирований пользователя с id = %s",
+                userId));
+        validator.validateId(userId);
+        var writer = new NdjsonWriter(objectMapper, response);
+        bookingService.exportBookings(userId, writer::write);
+        writer.flush();
     }
 
     @GetMapping("/owner")
     public List<BookingDtoResponse> getAllItemBookings(@RequestHeader(Constants.USER_HEADER) Long userId,
                                                        @RequestParam(defaultValue = "ALL") String state,
                                                        @RequestParam(defaultValue = Constants.DEFAULT_FROM) int from,
-                                                       @RequestParam(defaultValue = Constants.DEFAULT_SIZE) int size) {
+                                                       @RequestParam(defaultValue = Constants.DEFAULT_SIZE) int size,
+                                                       @RequestParam(required = false) String cursor,
+                                                       HttpServletResponse response) {
         log.info(String.format("Получен запрос GET/owner на получение %s бронирований вещей пользователя с id = %s, " +
                         "начиная с бронирования %s, по %s бронирований на странице", state, userId, from, size));
         validator.validateId(userId);
         validator.validatePageParams(from, size);
-        int page = PaginationUtil.positionToPage(from, size);
-        return bookingService.getAllItemBookings(userId, state, page, size);
+        if (cursor != null) {
+            var cursorPage = bookingService.getAllItemBookingsAfter(userId, state, cursor, size);
+            return PaginationUtil.writeCursorHeaders(cursorPage, response);
+        }
+        return bookingService.getAllItemBookings(userId, state, from, size);
     }
 }
@@ -0,0 +1,14 @@
+package ru.practicum.shareit.booking;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import ru.practicum.shareit.booking.model.Booking;
+
+/**
+ * Бронирование сохранено; публикуется внутри транзакции, сохранившей его.
+ */
+@Data
+@AllArgsConstructor
+public class BookingCreatedEvent {
+    private Booking booking;
+}
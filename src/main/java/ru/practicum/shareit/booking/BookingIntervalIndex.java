@@ -0,0 +1,142 @@
+package ru.practicum.shareit.booking;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.dto.BookingInterval;
+import ru.practicum.shareit.booking.dto.BookingMapper;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.common.EntityCacheInvalidation;
+import ru.practicum.shareit.common.EntityInvalidatedEvent;
+import ru.practicum.shareit.common.PrimaryReader;
+import ru.practicum.shareit.common.TransactionUtil;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Бронирования вещей в памяти: дерево интервалов на каждую вещь загружается из базы при первом обращении
+ * и затем обновляется при создании и изменении статуса бронирования.
+ * Операции с одной вещью выполняются под одной из STRIPES блокировок, выбранной по id вещи.
+ * Об изменениях бронирований узнают другие экземпляры: по их событию дерево вещи удаляется и загружается заново.
+ */
+@Component
+public class BookingIntervalIndex {
+    private static final int STRIPES = 64;
+
+    private final BookingRepository bookingRepository;
+    private final PrimaryReader primaryReader;
+    private final EntityCacheInvalidation entityCacheInvalidation;
+    private final Cache<Long, BookingIntervalTree> trees;
+    private final Lock[] locks = new Lock[STRIPES];
+
+    public BookingIntervalIndex(BookingRepository bookingRepository, PrimaryReader primaryReader,
+                                EntityCacheInvalidation entityCacheInvalidation,
+                                @Value("${shareit.booking.intervals.maximum-size}") long maximumSize) {
+        this.bookingRepository = bookingRepository;
+        this.primaryReader = primaryReader;
+        this.entityCacheInvalidation = entityCacheInvalidation;
+        trees = Caffeine.newBuilder().maximumSize(maximumSize).build();
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    public <T> T withItemLock(Long itemId, Supplier<T> action) {
+        var lock = lockFor(itemId);
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Блокировки всех вещей пакета берутся в порядке номеров, чтобы параллельные пакеты не ждали друг друга по кругу.
+     */
+    public <T> T withItemLocks(Collection<Long> itemIds, Supplier<T> action) {
+        var stripes = itemIds.stream().mapToInt(BookingIntervalIndex::stripe).distinct().sorted().toArray();
+        int locked = 0;
+        try {
+            for (; locked < stripes.length; locked++) {
+                locks[stripes[locked]].lock();
+            }
+            return action.get();
+        } finally {
+            while (locked > 0) {
+                locks[stripes[--locked]].unlock();
+            }
+        }
+    }
+
+    public Optional<BookingInterval> findOverlap(Long itemId, LocalDateTime start, LocalDateTime end) {
+        return withItemLock(itemId, () -> tree(itemId).findOverlap(start, end));
+    }
+
+    public void apply(Booking booking) {
+        var itemId = booking.getItem().getId();
+        var interval = BookingMapper.toBookingInterval(booking);
+        TransactionUtil.runAfterCommit(() -> withItemLock(itemId, () -> {
+            var tree = trees.getIfPresent(itemId);
+            if (tree != null) {
+                put(tree, interval);
+            }
+            return null;
+        }));
+        entityCacheInvalidation.invalidate(Booking.class, booking.getId());
+    }
+
+    @EventListener
+    public void onEntityInvalidated(EntityInvalidatedEvent event) {
+        if (event.getEntityClass() != Booking.class || !event.isRemote()) {
+            return;
+        }
+        if (event.getId() == null) {
+            trees.invalidateAll();
+            return;
+        }
+        bookingRepository.findById(event.getId()).map(booking -> booking.getItem().getId())
+                .ifPresent(itemId -> withItemLock(itemId, () -> {
+                    trees.invalidate(itemId);
+                    return null;
+                }));
+    }
+
+    private BookingIntervalTree tree(Long itemId) {
+        var tree = trees.getIfPresent(itemId);
+        if (tree == null) {
+            tree = new BookingIntervalTree();
+            // с основной базы: по индексу проверяются пересечения новых бронирований
+            for (BookingInterval interval : primaryReader.read(() ->
+                    bookingRepository.findIntervalsByItemId(itemId, BookingStatus.REJECTED))) {
+                put(tree, interval);
+            }
+            trees.put(itemId, tree);
+        }
+        return tree;
+    }
+
+    private static void put(BookingIntervalTree tree, BookingInterval interval) {
+        if (interval.getStatus() == BookingStatus.REJECTED) {
+            tree.remove(interval.getId());
+        } else {
+            tree.put(interval, interval.getStatus() != BookingStatus.CANCELLED);
+        }
+    }
+
+    private Lock lockFor(Long itemId) {
+        return locks[stripe(itemId)];
+    }
+
+    private static int stripe(Long itemId) {
+        return Math.floorMod(itemId.hashCode(), STRIPES);
+    }
+}
@@ -0,0 +1,183 @@
+package ru.practicum.shareit.booking;
+
+import ru.practicum.shareit.booking.dto.BookingInterval;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Бронирования одной вещи, упорядоченные по (start_date, id), в AVL-дереве.
+ * Каждый узел хранит максимальную дату окончания блокирующих бронирований своего поддерева,
+ * поэтому проверка пересечения выполняется за O(log n).
+ * Класс не потокобезопасен, доступ синхронизирует {@link BookingIntervalIndex}.
+ */
+class BookingIntervalTree {
+    private final Map<Long, Node> nodes = new HashMap<>();
+    private Node root;
+
+    int size() {
+        return nodes.size();
+    }
+
+    void put(BookingInterval interval, boolean blocking) {
+        remove(interval.getId());
+        var node = new Node(interval, blocking);
+        nodes.put(interval.getId(), node);
+        root = insert(root, node);
+    }
+
+    void remove(Long bookingId) {
+        var node = nodes.remove(bookingId);
+        if (node != null) {
+            root = delete(root, node);
+        }
+    }
+
+    Optional<BookingInterval> findOverlap(LocalDateTime start, LocalDateTime end) {
+        var node = root;
+        while (node != null) {
+            if (node.blocking && node.start().isBefore(end) && node.end().isAfter(start)) {
+                return Optional.of(node.interval);
+            }
+            if (node.left != null && node.left.maxBlockingEnd != null && node.left.maxBlockingEnd.isAfter(start)) {
+                node = node.left;
+            } else if (node.start().isBefore(end)) {
+                node = node.right;
+            } else {
+                return Optional.empty();
+            }
+        }
+        return Optional.empty();
+    }
+
+    private static Node insert(Node parent, Node node) {
+        if (parent == null) {
+            return node;
+        }
+        if (compare(node, parent) < 0) {
+            parent.left = insert(parent.left, node);
+        } else {
+            parent.right = insert(parent.right, node);
+        }
+        return balance(parent);
+    }
+
+    private static Node delete(Node parent, Node node) {
+        if (parent == null) {
+            return null;
+        }
+        int cmp = compare(node, parent);
+        if (cmp < 0) {
+            parent.left = delete(parent.left, node);
+        } else if (cmp > 0) {
+            parent.right = delete(parent.right, node);
+        } else {
+            if (parent.left == null) {
+                return parent.right;
+            }
+            if (parent.right == null) {
+                return parent.left;
+            }
+            var successor = parent.right;
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+            successor.right = deleteMin(parent.right);
+            successor.left = parent.left;
+            return balance(successor);
+        }
+        return balance(parent);
+    }
+
+    private static Node deleteMin(Node parent) {
+        if (parent.left == null) {
+            return parent.right;
+        }
+        parent.left = deleteMin(parent.left);
+        return balance(parent);
+    }
+
+    private static Node balance(Node node) {
+        update(node);
+        int factor = height(node.left) - height(node.right);
+        if (factor > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+        if (factor < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private static Node rotateLeft(Node node) {
+        var right = node.right;
+        node.right = right.left;
+        right.left = node;
+        update(node);
+        update(right);
+        return right;
+    }
+
+    private static Node rotateRight(Node node) {
+        var left = node.left;
+        node.left = left.right;
+        left.right = node;
+        update(node);
+        update(left);
+        return left;
+    }
+
+    private static void update(Node node) {
+        node.height = 1 + Math.max(height(node.left), height(node.right));
+        var maxEnd = node.blocking ? node.end() : null;
+        maxEnd = later(maxEnd, node.left == null ? null : node.left.maxBlockingEnd);
+        node.maxBlockingEnd = later(maxEnd, node.right == null ? null : node.right.maxBlockingEnd);
+    }
+
+    private static LocalDateTime later(LocalDateTime first, LocalDateTime second) {
+        if (first == null) {
+            return second;
+        }
+        return second == null || first.isAfter(second) ? first : second;
+    }
+
+    private static int height(Node node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static int compare(Node first, Node second) {
+        int cmp = first.start().compareTo(second.start());
+        return cmp != 0 ? cmp : first.interval.getId().compareTo(second.interval.getId());
+    }
+
+    private static class Node {
+        private final BookingInterval interval;
+        private final boolean blocking;
+        private int height = 1;
+        private LocalDateTime maxBlockingEnd;
+        private Node left;
+        private Node right;
+
+        Node(BookingInterval interval, boolean blocking) {
+            this.interval = interval;
+            this.blocking = blocking;
+            this.maxBlockingEnd = blocking ? interval.getEndDate() : null;
+        }
+
+        LocalDateTime start() {
+            return interval.getStartDate();
+        }
+
+        LocalDateTime end() {
+            return interval.getEndDate();
+        }
+    }
+}
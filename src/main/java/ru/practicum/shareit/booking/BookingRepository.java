@@ -1,45 +1,109 @@
 package ru.practicum.shareit.booking;
 
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import ru.practicum.shareit.booking.dto.BookingDtoResponse;
+import ru.practicum.shareit.booking.dto.BookingInterval;
+import ru.practicum.shareit.booking.dto.BookingShort;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.common.Constants;
 
+import javax.persistence.QueryHint;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
-
-public interface BookingRepository extends JpaRepository<Booking, Long> {
-
-    List<Booking> findAllByBookerIdOrderByStartDateDesc(Long bookerId, Pageable page);
-
-    List<Booking> findAllByBookerIdAndStartDateBeforeAndEndDateAfterOrderByStartDateDesc(
-            Long bookerId, LocalDateTime now, LocalDateTime now1, Pageable page);
-
-    List<Booking> findAllByBookerIdAndEndDateBeforeOrderByStartDateDesc(Long bookerId, LocalDateTime now, Pageable page);
-
-    List<Booking> findAllByBookerIdAndStartDateAfterOrderByStartDateDesc(Long bookerId, LocalDateTime now, Pageable page);
-
-    List<Booking> findAllByBookerIdAndStatusOrderByStartDateDesc(Long bookerId, BookingStatus state, Pageable page);
-
-    List<Booking> findAllByItemOwnerIdOrderByStartDateDesc(Long ownerId, Pageable page);
-
-    List<Booking> findAllByItemOwnerIdAndStartDateBeforeAndEndDateAfterOrderByStartDateDesc(
-            Long ownerId, LocalDateTime now, LocalDateTime now1, Pageable page);
-
-    List<Booking> findAllByItemOwnerIdAndEndDateBeforeOrderByStartDateDesc(Long ownerId, LocalDateTime now, Pageable page);
-
-    List<Booking> findAllByItemOwnerIdAndStartDateAfterOrderByStartDateDesc(Long bookerId, LocalDateTime now, Pageable page);
-
-    Optional<Booking> findFirstBookingByItemIdAndStartDateBeforeAndStatusNotOrderByStartDateDesc(
-            Long itemId, LocalDateTime now, BookingStatus bookingStatus);
-
-    Optional<Booking> findFirstBookingByItemIdAndStartDateAfterAndStatusNotOrderByStartDate(
-            Long itemId, LocalDateTime now, BookingStatus bookingStatus);
-
-    List<Booking> findAllByItemOwnerIdAndStatusOrderByStartDateDesc(Long userId, BookingStatus valueOf, Pageable page);
-
-
-    List<Booking> findAllByBookerIdAndItemIdAndEndDateBeforeAndStatus(Long bookerId, Long itemId, LocalDateTime created,
-                                                                      BookingStatus bookingStatus);
+import java.util.stream.Stream;
+
+public interface BookingRepository extends JpaRepository<Booking, Long>, BookingRepositoryCustom {
+    /**
+     * Списки бронирований читаются сразу в {@link BookingDtoResponse}, без загрузки сущностей вещи и арендатора.
+     */
+    String VIEW = "select new ru.practicum.shareit.booking.dto.BookingDtoResponse(b.id, b.startDate, b.endDate, " +
+            "b.status, bk.id, bk.name, i.id, i.name) from Booking b join b.item i join b.booker bk ";
+
+    @EntityGraph(Booking.WITH_ITEM_AND_BOOKER)
+    Optional<Booking> findWithItemAndBookerById(Long id);
+
+    /**
+     * Вся история бронирований пользователя для выгрузки. Строки читаются из курсора порциями
+     * по EXPORT_FETCH_SIZE, поток нужно читать и закрывать внутри транзакции.
+     */
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = Constants.EXPORT_FETCH_SIZE))
+    @Query(VIEW + "where b.booker.id = :bookerId order by b.startDate desc, b.id desc")
+    Stream<BookingDtoResponse> streamAllByBookerId(@Param("bookerId") Long bookerId);
+
+    @Query(VIEW + "where b.booker.id = :bookerId order by b.startDate desc")
+    List<BookingDtoResponse> findAllByBookerIdOrderByStartDateDesc(@Param("bookerId") Long bookerId, Pageable page);
+
+    @Query(VIEW + "where b.booker.id = :bookerId and b.startDate < :now and b.endDate > :now1 order by b.startDate desc")
+    List<BookingDtoResponse> findAllByBookerIdAndStartDateBeforeAndEndDateAfterOrderByStartDateDesc(
+            @Param("bookerId") Long bookerId, @Param("now") LocalDateTime now, @Param("now1") LocalDateTime now1,
+            Pageable page);
+
+    @Query(VIEW + "where b.booker.id = :bookerId and b.endDate < :now order by b.startDate desc")
+    List<BookingDtoResponse> findAllByBookerIdAndEndDateBeforeOrderByStartDateDesc(@Param("bookerId") Long bookerId,
+                                                                                 @Param("now") LocalDateTime now,
+                                                                                 Pageable page);
+
+    @Query(VIEW + "where b.booker.id = :bookerId and b.startDate > :now order by b.startDate desc")
+    List<BookingDtoResponse> findAllByBookerIdAndStartDateAfterOrderByStartDateDesc(@Param("bookerId") Long bookerId,
+                                                                                  @Param("now") LocalDateTime now,
+                                                                                  Pageable page);
+
+    @Query(VIEW + "where b.booker.id = :bookerId and b.status = :status order by b.startDate desc")
+    List<BookingDtoResponse> findAllByBookerIdAndStatusOrderByStartDateDesc(@Param("bookerId") Long bookerId,
+                                                                          @Param("status") BookingStatus state,
+                                                                          Pageable page);
+
+    @Query(value = "select t.id as \"id\", t.item_id as \"itemId\", t.booker_id as \"bookerId\", " +
+            "t.start_date as \"startDate\" from (" +
+            "select b.id, b.item_id, b.booker_id, b.start_date, row_number() over (" +
+            "partition by b.item_id order by b.start_date desc, b.id desc) as rn " +
+            "from bookings b " +
+            "where b.item_id in (:itemIds) and b.start_date < :now and b.status <> :#{#status.name()}) t " +
+            "where t.rn = 1", nativeQuery = true)
+    List<BookingShort> findLastBookings(@Param("itemIds") Collection<Long> itemIds, @Param("now") LocalDateTime now,
+                                        @Param("status") BookingStatus status);
+
+    @Query(value = "select t.id as \"id\", t.item_id as \"itemId\", t.booker_id as \"bookerId\", " +
+            "t.start_date as \"startDate\" from (" +
+            "select b.id, b.item_id, b.booker_id, b.start_date, row_number() over (" +
+            "partition by b.item_id order by b.start_date, b.id) as rn " +
+            "from bookings b " +
+            "where b.item_id in (:itemIds) and b.start_date > :now and b.status <> :#{#status.name()}) t " +
+            "where t.rn = 1", nativeQuery = true)
+    List<BookingShort> findNextBookings(@Param("itemIds") Collection<Long> itemIds, @Param("now") LocalDateTime now,
+                                        @Param("status") BookingStatus status);
+
+    @Query("select new ru.practicum.shareit.booking.dto.BookingInterval(b.id, b.booker.id, b.startDate, b.endDate, " +
+            "b.status) from Booking b where b.item.id = :itemId and b.status <> :excluded")
+    List<BookingInterval> findIntervalsByItemId(@Param("itemId") Long itemId,
+                                                @Param("excluded") BookingStatus excluded);
+
+    @Query("select new ru.practicum.shareit.booking.dto.BookingInterval(b.id, b.booker.id, b.startDate, b.endDate, " +
+            "b.status) from Booking b where b.item.id = :itemId and b.status in :statuses " +
+            "and b.startDate < :to and b.endDate > :from order by b.startDate")
+    List<BookingInterval> findIntervalsByItemIdBetween(@Param("itemId") Long itemId,
+                                                       @Param("statuses") Collection<BookingStatus> statuses,
+                                                       @Param("from") LocalDateTime from,
+                                                       @Param("to") LocalDateTime to);
+
+    boolean existsByBookerIdAndItemIdAndEndDateBeforeAndStatus(Long bookerId, Long itemId, LocalDateTime created,
+                                                               BookingStatus bookingStatus);
+
+    /**
+     * Бронирования для переноса в архив. Строки блокируются до конца транзакции переноса, поэтому параллельный
+     * перенос ждёт её и пропускает уже удалённые строки. Последнее бронирование вещи остаётся на месте:
+     * на него указывает items.last_booking_id.
+     */
+    @Query(value = "select b.id from bookings b where b.end_date < :before " +
+            "and not exists (select 1 from items i where i.last_booking_id = b.id) " +
+            "order by b.end_date limit :limit for update", nativeQuery = true)
+    List<Long> findIdsToArchive(@Param("before") LocalDateTime before, @Param("limit") int limit);
 }
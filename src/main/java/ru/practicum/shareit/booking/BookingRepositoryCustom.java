@@ -0,0 +1,13 @@
+package ru.practicum.shareit.booking;
+
+import ru.practicum.shareit.booking.dto.BookingDtoResponse;
+import ru.practicum.shareit.booking.model.BookingStates;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface BookingRepositoryCustom {
+
+    List<BookingDtoResponse> findBookerBookingsAfter(Long bookerId, BookingStates state, LocalDateTime now,
+                                                     LocalDateTime afterStart, Long afterId, int limit);
+}
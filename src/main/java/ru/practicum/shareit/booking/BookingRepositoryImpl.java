@@ -0,0 +1,65 @@
+package ru.practicum.shareit.booking;
+
+import ru.practicum.shareit.booking.dto.BookingDtoResponse;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStates;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.*;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Постраничная выборка бронирований арендатора по курсору: вместо OFFSET следующая страница начинается
+ * с условия (start_date, id) < (afterStart, afterId) при сортировке по start_date desc, id desc.
+ */
+public class BookingRepositoryImpl implements BookingRepositoryCustom {
+    @PersistenceContext
+    private EntityManager em;
+
+    @Override
+    public List<BookingDtoResponse> findBookerBookingsAfter(Long bookerId, BookingStates state, LocalDateTime now,
+                                                            LocalDateTime afterStart, Long afterId, int limit) {
+        var cb = em.getCriteriaBuilder();
+        var query = cb.createQuery(BookingDtoResponse.class);
+        var root = query.from(Booking.class);
+        Join<Booking, Item> item = root.join("item");
+        Join<Booking, User> booker = root.join("booker");
+
+        var predicates = new ArrayList<Predicate>();
+        predicates.add(cb.equal(booker.get("id"), bookerId));
+        Path<LocalDateTime> start = root.get("startDate");
+        Path<LocalDateTime> end = root.get("endDate");
+        switch (state) {
+            case ALL:
+                break;
+            case CURRENT:
+                predicates.add(cb.lessThan(start, now));
+                predicates.add(cb.greaterThan(end, now));
+                break;
+            case PAST:
+                predicates.add(cb.lessThan(end, now));
+                break;
+            case FUTURE:
+                predicates.add(cb.greaterThan(start, now));
+                break;
+            default:
+                predicates.add(cb.equal(root.get("status"), BookingStatus.valueOf(state.name())));
+        }
+        if (afterStart != null) {
+            Path<Long> id = root.get("id");
+            predicates.add(cb.or(cb.lessThan(start, afterStart),
+                    cb.and(cb.equal(start, afterStart), cb.lessThan(id, afterId))));
+        }
+        query.select(cb.construct(BookingDtoResponse.class, root.get("id"), start, end, root.get("status"),
+                        booker.get("id"), booker.get("name"), item.get("id"), item.get("name")))
+                .where(predicates.toArray(new Predicate[0]))
+                .orderBy(cb.desc(start), cb.desc(root.get("id")));
+        return em.createQuery(query).setMaxResults(limit).getResultList();
+    }
+}
@@ -1,14 +1,19 @@
 package ru.practicum.shareit.booking;
 
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
 import ru.practicum.shareit.booking.dto.BookingDtoRequest;
 import ru.practicum.shareit.booking.dto.BookingDtoResponse;
+import ru.practicum.shareit.common.CursorPage;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface BookingService {
 
     BookingDtoResponse createBooking(Long userId, BookingDtoRequest bookingDtoRequest);
 
+    List<BookingBatchResultDto> createBookings(Long userId, List<BookingDtoRequest> bookingDtoRequests);
+
     BookingDtoResponse approvedBooking(Long bookingId, Boolean approved, Long userId);
 
     BookingDtoResponse getBooking(Long userId, Long bookingId);
@@ -16,4 +21,10 @@ public interface BookingService {
     List<BookingDtoResponse> getAllBookings(Long userId, String state, int from, int size);
 
     List<BookingDtoResponse> getAllItemBookings(Long userId, String state, int from, int size);
+
+    void exportBookings(Long userId, Consumer<BookingDtoResponse> consumer);
+
+    CursorPage<BookingDtoResponse> getAllBookingsAfter(Long userId, String state, String cursor, int size);
+
+    CursorPage<BookingDtoResponse> getAllItemBookingsAfter(Long userId, String state, String cursor, int size);
 }
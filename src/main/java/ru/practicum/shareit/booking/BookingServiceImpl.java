@@ -1,22 +1,31 @@
 package ru.practicum.shareit.booking;
 
 import lombok.AllArgsConstructor;
-import org.springframework.data.domain.PageRequest;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
 import ru.practicum.shareit.booking.dto.BookingDtoRequest;
 import ru.practicum.shareit.booking.dto.BookingDtoResponse;
+import ru.practicum.shareit.booking.dto.BookingInterval;
 import ru.practicum.shareit.booking.dto.BookingMapper;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingStates;
 import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.common.CursorPage;
+import ru.practicum.shareit.common.PageCursor;
+import ru.practicum.shareit.common.PaginationUtil;
 import ru.practicum.shareit.exceptions.*;
 import ru.practicum.shareit.item.ItemRepository;
-import ru.practicum.shareit.user.UserRepository;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.UserCache;
 import ru.practicum.shareit.user.model.User;
 
 import java.time.LocalDateTime;
-import java.util.List;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -24,25 +33,73 @@ import java.util.stream.Collectors;
 public class BookingServiceImpl implements BookingService {
     private BookingRepository bookingRepository;
     private ItemRepository itemRepository;
-    private UserRepository userRepository;
+    private UserCache userCache;
+    private BookingIntervalIndex bookingIntervalIndex;
+    private ItemBookingPointers itemBookingPointers;
+    private OwnerBookingRepository ownerBookingRepository;
+    private ApplicationEventPublisher eventPublisher;
+    private BookingArchive bookingArchive;
 
     @Override
     public BookingDtoResponse createBooking(Long userId, BookingDtoRequest bookingDtoRequest) {
         var booker = checkUserExistsAndGet(userId);
         var item = itemRepository.findById(bookingDtoRequest.getItemId()).orElseThrow(()
                 -> new NotFoundException("Вещь не найдена"));
-        if (!item.getIsAvailable()) {
-            throw new ItemNotAvailable(String.format("Вещь с id = %s не доступна для бронирования",
-                    bookingDtoRequest.getItemId()));
-        }
-        if (item.getOwnerId().equals(userId)) {
-            throw new NotAccessException("Нельзя взять в аренду свою вещь");
-        }
-        return BookingMapper.toBookingDtoResponse(bookingRepository.save(
-                BookingMapper.toBooking(bookingDtoRequest, booker, item)));
+        checkItemCanBeBooked(item, userId);
+        return bookingIntervalIndex.withItemLock(item.getId(), () -> {
+            checkNoOverlap(item.getId(), bookingDtoRequest);
+            var booking = itemBookingPointers.save(List.of(BookingMapper.toBooking(bookingDtoRequest, booker, item)))
+                    .get(0);
+            bookingIntervalIndex.apply(booking);
+            return BookingMapper.toBookingDtoResponse(booking);
+        });
     }
 
     @Override
+    public List<BookingBatchResultDto> createBookings(Long userId, List<BookingDtoRequest> bookingDtoRequests) {
+        var booker = checkUserExistsAndGet(userId);
+        var itemIds = bookingDtoRequests.stream().map(BookingDtoRequest::getItemId).filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        var items = itemRepository.findAllById(itemIds).stream()
+                .collect(Collectors.toMap(Item::getId, Function.identity()));
+        return bookingIntervalIndex.withItemLocks(items.keySet(), () -> {
+            var results = new ArrayList<BookingBatchResultDto>(bookingDtoRequests.size());
+            var accepted = new HashMap<Long, BookingIntervalTree>();
+            var bookings = new ArrayList<Booking>();
+            var now = LocalDateTime.now();
+            for (int i = 0; i < bookingDtoRequests.size(); i++) {
+                var bookingDtoRequest = bookingDtoRequests.get(i);
+                try {
+                    var item = checkBatchRowAndGetItem(bookingDtoRequest, items, userId, now);
+                    checkNoOverlap(item.getId(), bookingDtoRequest);
+                    var batchTree = accepted.computeIfAbsent(item.getId(), id -> new BookingIntervalTree());
+                    var batchOverlap = batchTree.findOverlap(bookingDtoRequest.getStart(), bookingDtoRequest.getEnd());
+                    if (batchOverlap.isPresent()) {
+                        throw new ItemNotAvailable(String.format("Бронирование вещи с id = %s пересекается с " +
+                                "строкой %s этого же пакета", item.getId(), -batchOverlap.get().getId()));
+                    }
+                    batchTree.put(new BookingInterval((long) -i, userId, bookingDtoRequest.getStart(),
+                            bookingDtoRequest.getEnd(), BookingStatus.WAITING), true);
+                    bookings.add(BookingMapper.toBooking(bookingDtoRequest, booker, item));
+                    results.add(new BookingBatchResultDto(i, null, null));
+                } catch (NotFoundException | ItemNotAvailable | NotAccessException | InvalidBookingDates e) {
+                    results.add(new BookingBatchResultDto(i, null, e.getMessage()));
+                }
+            }
+            var saved = itemBookingPointers.save(bookings).iterator();
+            for (BookingBatchResultDto result : results) {
+                if (result.getError() == null) {
+                    var booking = saved.next();
+                    bookingIntervalIndex.apply(booking);
+                    result.setBooking(BookingMapper.toBookingDtoResponse(booking));
+                }
+            }
+            return results;
+        });
+    }
+
+    @Override
+    @Transactional
     public BookingDtoResponse approvedBooking(Long bookingId, Boolean approved, Long userId) {
         checkUserExistsAndGet(userId);
         var booking = checkBookingExistsAndGet(bookingId);
@@ -53,10 +110,15 @@ public class BookingServiceImpl implements BookingService {
             throw new BookingAlreadyApprovedException("Нельзя изменить статус после одобрения");
         }
         booking.setStatus(approved ? BookingStatus.APPROVED : BookingStatus.REJECTED);
-        return BookingMapper.toBookingDtoResponse(bookingRepository.save(booking));
+        var savedBooking = bookingRepository.save(booking);
+        itemBookingPointers.refresh(List.of(savedBooking.getItem().getId()), LocalDateTime.now());
+        eventPublisher.publishEvent(new BookingStatusChangedEvent(savedBooking));
+        bookingIntervalIndex.apply(savedBooking);
+        return BookingMapper.toBookingDtoResponse(savedBooking);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public BookingDtoResponse getBooking(Long userId, Long bookingId) {
         checkUserExistsAndGet(userId);
         var booking = checkBookingExistsAndGet(bookingId);
@@ -68,73 +130,170 @@ public class BookingServiceImpl implements BookingService {
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public void exportBookings(Long userId, Consumer<BookingDtoResponse> consumer) {
+        checkUserExistsAndGet(userId);
+        try (var bookings = bookingRepository.streamAllByBookerId(userId)) {
+            bookings.forEach(consumer);
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public List<BookingDtoResponse> getAllBookings(Long userId, String state, int from, int size) {
         checkUserExistsAndGet(userId);
-        Pageable page = PageRequest.of(from, size);
+        Pageable page = PaginationUtil.toPageable(from, size);
         try {
             switch (BookingStates.valueOf(state)) {
                 case ALL:
-                    return bookingRepository.findAllByBookerIdOrderByStartDateDesc(userId, page).stream()
-                            .map(BookingMapper::toBookingDtoResponse).collect(Collectors.toList());
+                    return bookingArchive.bookerPage(userId,
+                            bookingRepository.findAllByBookerIdOrderByStartDateDesc(userId, page), page,
+                            LocalDateTime.now(), top -> bookingRepository.findAllByBookerIdOrderByStartDateDesc(
+                                    userId, top));
                 case CURRENT:
                     return bookingRepository.findAllByBookerIdAndStartDateBeforeAndEndDateAfterOrderByStartDateDesc(
-                                    userId, LocalDateTime.now(), LocalDateTime.now(), page).stream()
-                            .map(BookingMapper::toBookingDtoResponse).collect(Collectors.toList());
+                                    userId, LocalDateTime.now(), LocalDateTime.now(), page);
                 case PAST:
-                    return bookingRepository.findAllByBookerIdAndEndDateBeforeOrderByStartDateDesc(
-                                    userId, LocalDateTime.now(), page).stream().map(BookingMapper::toBookingDtoResponse)
-                            .collect(Collectors.toList());
+                    var now = LocalDateTime.now();
+                    return bookingArchive.bookerPage(userId,
+                            bookingRepository.findAllByBookerIdAndEndDateBeforeOrderByStartDateDesc(userId, now, page),
+                            page, now, top -> bookingRepository.findAllByBookerIdAndEndDateBeforeOrderByStartDateDesc(
+                                    userId, now, top));
                 case FUTURE:
                     return bookingRepository.findAllByBookerIdAndStartDateAfterOrderByStartDateDesc(
-                                    userId, LocalDateTime.now(), page).stream().map(BookingMapper::toBookingDtoResponse)
-                            .collect(Collectors.toList());
+                                    userId, LocalDateTime.now(), page);
                 default:
                     return bookingRepository.findAllByBookerIdAndStatusOrderByStartDateDesc(userId,
-                                    BookingStatus.valueOf(state), page).stream()
-                            .map(BookingMapper::toBookingDtoResponse).collect(Collectors.toList());
+                                    BookingStatus.valueOf(state), page);
             }
         } catch (IllegalArgumentException e) {
             throw new UnsupportedBookingStateException(String.format("Указан неподдерживаемый статус = %s", state));
         }
     }
 
+    /**
+     * Бронирования вещей владельца читаются из модели owner_bookings, которую поддерживает
+     * {@link OwnerBookingProjection}; ALL и PAST дочитываются из архива {@link BookingArchive}.
+     */
     @Override
+    @Transactional(readOnly = true)
     public List<BookingDtoResponse> getAllItemBookings(Long userId, String state, int from, int size) {
         checkUserExistsAndGet(userId);
-        Pageable page = PageRequest.of(from, size);
+        var states = toBookingStates(state);
+        var now = LocalDateTime.now();
+        var page = PaginationUtil.toPageable(from, size);
+        var bookings = ownerBookingRepository.findOwnerBookings(userId, states, now, page);
+        if (!BookingArchive.covers(states)) {
+            return bookings;
+        }
+        return bookingArchive.ownerPage(userId, bookings, page, now,
+                top -> ownerBookingRepository.findOwnerBookings(userId, states, now, top));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<BookingDtoResponse> getAllBookingsAfter(Long userId, String state, String cursor, int size) {
+        checkUserExistsAndGet(userId);
+        var states = toBookingStates(state);
+        var now = LocalDateTime.now();
+        var after = decodeBookingCursor(cursor);
+        var afterStart = after == null ? null : after.getStartDate();
+        var afterId = after == null ? null : after.getId();
+        var bookings = bookingRepository.findBookerBookingsAfter(userId, states, now, afterStart, afterId, size + 1);
+        if (BookingArchive.covers(states)) {
+            bookings = bookingArchive.bookerAfter(userId, bookings, size + 1, now, afterStart, afterId);
+        }
+        return toCursorPage(bookings, size);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<BookingDtoResponse> getAllItemBookingsAfter(Long userId, String state, String cursor,
+                                                                  int size) {
+        checkUserExistsAndGet(userId);
+        var states = toBookingStates(state);
+        var now = LocalDateTime.now();
+        var after = decodeBookingCursor(cursor);
+        var afterStart = after == null ? null : after.getStartDate();
+        var afterId = after == null ? null : after.getId();
+        var bookings = ownerBookingRepository.findOwnerBookingsAfter(userId, states, now, afterStart, afterId,
+                size + 1);
+        if (BookingArchive.covers(states)) {
+            bookings = bookingArchive.ownerAfter(userId, bookings, size + 1, now, afterStart, afterId);
+        }
+        return toCursorPage(bookings, size);
+    }
+
+    private static PageCursor decodeBookingCursor(String cursor) {
+        var after = PageCursor.decode(cursor);
+        if (after != null && after.getStartDate() == null) {
+            throw new InvalidPageParamsException(String.format("Курсор %s не относится к списку бронирований", cursor));
+        }
+        return after;
+    }
+
+    private BookingStates toBookingStates(String state) {
         try {
-            switch (BookingStates.valueOf(state)) {
-                case ALL:
-                    return bookingRepository.findAllByItemOwnerIdOrderByStartDateDesc(userId, page).stream()
-                            .map(BookingMapper::toBookingDtoResponse).collect(Collectors.toList());
-                case CURRENT:
-                    return bookingRepository.findAllByItemOwnerIdAndStartDateBeforeAndEndDateAfterOrderByStartDateDesc(
-                                    userId, LocalDateTime.now(), LocalDateTime.now(), page).stream()
-                                    .map(BookingMapper::toBookingDtoResponse).collect(Collectors.toList());
-                case PAST:
-                    return bookingRepository.findAllByItemOwnerIdAndEndDateBeforeOrderByStartDateDesc(userId,
-                                    LocalDateTime.now(), page).stream().map(BookingMapper::toBookingDtoResponse)
-                            .collect(Collectors.toList());
-                case FUTURE:
-                    return bookingRepository.findAllByItemOwnerIdAndStartDateAfterOrderByStartDateDesc(userId,
-                                    LocalDateTime.now(), page).stream().map(BookingMapper::toBookingDtoResponse)
-                            .collect(Collectors.toList());
-                default:
-                    return bookingRepository.findAllByItemOwnerIdAndStatusOrderByStartDateDesc(userId,
-                                    BookingStatus.valueOf(state), page).stream().map(BookingMapper::toBookingDtoResponse)
-                            .collect(Collectors.toList());
-            }
+            return BookingStates.valueOf(state);
         } catch (IllegalArgumentException e) {
             throw new UnsupportedBookingStateException(String.format("Указан неподдерживаемый статус = %s", state));
         }
     }
 
+    private CursorPage<BookingDtoResponse> toCursorPage(List<BookingDtoResponse> bookings, int size) {
+        String nextCursor = null;
+        if (bookings.size() > size) {
+            bookings = bookings.subList(0, size);
+            var last = bookings.get(size - 1);
+            nextCursor = new PageCursor(last.getStart(), last.getId()).encode();
+        }
+        return new CursorPage<>(bookings, nextCursor);
+    }
+
+    private Item checkBatchRowAndGetItem(BookingDtoRequest bookingDtoRequest, Map<Long, Item> items, Long userId,
+                                         LocalDateTime now) {
+        if (bookingDtoRequest.getItemId() == null || bookingDtoRequest.getStart() == null ||
+                bookingDtoRequest.getEnd() == null) {
+            throw new InvalidBookingDates("Должны быть указаны вещь, начало и окончание бронирования");
+        }
+        if (bookingDtoRequest.getStart().isBefore(now)) {
+            throw new InvalidBookingDates("Начало бронирования не может быть в прошлом");
+        }
+        if (!bookingDtoRequest.getEnd().isAfter(bookingDtoRequest.getStart())) {
+            throw new InvalidBookingDates("Окончание бронирования должно быть после начала бронирования");
+        }
+        var item = items.get(bookingDtoRequest.getItemId());
+        if (item == null) {
+            throw new NotFoundException(String.format("Вещь с id = %s не найдена", bookingDtoRequest.getItemId()));
+        }
+        checkItemCanBeBooked(item, userId);
+        return item;
+    }
+
+    private void checkItemCanBeBooked(Item item, Long userId) {
+        if (!item.getIsAvailable()) {
+            throw new ItemNotAvailable(String.format("Вещь с id = %s не доступна для бронирования", item.getId()));
+        }
+        if (item.getOwnerId().equals(userId)) {
+            throw new NotAccessException("Нельзя взять в аренду свою вещь");
+        }
+    }
+
+    private void checkNoOverlap(Long itemId, BookingDtoRequest bookingDtoRequest) {
+        var overlap = bookingIntervalIndex.findOverlap(itemId, bookingDtoRequest.getStart(),
+                bookingDtoRequest.getEnd());
+        if (overlap.isPresent()) {
+            throw new ItemNotAvailable(String.format("Вещь с id = %s уже забронирована с %s по %s",
+                    itemId, overlap.get().getStartDate(), overlap.get().getEndDate()));
+        }
+    }
+
     private User checkUserExistsAndGet(Long userId) {
-        return userRepository.findById(userId).orElseThrow(() -> new NotFoundException("Пользователь на найден"));
+        return userCache.findById(userId).orElseThrow(() -> new NotFoundException("Пользователь на найден"));
     }
 
     private Booking checkBookingExistsAndGet(Long bookingId) {
-        return bookingRepository.findById(bookingId).orElseThrow(() -> new NotFoundException(
+        return bookingRepository.findWithItemAndBookerById(bookingId).orElseThrow(() -> new NotFoundException(
                 "Бронирование не найдено"));
     }
 }
@@ -0,0 +1,14 @@
+package ru.practicum.shareit.booking;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import ru.practicum.shareit.booking.model.Booking;
+
+/**
+ * Статус бронирования изменён; публикуется внутри транзакции, изменившей его.
+ */
+@Data
+@AllArgsConstructor
+public class BookingStatusChangedEvent {
+    private Booking booking;
+}
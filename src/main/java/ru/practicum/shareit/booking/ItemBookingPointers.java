@@ -0,0 +1,122 @@
+package ru.practicum.shareit.booking;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.dto.BookingShort;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.common.EntityCacheInvalidation;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.item.model.Item;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Указатели вещи на последнее и следующее бронирование. Пересчитываются в той же транзакции, что сохраняет
+ * бронирование или меняет его статус; строка вещи блокируется, так что параллельные пересчёты одной вещи
+ * выполняются по очереди и видят изменения друг друга. Когда следующее бронирование наступает, указатели
+ * сдвигает {@link #rollForward()}, до этого владелец видит его следующим.
+ */
+@Slf4j
+@Component
+public class ItemBookingPointers {
+    private final ItemRepository itemRepository;
+    private final BookingRepository bookingRepository;
+    private final EntityCacheInvalidation entityCacheInvalidation;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactions;
+    private final int batchSize;
+
+    public ItemBookingPointers(ItemRepository itemRepository, BookingRepository bookingRepository,
+                               EntityCacheInvalidation entityCacheInvalidation,
+                               ApplicationEventPublisher eventPublisher,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${shareit.booking.pointers.batch-size}") int batchSize) {
+        this.itemRepository = itemRepository;
+        this.bookingRepository = bookingRepository;
+        this.entityCacheInvalidation = entityCacheInvalidation;
+        this.eventPublisher = eventPublisher;
+        this.transactions = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Сохраняет бронирования и пересчитывает указатели их вещей одной транзакцией; в ней же публикуется
+     * {@link BookingCreatedEvent} для каждого бронирования.
+     */
+    @Transactional
+    public List<Booking> save(List<Booking> bookings) {
+        var saved = bookingRepository.saveAll(bookings);
+        saved.forEach(booking -> eventPublisher.publishEvent(new BookingCreatedEvent(booking)));
+        refresh(saved.stream().map(booking -> booking.getItem().getId()).collect(Collectors.toSet()),
+                LocalDateTime.now());
+        return saved;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void refresh(Collection<Long> itemIds, LocalDateTime now) {
+        if (itemIds.isEmpty()) {
+            return;
+        }
+        var items = itemRepository.findAllByIdInOrderById(itemIds);
+        var lastBookings = byItemId(bookingRepository.findLastBookings(itemIds, now, BookingStatus.REJECTED));
+        var nextBookings = byItemId(bookingRepository.findNextBookings(itemIds, now, BookingStatus.REJECTED));
+        for (Item item : items) {
+            var last = lastBookings.get(item.getId());
+            var next = nextBookings.get(item.getId());
+            var lastBookingId = last == null ? null : last.getId();
+            var nextBookingId = next == null ? null : next.getId();
+            var nextBookingStart = next == null ? null : next.getStartDate();
+            if (Objects.equals(item.getLastBookingId(), lastBookingId) &&
+                    Objects.equals(item.getNextBookingId(), nextBookingId) &&
+                    Objects.equals(item.getNextBookingStart(), nextBookingStart)) {
+                continue;
+            }
+            item.setLastBookingId(lastBookingId);
+            item.setLastBookerId(last == null ? null : last.getBookerId());
+            item.setNextBookingId(nextBookingId);
+            item.setNextBookerId(next == null ? null : next.getBookerId());
+            item.setNextBookingStart(nextBookingStart);
+            entityCacheInvalidation.invalidate(Item.class, item.getId());
+        }
+    }
+
+    /**
+     * Сдвигает указатели вещей, у которых наступило следующее бронирование. Вещи обрабатываются порциями
+     * по shareit.booking.pointers.batch-size, каждая порция в своей транзакции.
+     */
+    @Scheduled(fixedDelayString = "${shareit.booking.pointers.roll-forward-interval}",
+            initialDelayString = "${shareit.booking.pointers.roll-forward-interval}")
+    public void rollForward() {
+        var now = LocalDateTime.now();
+        int total = 0;
+        List<Long> itemIds;
+        do {
+            itemIds = itemRepository.findIdsByNextBookingStartBefore(now, PageRequest.of(0, batchSize));
+            var batch = itemIds;
+            transactions.executeWithoutResult(status -> refresh(batch, now));
+            total += itemIds.size();
+        } while (itemIds.size() == batchSize);
+        if (total > 0) {
+            log.info("Указатели на бронирования сдвинуты у {} вещей", total);
+        }
+    }
+
+    private static Map<Long, BookingShort> byItemId(List<BookingShort> bookings) {
+        return bookings.stream().collect(Collectors.toMap(BookingShort::getItemId, Function.identity()));
+    }
+}
@@ -0,0 +1,53 @@
+package ru.practicum.shareit.booking;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.dto.BookingMapper;
+import ru.practicum.shareit.common.EntityRenamedEvent;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+/**
+ * Поддерживает owner_bookings по событиям записи бронирований, вещей и пользователей. Обработчики выполняются
+ * синхронно в транзакции, опубликовавшей событие, поэтому модель меняется вместе с основными таблицами.
+ */
+@Slf4j
+@Component
+@AllArgsConstructor
+public class OwnerBookingProjection {
+    private OwnerBookingRepository ownerBookingRepository;
+
+    @EventListener
+    public void onBookingCreated(BookingCreatedEvent event) {
+        ownerBookingRepository.save(BookingMapper.toOwnerBooking(event.getBooking()));
+    }
+
+    @EventListener
+    public void onBookingStatusChanged(BookingStatusChangedEvent event) {
+        ownerBookingRepository.updateStatus(event.getBooking().getId(), event.getBooking().getStatus());
+    }
+
+    @EventListener
+    public void onEntityRenamed(EntityRenamedEvent event) {
+        if (Item.class.equals(event.getEntityClass())) {
+            ownerBookingRepository.updateItemName(event.getId(), event.getName());
+        } else if (User.class.equals(event.getEntityClass())) {
+            ownerBookingRepository.updateBookerName(event.getId(), event.getName());
+        }
+    }
+
+    /**
+     * Заново заполняет модель из bookings, items и users одной транзакцией. Статусы, изменённые во время пересборки,
+     * могут не попасть в модель, поэтому её лучше запускать, когда бронирования не меняются.
+     */
+    @Transactional
+    public int rebuild() {
+        int deleted = ownerBookingRepository.deleteAllRows();
+        int inserted = ownerBookingRepository.insertFromBookings();
+        log.info("Модель бронирований владельцев пересобрана: удалено {}, добавлено {} строк", deleted, inserted);
+        return inserted;
+    }
+}
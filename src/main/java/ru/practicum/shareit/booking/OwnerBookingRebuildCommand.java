@@ -0,0 +1,29 @@
+package ru.practicum.shareit.booking;
+
+import lombok.AllArgsConstructor;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+/**
+ * Пересборка owner_bookings из основных таблиц: приложение, запущенное с аргументом --rebuild-owner-bookings,
+ * пересобирает модель и завершается.
+ */
+@Component
+@AllArgsConstructor
+public class OwnerBookingRebuildCommand implements ApplicationRunner {
+    static final String OPTION = "rebuild-owner-bookings";
+
+    private OwnerBookingProjection ownerBookingProjection;
+    private ConfigurableApplicationContext context;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (args.containsOption(OPTION)) {
+            ownerBookingProjection.rebuild();
+            System.exit(SpringApplication.exit(context, () -> 0));
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package ru.practicum.shareit.booking;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.model.OwnerBooking;
+
+public interface OwnerBookingRepository extends JpaRepository<OwnerBooking, Long>, OwnerBookingRepositoryCustom {
+
+    @Transactional
+    @Modifying
+    @Query("update OwnerBooking b set b.status = :status where b.bookingId = :bookingId")
+    int updateStatus(@Param("bookingId") Long bookingId, @Param("status") BookingStatus status);
+
+    @Transactional
+    @Modifying
+    @Query("update OwnerBooking b set b.itemName = :name where b.itemId = :itemId")
+    int updateItemName(@Param("itemId") Long itemId, @Param("name") String name);
+
+    @Transactional
+    @Modifying
+    @Query("update OwnerBooking b set b.bookerName = :name where b.bookerId = :bookerId")
+    int updateBookerName(@Param("bookerId") Long bookerId, @Param("name") String name);
+
+    @Transactional
+    @Modifying
+    @Query(value = "delete from owner_bookings", nativeQuery = true)
+    int deleteAllRows();
+
+    /**
+     * Строки для всех бронирований из основных таблиц, тот же запрос заполняет модель в миграции V5.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "insert into owner_bookings (booking_id, owner_id, item_id, item_name, booker_id, booker_name, " +
+            "start_date, end_date, status) " +
+            "select b.id, i.owner_id, i.id, i.name, u.id, u.name, b.start_date, b.end_date, b.status " +
+            "from bookings b join items i on i.id = b.item_id join users u on u.id = b.booker_id",
+            nativeQuery = true)
+    int insertFromBookings();
+}
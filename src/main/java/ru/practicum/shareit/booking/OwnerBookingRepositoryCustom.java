@@ -0,0 +1,16 @@
+package ru.practicum.shareit.booking;
+
+import org.springframework.data.domain.Pageable;
+import ru.practicum.shareit.booking.dto.BookingDtoResponse;
+import ru.practicum.shareit.booking.model.BookingStates;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface OwnerBookingRepositoryCustom {
+
+    List<BookingDtoResponse> findOwnerBookings(Long ownerId, BookingStates state, LocalDateTime now, Pageable page);
+
+    List<BookingDtoResponse> findOwnerBookingsAfter(Long ownerId, BookingStates state, LocalDateTime now,
+                                                    LocalDateTime afterStart, Long afterId, int limit);
+}
@@ -0,0 +1,76 @@
+package ru.practicum.shareit.booking;
+
+import org.springframework.data.domain.Pageable;
+import ru.practicum.shareit.booking.dto.BookingDtoResponse;
+import ru.practicum.shareit.booking.model.BookingStates;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.model.OwnerBooking;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Бронирования владельца из owner_bookings. Любое состояние — один диапазон индекса (owner_id, start_date)
+ * или (owner_id, status, start_date): PAST дополнительно ограничен start_date < now, так как бронирование
+ * заканчивается позже, чем начинается.
+ */
+public class OwnerBookingRepositoryImpl implements OwnerBookingRepositoryCustom {
+    @PersistenceContext
+    private EntityManager em;
+
+    @Override
+    public List<BookingDtoResponse> findOwnerBookings(Long ownerId, BookingStates state, LocalDateTime now,
+                                                      Pageable page) {
+        return find(ownerId, state, now, null, null, (int) page.getOffset(), page.getPageSize());
+    }
+
+    @Override
+    public List<BookingDtoResponse> findOwnerBookingsAfter(Long ownerId, BookingStates state, LocalDateTime now,
+                                                           LocalDateTime afterStart, Long afterId, int limit) {
+        return find(ownerId, state, now, afterStart, afterId, 0, limit);
+    }
+
+    private List<BookingDtoResponse> find(Long ownerId, BookingStates state, LocalDateTime now,
+                                          LocalDateTime afterStart, Long afterId, int offset, int limit) {
+        var cb = em.getCriteriaBuilder();
+        var query = cb.createQuery(BookingDtoResponse.class);
+        var root = query.from(OwnerBooking.class);
+
+        var predicates = new ArrayList<Predicate>();
+        predicates.add(cb.equal(root.get("ownerId"), ownerId));
+        Path<LocalDateTime> start = root.get("startDate");
+        Path<LocalDateTime> end = root.get("endDate");
+        switch (state) {
+            case ALL:
+                break;
+            case CURRENT:
+                predicates.add(cb.lessThan(start, now));
+                predicates.add(cb.greaterThan(end, now));
+                break;
+            case PAST:
+                predicates.add(cb.lessThan(start, now));
+                predicates.add(cb.lessThan(end, now));
+                break;
+            case FUTURE:
+                predicates.add(cb.greaterThan(start, now));
+                break;
+            default:
+                predicates.add(cb.equal(root.get("status"), BookingStatus.valueOf(state.name())));
+        }
+        Path<Long> id = root.get("bookingId");
+        if (afterStart != null) {
+            predicates.add(cb.or(cb.lessThan(start, afterStart),
+                    cb.and(cb.equal(start, afterStart), cb.lessThan(id, afterId))));
+        }
+        query.select(cb.construct(BookingDtoResponse.class, id, start, end, root.get("status"),
+                        root.get("bookerId"), root.get("bookerName"), root.get("itemId"), root.get("itemName")))
+                .where(predicates.toArray(new Predicate[0]))
+                .orderBy(cb.desc(start), cb.desc(id));
+        return em.createQuery(query).setFirstResult(offset).setMaxResults(limit).getResultList();
+    }
+}
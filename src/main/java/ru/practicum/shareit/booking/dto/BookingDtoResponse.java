@@ -3,8 +3,8 @@ package ru.practicum.shareit.booking.dto;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import ru.practicum.shareit.booking.model.BookingStatus;
-import ru.practicum.shareit.item.model.Item;
-import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.item.dto.ItemShortDto;
+import ru.practicum.shareit.user.dto.UserShortDto;
 
 import java.time.LocalDateTime;
 
@@ -15,6 +15,14 @@ public class BookingDtoResponse {
     private LocalDateTime start;
     private LocalDateTime end;
     private BookingStatus status;
-    private User booker;
-    private Item item;
+    private UserShortDto booker;
+    private ItemShortDto item;
+
+    /**
+     * Для выражений select new в запросах списков бронирований: выбираются только нужные ответу колонки.
+     */
+    public BookingDtoResponse(Long id, LocalDateTime start, LocalDateTime end, BookingStatus status,
+                              Long bookerId, String bookerName, Long itemId, String itemName) {
+        this(id, start, end, status, new UserShortDto(bookerId, bookerName), new ItemShortDto(itemId, itemName));
+    }
 }
@@ -0,0 +1,17 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import ru.practicum.shareit.booking.model.BookingStatus;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+public class BookingInterval {
+    private Long id;
+    private Long bookerId;
+    private LocalDateTime startDate;
+    private LocalDateTime endDate;
+    private BookingStatus status;
+}
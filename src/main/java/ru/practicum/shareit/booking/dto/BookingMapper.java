@@ -3,6 +3,7 @@ package ru.practicum.shareit.booking.dto;
 import lombok.experimental.UtilityClass;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.model.OwnerBooking;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.model.User;
 
@@ -15,8 +16,10 @@ public final class BookingMapper {
                 booking.getStartDate(),
                 booking.getEndDate(),
                 booking.getStatus(),
-                booking.getBooker(),
-                booking.getItem()
+                booking.getBooker().getId(),
+                booking.getBooker().getName(),
+                booking.getItem().getId(),
+                booking.getItem().getName()
         );
     }
 
@@ -27,6 +30,44 @@ public final class BookingMapper {
         );
     }
 
+    public static BookingItemDto toBookingItemDto(BookingShort booking) {
+        return new BookingItemDto(
+                booking.getId(),
+                booking.getBookerId()
+        );
+    }
+
+    public static BookingItemDto toBookingItemDto(BookingInterval booking) {
+        return new BookingItemDto(
+                booking.getId(),
+                booking.getBookerId()
+        );
+    }
+
+    public static BookingInterval toBookingInterval(Booking booking) {
+        return new BookingInterval(
+                booking.getId(),
+                booking.getBooker().getId(),
+                booking.getStartDate(),
+                booking.getEndDate(),
+                booking.getStatus()
+        );
+    }
+
+    public static OwnerBooking toOwnerBooking(Booking booking) {
+        return new OwnerBooking(
+                booking.getId(),
+                booking.getItem().getOwnerId(),
+                booking.getItem().getId(),
+                booking.getItem().getName(),
+                booking.getBooker().getId(),
+                booking.getBooker().getName(),
+                booking.getStartDate(),
+                booking.getEndDate(),
+                booking.getStatus()
+        );
+    }
+
     public static Booking toBooking(BookingDtoRequest bookingDtoRequest, User booker, Item item) {
         return new Booking(
                 null,
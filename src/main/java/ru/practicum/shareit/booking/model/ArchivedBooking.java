@@ -0,0 +1,34 @@
+package ru.practicum.shareit.booking.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Бронирование, перенесённое в архив. Id совпадает с id бронирования, владелец вещи хранится в строке,
+ * чтобы список владельца читался по индексу архива.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "bookings_archive")
+public class ArchivedBooking {
+    @Id
+    private Long id;
+    @Column(name = "start_date", nullable = false)
+    private LocalDateTime startDate;
+    @Column(name = "end_date", nullable = false)
+    private LocalDateTime endDate;
+    @Column(name = "item_id", nullable = false)
+    private Long itemId;
+    @Column(name = "booker_id", nullable = false)
+    private Long bookerId;
+    @Column(name = "owner_id", nullable = false)
+    private Long ownerId;
+    @Enumerated(EnumType.STRING)
+    private BookingStatus status;
+}
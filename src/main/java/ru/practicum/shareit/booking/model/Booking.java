@@ -14,18 +14,23 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @Entity
 @Table(name = "bookings")
+@NamedEntityGraph(name = Booking.WITH_ITEM_AND_BOOKER, attributeNodes = {@NamedAttributeNode("item"),
+        @NamedAttributeNode("booker")})
 public class Booking {
+    public static final String WITH_ITEM_AND_BOOKER = "Booking.withItemAndBooker";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "bookings_seq")
+    @SequenceGenerator(name = "bookings_seq", sequenceName = "bookings_seq", allocationSize = 50)
     private Long id;
     @Column(name = "start_date", nullable = false)
     private LocalDateTime startDate;
     @Column(name = "end_date", nullable = false)
     private LocalDateTime endDate;
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "item_id")
     private Item item;
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "booker_id")
     private User booker;
     @Enumerated(EnumType.STRING)
@@ -0,0 +1,69 @@
+package ru.practicum.shareit.booking.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Persistable;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Строка модели чтения бронирований владельца. Id совпадает с id бронирования, поэтому новые строки
+ * помечаются сами: без этого save() сначала искал бы каждую строку в базе.
+ */
+@Data
+@NoArgsConstructor
+@Entity
+@Table(name = "owner_bookings")
+public class OwnerBooking implements Persistable<Long> {
+    @Id
+    @Column(name = "booking_id")
+    private Long bookingId;
+    @Column(name = "owner_id", nullable = false)
+    private Long ownerId;
+    @Column(name = "item_id", nullable = false)
+    private Long itemId;
+    @Column(name = "item_name", nullable = false)
+    private String itemName;
+    @Column(name = "booker_id", nullable = false)
+    private Long bookerId;
+    @Column(name = "booker_name", nullable = false)
+    private String bookerName;
+    @Column(name = "start_date", nullable = false)
+    private LocalDateTime startDate;
+    @Column(name = "end_date", nullable = false)
+    private LocalDateTime endDate;
+    @Enumerated(EnumType.STRING)
+    private BookingStatus status;
+    @Transient
+    private boolean stored;
+
+    public OwnerBooking(Long bookingId, Long ownerId, Long itemId, String itemName, Long bookerId, String bookerName,
+                        LocalDateTime startDate, LocalDateTime endDate, BookingStatus status) {
+        this.bookingId = bookingId;
+        this.ownerId = ownerId;
+        this.itemId = itemId;
+        this.itemName = itemName;
+        this.bookerId = bookerId;
+        this.bookerName = bookerName;
+        this.startDate = startDate;
+        this.endDate = endDate;
+        this.status = status;
+    }
+
+    @Override
+    public Long getId() {
+        return bookingId;
+    }
+
+    @Override
+    public boolean isNew() {
+        return !stored;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markStored() {
+        stored = true;
+    }
+}
@@ -4,6 +4,8 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.Getter;
 
+import java.time.Period;
+
 @Getter
 @Data
 @AllArgsConstructor
@@ -11,4 +13,9 @@ public class Constants {
     public static final String USER_HEADER = "X-Sharer-User-Id";
     public static final String DEFAULT_FROM = "0";
     public static final String DEFAULT_SIZE = "10";
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    public static final String HAS_MORE_HEADER = "X-Has-More";
+    public static final int MAX_BOOKING_BATCH_SIZE = 500;
+    public static final String EXPORT_FETCH_SIZE = "500";
+    public static final Period FREE_SLOT_SEARCH_HORIZON = Period.ofYears(1);
 }
@@ -0,0 +1,17 @@
+package ru.practicum.shareit.common;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class CursorPage<T> {
+    private List<T> items;
+    private String nextCursor;
+
+    public boolean isHasMore() {
+        return nextCursor != null;
+    }
+}
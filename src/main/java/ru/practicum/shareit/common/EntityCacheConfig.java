@@ -0,0 +1,63 @@
+package ru.practicum.shareit.common;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import javax.cache.Caching;
+import javax.sql.DataSource;
+import java.net.URI;
+import java.time.Duration;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+@Configuration
+public class EntityCacheConfig {
+
+    /**
+     * Регионы кэша второго уровня в собственном CacheManager каждого контекста: записи сущностей и результаты
+     * запросов ограничены shareit.entity.cache.maximum-size и живут не дольше shareit.entity.cache.ttl.
+     * Отметки времени изменения таблиц не вытесняются, иначе кэш запросов вернул бы устаревший результат.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer entityCacheCustomizer(
+            @Value("${shareit.entity.cache.maximum-size}") long maximumSize,
+            @Value("${shareit.entity.cache.ttl}") Duration ttl) {
+        return hibernateProperties -> {
+            var provider = Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+            var cacheManager = provider.getCacheManager(URI.create("shareit:" + UUID.randomUUID()),
+                    provider.getDefaultClassLoader());
+            for (String region : new String[]{User.class.getName(), Item.class.getName(),
+                    Item.ANSWERS_CACHE_REGION, RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME}) {
+                var configuration = new CaffeineConfiguration<Object, Object>();
+                configuration.setMaximumSize(OptionalLong.of(maximumSize));
+                configuration.setExpireAfterWrite(OptionalLong.of(ttl.toNanos()));
+                configuration.setStatisticsEnabled(true);
+                cacheManager.createCache(region, configuration);
+            }
+            cacheManager.createCache(RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME,
+                    new CaffeineConfiguration<>());
+            hibernateProperties.put(ConfigSettings.CACHE_MANAGER, cacheManager);
+        };
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "shareit.cache.invalidation", havingValue = "postgres")
+    public PostgresInvalidationChannel postgresInvalidationChannel(DataSource dataSource) {
+        return new PostgresInvalidationChannel(dataSource);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "shareit.cache.invalidation", havingValue = "local", matchIfMissing = true)
+    public LocalInvalidationChannel localInvalidationChannel() {
+        return new LocalInvalidationChannel();
+    }
+}
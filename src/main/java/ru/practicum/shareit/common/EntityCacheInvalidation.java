@@ -0,0 +1,66 @@
+package ru.practicum.shareit.common;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.metamodel.EntityType;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Сброс кэша второго уровня Hibernate и кэшей приложения на всех экземплярах. Изменение отправляется в
+ * {@link InvalidationChannel} после фиксации транзакции; по сообщению из канала запись сущности и все кэши запросов
+ * удаляются, а кэши приложения получают {@link EntityInvalidatedEvent}. Сообщение помечено экземпляром-отправителем:
+ * свои кэши приложения он обновляет сам при изменении, поэтому событие от своего сообщения приходит с remote = false.
+ */
+@Slf4j
+@Component
+public class EntityCacheInvalidation {
+    private static final String SEPARATOR = ":";
+
+    private final InvalidationChannel channel;
+    private final SessionFactory sessionFactory;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Map<String, Class<?>> entities;
+    private final String instance = UUID.randomUUID().toString();
+
+    public EntityCacheInvalidation(InvalidationChannel channel, EntityManagerFactory entityManagerFactory,
+                                   ApplicationEventPublisher eventPublisher) {
+        this.channel = channel;
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        this.eventPublisher = eventPublisher;
+        entities = entityManagerFactory.getMetamodel().getEntities().stream()
+                .collect(Collectors.toMap(EntityType::getName, EntityType::getJavaType, (first, second) -> first));
+        channel.subscribe(this::onMessage);
+    }
+
+    public void invalidate(Class<?> entityClass, Long id) {
+        var message = entityClass.getSimpleName() + SEPARATOR + id + SEPARATOR + instance;
+        TransactionUtil.runAfterCommit(() -> channel.publish(message));
+    }
+
+    private void onMessage(String message) {
+        var cache = sessionFactory.getCache();
+        if (InvalidationChannel.ALL.equals(message)) {
+            cache.evictAllRegions();
+            entities.values().forEach(entityClass ->
+                    eventPublisher.publishEvent(new EntityInvalidatedEvent(entityClass, null, true)));
+            return;
+        }
+        var parts = message.split(SEPARATOR, 3);
+        var entityClass = parts.length >= 2 ? entities.get(parts[0]) : null;
+        if (entityClass == null) {
+            log.warn("Неизвестное сообщение о сбросе кэша: {}", message);
+            return;
+        }
+        var id = Long.valueOf(parts[1]);
+        cache.evictEntityData(entityClass, id);
+        cache.evictQueryRegions();
+        eventPublisher.publishEvent(new EntityInvalidatedEvent(entityClass, id,
+                parts.length < 3 || !instance.equals(parts[2])));
+    }
+}
@@ -0,0 +1,16 @@
+package ru.practicum.shareit.common;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Сущность изменена на этом или другом экземпляре; id = null — сбросить все сущности класса.
+ * remote — изменение сделано на другом экземпляре, и кэши этого экземпляра о нём ещё не знают.
+ */
+@Data
+@AllArgsConstructor
+public class EntityInvalidatedEvent {
+    private Class<?> entityClass;
+    private Long id;
+    private boolean remote;
+}
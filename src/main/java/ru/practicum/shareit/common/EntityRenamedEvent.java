@@ -0,0 +1,15 @@
+package ru.practicum.shareit.common;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Изменено название вещи или имя пользователя; публикуется внутри транзакции, изменившей сущность.
+ */
+@Data
+@AllArgsConstructor
+public class EntityRenamedEvent {
+    private Class<?> entityClass;
+    private Long id;
+    private String name;
+}
@@ -0,0 +1,15 @@
+package ru.practicum.shareit.common;
+
+import java.util.function.Consumer;
+
+/**
+ * Канал сообщений об изменённых сущностях между экземплярами приложения. Сообщение получают все подписчики,
+ * включая экземпляр-отправитель. {@link #ALL} означает, что сообщения могли быть потеряны и сбросить нужно всё.
+ */
+public interface InvalidationChannel {
+    String ALL = "*";
+
+    void publish(String message);
+
+    void subscribe(Consumer<String> listener);
+}
@@ -0,0 +1,22 @@
+package ru.practicum.shareit.common;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Канал в пределах одного экземпляра: сообщение сразу доставляется подписчикам в потоке отправителя.
+ */
+public class LocalInvalidationChannel implements InvalidationChannel {
+    private final List<Consumer<String>> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(String message) {
+        listeners.forEach(listener -> listener.accept(message));
+    }
+
+    @Override
+    public void subscribe(Consumer<String> listener) {
+        listeners.add(listener);
+    }
+}
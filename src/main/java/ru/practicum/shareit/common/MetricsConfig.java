@@ -0,0 +1,16 @@
+package ru.practicum.shareit.common;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public FilterRegistrationBean<StatementCountFilter> statementCountFilter(StatementCounter statementCounter,
+                                                                             MeterRegistry meterRegistry) {
+        return new FilterRegistrationBean<>(new StatementCountFilter(statementCounter, meterRegistry));
+    }
+}
@@ -0,0 +1,56 @@
+package ru.practicum.shareit.common;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Запись объектов в ответ в формате NDJSON: один JSON-документ на строку. Строки уходят в поток по мере записи
+ * и не копятся в памяти, сбрасывать поток после каждой строки не нужно — это делает буфер ответа.
+ * Тип содержимого выставляется только с началом вывода, чтобы ошибка до первой строки отдавалась обычным JSON.
+ */
+public class NdjsonWriter {
+    public static final String CONTENT_TYPE = "application/x-ndjson";
+
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter writer;
+    private final HttpServletResponse response;
+    private JsonGenerator generator;
+
+    public NdjsonWriter(ObjectMapper objectMapper, HttpServletResponse response) {
+        this.objectMapper = objectMapper;
+        this.response = response;
+        writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    public void write(Object value) {
+        try {
+            writer.writeValue(generator(), value);
+            generator.writeRaw('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void flush() {
+        try {
+            generator().flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private JsonGenerator generator() throws IOException {
+        if (generator == null) {
+            response.setContentType(CONTENT_TYPE);
+            generator = objectMapper.getFactory().createGenerator(response.getOutputStream());
+            generator.setRootValueSeparator(null);
+        }
+        return generator;
+    }
+}
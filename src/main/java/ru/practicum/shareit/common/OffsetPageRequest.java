@@ -0,0 +1,52 @@
+package ru.practicum.shareit.common;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+/**
+ * Страница, начинающаяся с произвольной позиции from, а не с границы страницы размера size.
+ */
+@Getter
+@EqualsAndHashCode
+public class OffsetPageRequest implements Pageable {
+    private final long offset;
+    private final int pageSize;
+    private final Sort sort = Sort.unsorted();
+
+    public OffsetPageRequest(long offset, int pageSize) {
+        this.offset = offset;
+        this.pageSize = pageSize;
+    }
+
+    @Override
+    public int getPageNumber() {
+        return (int) (offset / pageSize);
+    }
+
+    @Override
+    public Pageable next() {
+        return new OffsetPageRequest(offset + pageSize, pageSize);
+    }
+
+    @Override
+    public Pageable previousOrFirst() {
+        return hasPrevious() ? new OffsetPageRequest(Math.max(offset - pageSize, 0), pageSize) : first();
+    }
+
+    @Override
+    public Pageable first() {
+        return new OffsetPageRequest(0, pageSize);
+    }
+
+    @Override
+    public Pageable withPage(int pageNumber) {
+        return new OffsetPageRequest((long) pageNumber * pageSize, pageSize);
+    }
+
+    @Override
+    public boolean hasPrevious() {
+        return offset > 0;
+    }
+}
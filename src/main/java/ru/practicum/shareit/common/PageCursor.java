@@ -0,0 +1,49 @@
+package ru.practicum.shareit.common;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import ru.practicum.shareit.exceptions.InvalidPageParamsException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Позиция последней отданной записи: (start_date, id) для бронирований или только id для вещей и пользователей.
+ * Клиенту передаётся в виде непрозрачной строки.
+ */
+@Data
+@AllArgsConstructor
+public class PageCursor {
+    private static final String SEPARATOR = "|";
+
+    private LocalDateTime startDate;
+    private Long id;
+
+    public static PageCursor of(Long id) {
+        return new PageCursor(null, id);
+    }
+
+    public String encode() {
+        var value = startDate == null ? String.valueOf(id) : startDate + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static PageCursor decode(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            var value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = value.indexOf(SEPARATOR);
+            if (separator < 0) {
+                return of(Long.parseLong(value));
+            }
+            return new PageCursor(LocalDateTime.parse(value.substring(0, separator)),
+                    Long.parseLong(value.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new InvalidPageParamsException(String.format("Некорректный курсор %s", cursor));
+        }
+    }
+}
@@ -1,11 +1,27 @@
 package ru.practicum.shareit.common;
 
 import lombok.experimental.UtilityClass;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import javax.servlet.http.HttpServletResponse;
+import java.util.List;
 
 @UtilityClass
 public class PaginationUtil {
 
-    public static int positionToPage(int from, int size) {
-        return from / size;
+    public static Pageable toPageable(int from, int size) {
+        if (from % size == 0) {
+            return PageRequest.of(from / size, size);
+        }
+        return new OffsetPageRequest(from, size);
+    }
+
+    public static <T> List<T> writeCursorHeaders(CursorPage<T> page, HttpServletResponse response) {
+        response.setHeader(Constants.HAS_MORE_HEADER, String.valueOf(page.isHasMore()));
+        if (page.getNextCursor() != null) {
+            response.setHeader(Constants.NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return page.getItems();
     }
 }
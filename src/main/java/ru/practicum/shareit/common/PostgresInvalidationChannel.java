@@ -0,0 +1,101 @@
+package ru.practicum.shareit.common;
+
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Канал через LISTEN/NOTIFY PostgreSQL. Слушатель держит отдельное соединение; после его потери и
+ * переподключения подписчики получают {@link #ALL}, так как пропущенные за это время сообщения не вернуть.
+ */
+@Slf4j
+public class PostgresInvalidationChannel implements InvalidationChannel {
+    private static final String CHANNEL = "shareit_cache";
+    private static final int POLL_MILLIS = 1000;
+
+    private final DataSource dataSource;
+    private final List<Consumer<String>> listeners = new CopyOnWriteArrayList<>();
+    private final Thread listenerThread;
+    private volatile boolean running = true;
+
+    public PostgresInvalidationChannel(DataSource dataSource) {
+        this.dataSource = dataSource;
+        listenerThread = new Thread(this::listen, "cache-invalidation-listener");
+        listenerThread.setDaemon(true);
+        listenerThread.start();
+    }
+
+    @Override
+    public void publish(String message) {
+        try (var connection = dataSource.getConnection();
+             var statement = connection.prepareStatement("select pg_notify(?, ?)")) {
+            statement.setString(1, CHANNEL);
+            statement.setString(2, message);
+            statement.execute();
+        } catch (SQLException e) {
+            log.warn("Не удалось отправить сообщение {} в канал {}", message, CHANNEL, e);
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<String> listener) {
+        listeners.add(listener);
+    }
+
+    public void close() {
+        running = false;
+        listenerThread.interrupt();
+    }
+
+    private void listen() {
+        boolean reconnect = false;
+        while (running) {
+            try (var connection = dataSource.getConnection();
+                 var statement = connection.createStatement()) {
+                statement.execute("LISTEN " + CHANNEL);
+                if (reconnect) {
+                    deliver(ALL);
+                }
+                var pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(POLL_MILLIS);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            deliver(notification.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                if (running) {
+                    log.warn("Потеряно соединение канала {}, переподключение", CHANNEL, e);
+                    reconnect = true;
+                    pause();
+                }
+            }
+        }
+    }
+
+    private void deliver(String message) {
+        for (Consumer<String> listener : listeners) {
+            try {
+                listener.accept(message);
+            } catch (RuntimeException e) {
+                log.warn("Ошибка обработки сообщения {} из канала {}", message, CHANNEL, e);
+            }
+        }
+    }
+
+    private void pause() {
+        try {
+            Thread.sleep(POLL_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
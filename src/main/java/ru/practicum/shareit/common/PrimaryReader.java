@@ -0,0 +1,42 @@
+package ru.practicum.shareit.common;
+
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.CacheRetrieveMode;
+import javax.persistence.EntityManagerFactory;
+import java.util.function.Supplier;
+
+/**
+ * Чтение с основной базы, например для кэшей, по которым потом проверяются записи. Если текущему потоку разрешена
+ * реплика, чтение выполняется в отдельной транзакции с новым EntityManager: соединение текущей транзакции может
+ * уже вести на реплику. Кэш второго уровня при этом не читается, в него могли попасть копии с реплики.
+ */
+@Component
+public class PrimaryReader {
+    private static final String RETRIEVE_MODE = "javax.persistence.cache.retrieveMode";
+
+    private final TransactionTemplate transactions;
+    private final EntityManagerFactory entityManagerFactory;
+
+    public PrimaryReader(PlatformTransactionManager transactionManager, EntityManagerFactory entityManagerFactory) {
+        transactions = new TransactionTemplate(transactionManager);
+        transactions.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        transactions.setReadOnly(true);
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    public <T> T read(Supplier<T> action) {
+        if (!ReplicaRouting.isReplicaAllowed()) {
+            return action.get();
+        }
+        return ReplicaRouting.onPrimary(() -> transactions.execute(status -> {
+            EntityManagerFactoryUtils.getTransactionalEntityManager(entityManagerFactory)
+                    .setProperty(RETRIEVE_MODE, CacheRetrieveMode.BYPASS);
+            return action.get();
+        }));
+    }
+}
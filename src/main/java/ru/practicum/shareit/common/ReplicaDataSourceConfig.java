@@ -0,0 +1,67 @@
+package ru.practicum.shareit.common;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.flywaydb.core.Flyway;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Реплики для чтения из shareit.datasource.replicas.urls; без них приложение работает с одной базой.
+ * Пулы реплик настраиваются так же, как пул основной базы из spring.datasource.hikari.
+ */
+@Configuration
+@ConditionalOnExpression("!'${shareit.datasource.replicas.urls:}'.isBlank()")
+public class ReplicaDataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(
+            HikariDataSource primaryDataSource,
+            @Value("${shareit.datasource.replicas.urls}") List<String> urls,
+            @Value("${shareit.datasource.replicas.migrate}") boolean migrate) {
+        var replicas = new ArrayList<DataSource>();
+        for (int i = 0; i < urls.size(); i++) {
+            var config = new HikariConfig();
+            primaryDataSource.copyStateTo(config);
+            config.setJdbcUrl(urls.get(i).trim());
+            config.setPoolName("replica-" + i);
+            config.setReadOnly(true);
+            var replica = new HikariDataSource(config);
+            if (migrate) {
+                Flyway.configure().dataSource(replica).baselineOnMigrate(true).load().migrate();
+            }
+            replicas.add(replica);
+        }
+        return new ReplicaRoutingDataSource(primaryDataSource, replicas);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+
+    @Bean
+    public FilterRegistrationBean<ReplicaRoutingFilter> replicaRoutingFilter(
+            @Value("${shareit.datasource.replicas.max-staleness}") Duration maxStaleness) {
+        return new FilterRegistrationBean<>(new ReplicaRoutingFilter(maxStaleness));
+    }
+}
@@ -0,0 +1,48 @@
+package ru.practicum.shareit.common;
+
+import lombok.experimental.UtilityClass;
+
+import java.util.function.Supplier;
+
+/**
+ * Разрешение текущему потоку читать с реплики. Разрешение выдаёт {@link ReplicaRoutingFilter} только на чтение
+ * без недавних записей пользователя; без него все запросы идут на основную базу.
+ */
+@UtilityClass
+public class ReplicaRouting {
+    private static final ThreadLocal<Boolean> REPLICA_ALLOWED = new ThreadLocal<>();
+
+    public static boolean isReplicaAllowed() {
+        return Boolean.TRUE.equals(REPLICA_ALLOWED.get());
+    }
+
+    public static void allowReplica() {
+        REPLICA_ALLOWED.set(Boolean.TRUE);
+    }
+
+    public static void clear() {
+        REPLICA_ALLOWED.remove();
+    }
+
+    /**
+     * Снимает разрешение на время действия. Уже открытое соединение с репликой этим не меняется, поэтому для чтений
+     * с основной базы используется {@link PrimaryReader}.
+     */
+    public static <T> T onPrimary(Supplier<T> action) {
+        var previous = REPLICA_ALLOWED.get();
+        REPLICA_ALLOWED.remove();
+        try {
+            return action.get();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    private static void restore(Boolean value) {
+        if (value == null) {
+            REPLICA_ALLOWED.remove();
+        } else {
+            REPLICA_ALLOWED.set(value);
+        }
+    }
+}
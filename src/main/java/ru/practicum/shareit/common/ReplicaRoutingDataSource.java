@@ -0,0 +1,56 @@
+package ru.practicum.shareit.common;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Транзакции только для чтения, которым {@link ReplicaRouting} разрешает реплику, по очереди уходят на реплики,
+ * остальные — на основную базу. Транзакция должна быть известна к моменту получения соединения, поэтому
+ * источник используется через LazyConnectionDataSourceProxy.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+    private static final String PRIMARY = "primary";
+
+    private final List<DataSource> replicas;
+    private final List<String> replicaKeys = new ArrayList<>();
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas) {
+        this.replicas = replicas;
+        var targets = new HashMap<Object, Object>();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < replicas.size(); i++) {
+            replicaKeys.add("replica-" + i);
+            targets.put(replicaKeys.get(i), replicas.get(i));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (replicaKeys.isEmpty() || !ReplicaRouting.isReplicaAllowed()
+                || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return PRIMARY;
+        }
+        return replicaKeys.get(Math.floorMod(next.getAndIncrement(), replicaKeys.size()));
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (DataSource replica : replicas) {
+            if (replica instanceof Closeable) {
+                ((Closeable) replica).close();
+            }
+        }
+    }
+}
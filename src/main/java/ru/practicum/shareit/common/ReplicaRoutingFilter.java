@@ -0,0 +1,68 @@
+package ru.practicum.shareit.common;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Разрешает чтение с реплики на запросах GET и HEAD. Пользователь, изменявший данные не раньше чем
+ * maxStaleness назад, читает с основной базы и видит свои изменения, пока реплика может от неё отставать.
+ * Регистрируется в {@link ReplicaDataSourceConfig}.
+ */
+public class ReplicaRoutingFilter extends OncePerRequestFilter {
+    private static final int MAXIMUM_WRITERS = 100_000;
+
+    private final Cache<Long, Boolean> recentWriters;
+
+    public ReplicaRoutingFilter(Duration maxStaleness) {
+        recentWriters = Caffeine.newBuilder().expireAfterWrite(maxStaleness).maximumSize(MAXIMUM_WRITERS).build();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        var userId = userId(request);
+        if (!HttpMethod.GET.matches(request.getMethod()) && !HttpMethod.HEAD.matches(request.getMethod())) {
+            recordWrite(userId);
+            try {
+                chain.doFilter(request, response);
+            } finally {
+                recordWrite(userId);
+            }
+            return;
+        }
+        if (userId != null && recentWriters.getIfPresent(userId) != null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        ReplicaRouting.allowReplica();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            ReplicaRouting.clear();
+        }
+    }
+
+    private void recordWrite(Long userId) {
+        if (userId != null) {
+            recentWriters.put(userId, Boolean.TRUE);
+        }
+    }
+
+    private static Long userId(HttpServletRequest request) {
+        var header = request.getHeader(Constants.USER_HEADER);
+        try {
+            return header == null ? null : Long.valueOf(header.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package ru.practicum.shareit.common;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Периодические задачи; в тестах выключены, чтобы не менять данные и счётчики запросов посреди теста.
+ */
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(name = "shareit.scheduling.enabled", havingValue = "true")
+public class SchedulingConfig {
+}
@@ -0,0 +1,46 @@
+package ru.practicum.shareit.common;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AllArgsConstructor;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Число SQL-запросов на HTTP-запрос в метрике http.server.requests.statements с теми же тегами
+ * method, uri и status, что и у таймера http.server.requests. Регистрируется в {@link MetricsConfig}.
+ */
+@AllArgsConstructor
+public class StatementCountFilter extends OncePerRequestFilter {
+    static final String METRIC = "http.server.requests.statements";
+
+    private final StatementCounter statementCounter;
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        statementCounter.start();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            int statements = statementCounter.stop();
+            var uri = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            DistributionSummary.builder(METRIC)
+                    .description("SQL-запросы на один HTTP-запрос")
+                    .tag("method", request.getMethod())
+                    .tag("uri", uri == null ? "UNKNOWN" : uri.toString())
+                    .tag("status", String.valueOf(response.getStatus()))
+                    .publishPercentileHistogram()
+                    .maximumExpectedValue(100.0)
+                    .register(meterRegistry)
+                    .record(statements);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package ru.practicum.shareit.common;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Считает SQL-запросы, подготовленные Hibernate в текущем потоке между start и stop, а между startRecording
+ * и stopRecording запоминает их текст.
+ * Регистрируется в Hibernate как StatementInspector и сам SQL не меняет.
+ */
+@Component
+public class StatementCounter implements StatementInspector, HibernatePropertiesCustomizer {
+    private static final ThreadLocal<AtomicInteger> COUNT = new ThreadLocal<>();
+    private static final ThreadLocal<List<String>> RECORDED = new ThreadLocal<>();
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR, this);
+    }
+
+    @Override
+    public String inspect(String sql) {
+        var count = COUNT.get();
+        if (count != null) {
+            count.incrementAndGet();
+        }
+        var recorded = RECORDED.get();
+        if (recorded != null) {
+            recorded.add(sql);
+        }
+        return sql;
+    }
+
+    public void start() {
+        COUNT.set(new AtomicInteger());
+    }
+
+    public int stop() {
+        var count = COUNT.get();
+        COUNT.remove();
+        return count == null ? 0 : count.get();
+    }
+
+    public void startRecording() {
+        RECORDED.set(new ArrayList<>());
+    }
+
+    public List<String> stopRecording() {
+        var recorded = RECORDED.get();
+        RECORDED.remove();
+        return recorded == null ? List.of() : recorded;
+    }
+}
@@ -5,18 +5,22 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import ru.practicum.shareit.booking.dto.BookingDtoRequest;
+import ru.practicum.shareit.exceptions.InvalidBatchException;
 import ru.practicum.shareit.exceptions.InvalidBookingDates;
 import ru.practicum.shareit.exceptions.InvalidPageParamsException;
 import ru.practicum.shareit.exceptions.NotFoundException;
 import ru.practicum.shareit.exceptions.ValidationIdException;
-import ru.practicum.shareit.user.UserRepository;
+import ru.practicum.shareit.user.UserCache;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
 
 @Component
 @Slf4j
 @AllArgsConstructor
 public class Validator {
     @Autowired
-    private UserRepository userRepository;
+    private UserCache userCache;
 
     public void validateId(Long id) {
         log.info("Проверка id...");
@@ -36,7 +40,29 @@ public class Validator {
 
     public void checkIsUserExists(Long id) {
         log.info("Проверка наличия пользователя...");
-        userRepository.findById(id).orElseThrow(() -> new NotFoundException("Пользователь не найден"));
+        userCache.findById(id).orElseThrow(() -> new NotFoundException("Пользователь не найден"));
+    }
+
+    public void validateTimeWindow(LocalDateTime from, LocalDateTime to) {
+        log.info("Проверка периода...");
+        if (!to.isAfter(from)) {
+            throw new InvalidBookingDates("Окончание периода должно быть после его начала");
+        }
+    }
+
+    public void validateDuration(Duration duration) {
+        log.info("Проверка длительности...");
+        if (duration.isNegative() || duration.isZero()) {
+            throw new InvalidBookingDates("Длительность должна быть положительной");
+        }
+    }
+
+    public void validateBatchSize(int size) {
+        log.info("Проверка размера пакета...");
+        if (size < 1 || size > Constants.MAX_BOOKING_BATCH_SIZE) {
+            throw new InvalidBatchException(String.format("В пакете должно быть от 1 до %s бронирований",
+                    Constants.MAX_BOOKING_BATCH_SIZE));
+        }
     }
 
     public void validatePageParams(int from, int size) {
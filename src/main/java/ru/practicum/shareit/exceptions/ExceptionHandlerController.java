@@ -33,6 +33,13 @@ public class ExceptionHandlerController {
                 "errorMessage", e.getMessage());
     }
 
+    @ExceptionHandler
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public Map<String, String> handleInvalidBatchException(InvalidBatchException e) {
+        return Map.of("error", "Неверный размер пакета",
+                "errorMessage", e.getMessage());
+    }
+
     @ExceptionHandler
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public Map<String, String> handleValidationIDException(ValidationIdException e) {
@@ -0,0 +1,8 @@
+package ru.practicum.shareit.exceptions;
+
+public class InvalidBatchException extends RuntimeException {
+
+    public InvalidBatchException(String message) {
+        super(message);
+    }
+}
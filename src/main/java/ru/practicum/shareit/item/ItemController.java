@@ -1,16 +1,24 @@
 package ru.practicum.shareit.item;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.shareit.common.Constants;
+import ru.practicum.shareit.common.NdjsonWriter;
 import ru.practicum.shareit.common.PaginationUtil;
 import ru.practicum.shareit.common.Validator;
 import ru.practicum.shareit.item.comment.dto.CommentDtoRequest;
 import ru.practicum.shareit.item.comment.dto.CommentDtoResponse;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.TimeSlotDto;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -21,6 +29,7 @@ public class ItemController {
 
     private ItemService itemService;
     private Validator validator;
+    private ObjectMapper objectMapper;
 
     @PostMapping
     public ItemDto addItem(@RequestHeader(Constants.USER_HEADER) Long userId, @Valid @RequestBody ItemDto itemDto) {
@@ -52,25 +61,72 @@ public class ItemController {
     @GetMapping
     public List<ItemDto> findAllMyItems(@RequestHeader(Constants.USER_HEADER) Long userId, @RequestParam(
             defaultValue = Constants.DEFAULT_FROM) int from, @RequestParam(defaultValue = Constants.DEFAULT_SIZE)
-            int size) {
+            int size, @RequestParam(required = false) String cursor, HttpServletResponse response) {
         log.info(String.format("Получен запрос GET /items на просмотр списка вещей пользователя с id=%s, начиная с " +
                 "вещи %s, по %s вещей на странице", userId, from, size));
         validator.validateId(userId);
         validator.validatePageParams(from, size);
         validator.checkIsUserExists(userId);
-        int page = PaginationUtil.positionToPage(from, size);
-        return itemService.findAllMyItems(userId, page, size);
+        if (cursor != null) {
+            return PaginationUtil.writeCursorHeaders(itemService.findAllMyItemsAfter(userId, cursor, size), response);
+        }
+        return itemService.findAllMyItems(userId, from, size);
+    }
+
+    @GetMapping("/export")
+    public void exportMyItems(@RequestHeader(Constants.USER_HEADER) Long userId,
+                              HttpServletResponse response) {
+        log.info(String.format("Получен запрос GET /items/export на выгрузку вещей пользователя с id=%s", userId));
+        validator.validateId(userId);
+        var writer = new NdjsonWriter(objectMapper, response);
+        itemService.exportMyItems(userId, writer::write);
+        writer.flush();
     }
 
     @GetMapping("/search")
     public List<ItemDto> search(@RequestParam String text, @RequestParam(defaultValue = Constants.DEFAULT_FROM)
-    int from, @RequestParam(defaultValue = Constants.DEFAULT_SIZE) int size) {
+    int from, @RequestParam(defaultValue = Constants.DEFAULT_SIZE) int size,
+                                @RequestParam(required = false) String cursor, HttpServletResponse response) {
         log.info(String.format(
                 "Получен запрос GET /items/search на поиск вещей, содержащих в названии или описании %s, начиная с " +
                         "вещи %s, по %s вещей на странице", text, from, size));
         validator.validatePageParams(from, size);
-        int page = PaginationUtil.positionToPage(from, size);
-        return itemService.search(text, page, size);
+        if (cursor != null) {
+            return PaginationUtil.writeCursorHeaders(itemService.searchAfter(text, cursor, size), response);
+        }
+        return itemService.search(text, from, size);
+    }
+
+    @GetMapping("/{itemId}/availability")
+    public ItemAvailabilityDto getAvailability(@PathVariable Long itemId,
+                                               @RequestHeader(Constants.USER_HEADER) Long userId,
+                                               @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                               LocalDateTime from,
+                                               @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                               LocalDateTime to) {
+        log.info(String.format("Получен запрос GET /items/itemId=%s/availability на получение занятости вещи " +
+                "с %s по %s", itemId, from, to));
+        validator.validateId(itemId);
+        validator.validateId(userId);
+        validator.validateTimeWindow(from, to);
+        return itemService.getAvailability(itemId, from, to);
+    }
+
+    @GetMapping("/{itemId}/availability/next")
+    public TimeSlotDto findNextFreeSlot(@PathVariable Long itemId, @RequestHeader(Constants.USER_HEADER) Long userId,
+                                        @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                        LocalDateTime from,
+                                        @RequestParam Duration duration,
+                                        @RequestParam(required = false)
+                                        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        log.info(String.format("Получен запрос GET /items/itemId=%s/availability/next на поиск ближайшего " +
+                "свободного периода длительностью %s начиная с %s", itemId, duration, from));
+        validator.validateId(itemId);
+        validator.validateId(userId);
+        validator.validateDuration(duration);
+        var searchTo = to == null ? from.plus(Constants.FREE_SLOT_SEARCH_HORIZON) : to;
+        validator.validateTimeWindow(from, searchTo);
+        return itemService.findNextFreeSlot(itemId, from, duration, searchTo);
     }
 
     @PostMapping("/{itemId}/comment")
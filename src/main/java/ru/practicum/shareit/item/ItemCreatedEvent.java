@@ -0,0 +1,14 @@
+package ru.practicum.shareit.item;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import ru.practicum.shareit.item.model.Item;
+
+/**
+ * Вещь добавлена; публикуется внутри транзакции, сохранившей её.
+ */
+@Data
+@AllArgsConstructor
+public class ItemCreatedEvent {
+    private Item item;
+}
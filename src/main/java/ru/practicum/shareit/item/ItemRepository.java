@@ -2,20 +2,48 @@ package ru.practicum.shareit.item;
 
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import ru.practicum.shareit.common.Constants;
+import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.request.dto.ItemRequestAnswerDto;
 
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface ItemRepository extends JpaRepository<Item, Long> {
 
     List<Item> findItemsByOwnerIdOrderById(Long ownerId, Pageable page);
 
-    List<Item> findAllByRequestId(Long requestId);
+    List<Item> findItemsByOwnerIdAndIdGreaterThanOrderById(Long ownerId, Long id, Pageable page);
 
-    @Query("select i from Item i " +
-            "where ((upper(i.name) like upper(concat('%', ?1, '%'))) or " +
-            "(upper(i.description) like upper(concat('%', ?1, '%'))))" +
-            "and i.isAvailable = true")
-    List<Item> search(String text, Pageable page);
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = Constants.EXPORT_FETCH_SIZE))
+    @Query("select new ru.practicum.shareit.item.dto.ItemDto(i.id, i.name, i.description, i.isAvailable, " +
+            "i.requestId) from Item i where i.ownerId = :ownerId order by i.id")
+    Stream<ItemDto> streamAllByOwnerId(@Param("ownerId") Long ownerId);
+
+    @QueryHints({@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHE_REGION, value = Item.ANSWERS_CACHE_REGION)})
+    @Query("select new ru.practicum.shareit.request.dto.ItemRequestAnswerDto(i.id, i.name, i.description, " +
+            "i.isAvailable, i.requestId) from Item i where i.requestId in :requestIds order by i.id")
+    List<ItemRequestAnswerDto> findAnswersByRequestIdIn(@Param("requestIds") Collection<Long> requestIds);
+
+    /**
+     * Вещи под блокировкой строк на время пересчёта указателей на бронирования; порядок id исключает взаимные
+     * блокировки пересчётов с пересекающимися наборами вещей.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<Item> findAllByIdInOrderById(Collection<Long> ids);
+
+    @Query("select i.id from Item i where i.nextBookingStart < :now order by i.nextBookingStart")
+    List<Long> findIdsByNextBookingStartBefore(@Param("now") LocalDateTime now, Pageable page);
+
+    List<Item> findAllByIsAvailableTrueAndIdGreaterThanOrderById(Long id, Pageable page);
 }
@@ -0,0 +1,144 @@
+package ru.practicum.shareit.item;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.common.CursorPage;
+import ru.practicum.shareit.common.EntityInvalidatedEvent;
+import ru.practicum.shareit.common.ReplicaRouting;
+import ru.practicum.shareit.common.TransactionUtil;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Item;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Страницы результатов поиска вещей. При shareit.search.cache.maximum-size=0 кэш отключён.
+ * Страница, прочитанная с реплики меньше чем через shareit.datasource.replicas.max-staleness после сброса,
+ * не кэшируется: реплика могла ещё не получить изменение, из-за которого кэш сбросили.
+ */
+@Component
+public class ItemSearchCache {
+    private static final String NAME = "itemSearch";
+
+    private final ItemRepository itemRepository;
+    private final Cache<Key, CursorPage<ItemDto>> cache;
+    private final boolean enabled;
+    private final AtomicLong version = new AtomicLong();
+    private final long maxStalenessNanos;
+    private volatile long lastEvictionNanos;
+
+    public ItemSearchCache(ItemRepository itemRepository,
+                           @Value("${shareit.search.cache.maximum-size}") long maximumSize,
+                           @Value("${shareit.datasource.replicas.max-staleness}") Duration maxStaleness,
+                           MeterRegistry meterRegistry) {
+        this.itemRepository = itemRepository;
+        enabled = maximumSize > 0;
+        maxStalenessNanos = maxStaleness.toNanos();
+        lastEvictionNanos = System.nanoTime() - maxStalenessNanos;
+        cache = Caffeine.newBuilder().maximumSize(maximumSize).recordStats().build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, NAME);
+        Gauge.builder("cache.hit.ratio", cache, current -> current.stats().hitRate())
+                .tag("cache", NAME).register(meterRegistry);
+        Gauge.builder("cache.miss.ratio", cache, current -> current.stats().missRate())
+                .tag("cache", NAME).register(meterRegistry);
+    }
+
+    public CursorPage<ItemDto> get(String text, String position, int size, Supplier<CursorPage<ItemDto>> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        var key = new Key(normalize(text), position, size);
+        var cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        long loadedVersion = version.get();
+        var loaded = loader.get();
+        if (version.get() == loadedVersion && !mayBeStale()) {
+            cache.put(key, loaded);
+        }
+        return loaded;
+    }
+
+    private boolean mayBeStale() {
+        return ReplicaRouting.isReplicaAllowed() && System.nanoTime() - lastEvictionNanos < maxStalenessNanos;
+    }
+
+    public void evict(Item item) {
+        evict(List.of(item));
+    }
+
+    /**
+     * Сбрасывает все страницы поиска по текстам, которые находили вещь до или после изменения: вещь могла
+     * выпасть из первой страницы, и тогда сдвигаются и все следующие.
+     */
+    public void evict(Item before, Item after) {
+        evict(List.of(before, after));
+    }
+
+    private void evict(List<Item> versions) {
+        TransactionUtil.runAfterCommit(() -> removeIf(versions.get(0).getId(), versions));
+    }
+
+    public void evictItem(Long itemId) {
+        TransactionUtil.runAfterCommit(() -> removeIf(itemId, List.of()));
+    }
+
+    /**
+     * Вещь изменена на другом экземпляре. Её прежняя версия здесь неизвестна, поэтому сбрасываются страницы с этой
+     * вещью и страницы поиска по текстам, которые находят её текущую версию. Событие приходит уже после фиксации.
+     */
+    @EventListener
+    public void onEntityInvalidated(EntityInvalidatedEvent event) {
+        if (event.getEntityClass() != Item.class || !event.isRemote()) {
+            return;
+        }
+        if (event.getId() == null) {
+            version.incrementAndGet();
+            lastEvictionNanos = System.nanoTime();
+            cache.invalidateAll();
+            return;
+        }
+        removeIf(event.getId(), itemRepository.findById(event.getId()).map(List::of).orElse(List.of()));
+    }
+
+    private void removeIf(Long itemId, List<Item> versions) {
+        version.incrementAndGet();
+        lastEvictionNanos = System.nanoTime();
+        cache.asMap().entrySet().removeIf(entry -> contains(entry.getValue(), itemId) ||
+                versions.stream().anyMatch(item -> matches(item, entry.getKey().getText())));
+    }
+
+    private static boolean contains(CursorPage<ItemDto> page, Long itemId) {
+        return page.getItems().stream().anyMatch(itemDto -> itemId.equals(itemDto.getId()));
+    }
+
+    private static boolean matches(Item item, String text) {
+        return Boolean.TRUE.equals(item.getIsAvailable()) &&
+                (normalize(item.getName()).contains(text) || normalize(item.getDescription()).contains(text));
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT);
+    }
+
+    @Data
+    @AllArgsConstructor
+    private static class Key {
+        private final String text;
+        private final String position;
+        private final int size;
+    }
+}
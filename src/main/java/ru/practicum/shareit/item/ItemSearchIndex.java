@@ -0,0 +1,309 @@
+package ru.practicum.shareit.item;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.common.EntityInvalidatedEvent;
+import ru.practicum.shareit.common.TransactionUtil;
+import ru.practicum.shareit.exceptions.InvalidPageParamsException;
+import ru.practicum.shareit.item.model.Item;
+
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Поисковый индекс доступных вещей по названию и описанию.
+ * Тексты разбиваются на триграммы, поэтому поиск подстроки работает так же, как прежний
+ * like '%text%', но без последовательного чтения всей таблицы items.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ItemSearchIndex {
+    private static final int GRAM = 3;
+    private static final int REBUILD_CHUNK = 1000;
+    private static final Comparator<Hit> RANKING = Comparator.comparingInt(Hit::getScore).reversed()
+            .thenComparingLong(Hit::getId);
+
+    private final ItemRepository itemRepository;
+    private volatile State state = new State();
+
+    @PostConstruct
+    public void rebuild() {
+        var rebuilt = new State();
+        long lastId = 0L;
+        List<Item> chunk;
+        do {
+            chunk = itemRepository.findAllByIsAvailableTrueAndIdGreaterThanOrderById(lastId,
+                    PageRequest.of(0, REBUILD_CHUNK));
+            for (Item item : chunk) {
+                rebuilt.add(new Document(item.getId(), normalize(item.getName()), normalize(item.getDescription())));
+                lastId = item.getId();
+            }
+        } while (chunk.size() == REBUILD_CHUNK);
+        synchronized (this) {
+            state = rebuilt;
+        }
+        log.info(String.format("Поисковый индекс вещей построен, проиндексировано вещей: %s", rebuilt.size()));
+    }
+
+    public void index(Item item) {
+        TransactionUtil.runAfterCommit(() -> apply(item));
+    }
+
+    /**
+     * Вещь изменена на другом экземпляре: документ перечитывается из базы.
+     */
+    @EventListener
+    public void onEntityInvalidated(EntityInvalidatedEvent event) {
+        if (event.getEntityClass() != Item.class || !event.isRemote()) {
+            return;
+        }
+        if (event.getId() == null) {
+            rebuild();
+            return;
+        }
+        var item = itemRepository.findById(event.getId());
+        if (item.isPresent()) {
+            apply(item.get());
+        } else {
+            remove(event.getId());
+        }
+    }
+
+    public List<Long> search(String text, int from, int size) {
+        return top(text, null, from, size).stream().map(Hit::getId).collect(Collectors.toList());
+    }
+
+    public SearchPage searchAfter(String text, String after, int size) {
+        var hits = top(text, decodeCursor(after), 0, size + 1);
+        boolean hasMore = hits.size() > size;
+        if (hasMore) {
+            hits = hits.subList(0, size);
+        }
+        var ids = hits.stream().map(Hit::getId).collect(Collectors.toList());
+        return new SearchPage(ids, hasMore ? encodeCursor(hits.get(hits.size() - 1)) : null);
+    }
+
+    private synchronized void remove(Long itemId) {
+        state.remove(itemId);
+        if (state.needsCompaction()) {
+            state = state.compact();
+        }
+    }
+
+    private synchronized void apply(Item item) {
+        state.remove(item.getId());
+        if (Boolean.TRUE.equals(item.getIsAvailable())) {
+            state.add(new Document(item.getId(), normalize(item.getName()), normalize(item.getDescription())));
+        }
+        if (state.needsCompaction()) {
+            state = state.compact();
+        }
+    }
+
+    private List<Hit> top(String text, Hit after, int skip, int limit) {
+        var query = normalize(text);
+        var current = state;
+        var queue = new PriorityQueue<>(RANKING.reversed());
+        for (Document document : current.candidates(query)) {
+            int score = document.score(query);
+            if (score == 0) {
+                continue;
+            }
+            var hit = new Hit(document.id, score);
+            if (after != null && RANKING.compare(hit, after) <= 0) {
+                continue;
+            }
+            if (queue.size() < skip + limit) {
+                queue.add(hit);
+            } else if (RANKING.compare(hit, queue.peek()) < 0) {
+                queue.poll();
+                queue.add(hit);
+            }
+        }
+        var hits = new ArrayList<>(queue);
+        hits.sort(RANKING);
+        return skip >= hits.size() ? Collections.emptyList() : hits.subList(skip, hits.size());
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT);
+    }
+
+    private static Set<String> grams(String text) {
+        var grams = new HashSet<String>();
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            grams.add(text.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    private static String encodeCursor(Hit hit) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(
+                (hit.getScore() + ":" + hit.getId()).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Hit decodeCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            var parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":");
+            return new Hit(Long.parseLong(parts[1]), Integer.parseInt(parts[0]));
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            throw new InvalidPageParamsException(String.format("Некорректный курсор поиска %s", cursor));
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class SearchPage {
+        private final List<Long> ids;
+        private final String nextCursor;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class Hit {
+        private final long id;
+        private final int score;
+    }
+
+    @AllArgsConstructor
+    private static class Document {
+        private final long id;
+        private final String name;
+        private final String description;
+
+        int score(String query) {
+            return score(name, query, 4) + score(description, query, 1);
+        }
+
+        Set<String> grams() {
+            var grams = ItemSearchIndex.grams(name);
+            grams.addAll(ItemSearchIndex.grams(description));
+            return grams;
+        }
+
+        private static int score(String text, String query, int weight) {
+            int index = text.indexOf(query);
+            if (index < 0) {
+                return 0;
+            }
+            while (index >= 0) {
+                int end = index + query.length();
+                boolean startsWord = index == 0 || !Character.isLetterOrDigit(text.charAt(index - 1));
+                boolean endsWord = end == text.length() || !Character.isLetterOrDigit(text.charAt(end));
+                if (startsWord && endsWord) {
+                    return weight * 3 / 2 + 1;
+                }
+                index = text.indexOf(query, index + 1);
+            }
+            return weight;
+        }
+    }
+
+    /**
+     * Списки вещей для триграммы только дописываются: при изменении или удалении вещи старые записи
+     * остаются и отсеиваются проверкой документа, а при накоплении устаревших записей индекс уплотняется.
+     */
+    private static class State {
+        private final Map<Long, Document> documents = new ConcurrentHashMap<>();
+        private final Map<String, Postings> postings = new ConcurrentHashMap<>();
+        private long livePostings;
+        private long stalePostings;
+
+        int size() {
+            return documents.size();
+        }
+
+        void add(Document document) {
+            documents.put(document.id, document);
+            for (String gram : document.grams()) {
+                postings.computeIfAbsent(gram, key -> new Postings()).add(document.id);
+                livePostings++;
+            }
+        }
+
+        void remove(long id) {
+            var document = documents.remove(id);
+            if (document != null) {
+                int grams = document.grams().size();
+                livePostings -= grams;
+                stalePostings += grams;
+            }
+        }
+
+        boolean needsCompaction() {
+            return stalePostings > REBUILD_CHUNK && stalePostings > livePostings;
+        }
+
+        State compact() {
+            var compacted = new State();
+            documents.values().forEach(compacted::add);
+            return compacted;
+        }
+
+        Iterable<Document> candidates(String query) {
+            if (query.length() < GRAM) {
+                return documents.values();
+            }
+            Postings smallest = null;
+            for (String gram : grams(query)) {
+                var current = postings.get(gram);
+                if (current == null) {
+                    return Collections.emptyList();
+                }
+                if (smallest == null || current.size() < smallest.size()) {
+                    smallest = current;
+                }
+            }
+            var ids = smallest.snapshot();
+            var seen = smallest.isAscending() ? null : new HashSet<Long>();
+            var candidates = new ArrayList<Document>(ids.length);
+            for (long id : ids) {
+                var document = documents.get(id);
+                if (document != null && (seen == null || seen.add(id))) {
+                    candidates.add(document);
+                }
+            }
+            return candidates;
+        }
+    }
+
+    private static class Postings {
+        private long[] ids = new long[4];
+        private int size;
+        private boolean ascending = true;
+
+        synchronized void add(long id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            if (size > 0 && ids[size - 1] >= id) {
+                ascending = false;
+            }
+            ids[size++] = id;
+        }
+
+        synchronized boolean isAscending() {
+            return ascending;
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        synchronized long[] snapshot() {
+            return Arrays.copyOf(ids, size);
+        }
+    }
+}
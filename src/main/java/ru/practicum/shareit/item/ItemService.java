@@ -1,10 +1,16 @@
 package ru.practicum.shareit.item;
 
+import ru.practicum.shareit.common.CursorPage;
 import ru.practicum.shareit.item.comment.dto.CommentDtoRequest;
 import ru.practicum.shareit.item.comment.dto.CommentDtoResponse;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.TimeSlotDto;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface ItemService {
 
@@ -16,7 +22,17 @@ public interface ItemService {
 
     List<ItemDto> findAllMyItems(Long userId, int from, int size);
 
+    CursorPage<ItemDto> findAllMyItemsAfter(Long userId, String cursor, int size);
+
+    void exportMyItems(Long userId, Consumer<ItemDto> consumer);
+
     List<ItemDto> search(String text, int from, int size);
 
+    CursorPage<ItemDto> searchAfter(String text, String after, int size);
+
+    ItemAvailabilityDto getAvailability(Long itemId, LocalDateTime from, LocalDateTime to);
+
+    TimeSlotDto findNextFreeSlot(Long itemId, LocalDateTime from, Duration duration, LocalDateTime to);
+
     CommentDtoResponse postComment(Long itemId, Long userId, CommentDtoRequest text);
 }
@@ -1,26 +1,43 @@
 package ru.practicum.shareit.item;
 
 import lombok.AllArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.ArchivedBookingRepository;
 import ru.practicum.shareit.booking.BookingRepository;
-import ru.practicum.shareit.booking.dto.BookingMapper;
+import ru.practicum.shareit.booking.dto.BookingInterval;
 import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.common.CursorPage;
+import ru.practicum.shareit.common.EntityCacheInvalidation;
+import ru.practicum.shareit.common.EntityRenamedEvent;
+import ru.practicum.shareit.common.PageCursor;
+import ru.practicum.shareit.common.PaginationUtil;
 import ru.practicum.shareit.exceptions.NotAccessException;
 import ru.practicum.shareit.exceptions.NotBookerException;
 import ru.practicum.shareit.exceptions.NotFoundException;
+import ru.practicum.shareit.item.comment.CommentAddedEvent;
 import ru.practicum.shareit.item.comment.CommentRepository;
 import ru.practicum.shareit.item.comment.dto.CommentDtoRequest;
 import ru.practicum.shareit.item.comment.dto.CommentDtoResponse;
 import ru.practicum.shareit.item.comment.dto.CommentMapper;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemMapper;
-import ru.practicum.shareit.user.UserRepository;
+import ru.practicum.shareit.item.dto.TimeSlotDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.UserCache;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -28,15 +45,27 @@ import java.util.stream.Collectors;
 public class ItemServiceImpl implements ItemService {
     private ItemRepository itemRepository;
     private BookingRepository bookingRepository;
+    private ArchivedBookingRepository archivedBookingRepository;
     private CommentRepository commentRepository;
-    private UserRepository userRepository;
+    private UserCache userCache;
+    private ItemSearchIndex itemSearchIndex;
+    private ItemSearchCache itemSearchCache;
+    private EntityCacheInvalidation entityCacheInvalidation;
+    private ApplicationEventPublisher eventPublisher;
 
     @Override
+    @Transactional
     public ItemDto addItem(Long userId, ItemDto itemDto) {
-        return ItemMapper.toItemDto(itemRepository.save(ItemMapper.toItem(userId, itemDto)), Collections.EMPTY_LIST);
+        var item = itemRepository.save(ItemMapper.toItem(userId, itemDto));
+        eventPublisher.publishEvent(new ItemCreatedEvent(item));
+        itemSearchIndex.index(item);
+        itemSearchCache.evict(item);
+        entityCacheInvalidation.invalidate(Item.class, item.getId());
+        return ItemMapper.toItemDto(item, Collections.EMPTY_LIST);
     }
 
     @Override
+    @Transactional
     public ItemDto editItem(Long userId, Long itemId, ItemDto itemDto) {
         final var oldItem = itemRepository.findById(itemId).orElseThrow(() ->
                 new NotFoundException(String.format("Вещь c id = %s не найдена", itemId)));
@@ -44,6 +73,8 @@ public class ItemServiceImpl implements ItemService {
             throw new NotAccessException("Редактировать данные может только владелец вещи");
         }
         final var item = ItemMapper.toItem(userId, itemDto);
+        final var itemBefore = new Item(oldItem.getId(), oldItem.getName(), oldItem.getDescription(),
+                oldItem.getIsAvailable(), oldItem.getOwnerId(), oldItem.getRequestId());
         if (item.getName() != null && !item.getName().isBlank()) {
             oldItem.setName(item.getName());
         }
@@ -53,72 +84,200 @@ public class ItemServiceImpl implements ItemService {
         if (item.getIsAvailable() != null) {
             oldItem.setIsAvailable(item.getIsAvailable());
         }
-        return ItemMapper.toItemDto(itemRepository.save(oldItem), commentRepository.findAllByItem(oldItem).stream()
-                .map(comment -> CommentMapper.toCommentDtoResponse(comment, comment.getAuthor().getName()))
-                .collect(Collectors.toList()));
+        var savedItem = itemRepository.save(oldItem);
+        eventPublisher.publishEvent(new ItemUpdatedEvent(savedItem));
+        entityCacheInvalidation.invalidate(Item.class, itemId);
+        itemSearchIndex.index(savedItem);
+        if (isSearchableChanged(itemBefore, savedItem)) {
+            itemSearchCache.evict(itemBefore, savedItem);
+        }
+        if (!Objects.equals(itemBefore.getName(), savedItem.getName())) {
+            eventPublisher.publishEvent(new EntityRenamedEvent(Item.class, itemId, savedItem.getName()));
+        }
+        return ItemMapper.toItemDto(savedItem, findComments(oldItem));
     }
 
     @Override
+    @Transactional(readOnly = true)
     public ItemDto showItemInfo(Long itemId, Long userId) {
         var item = itemRepository.findById(itemId).orElseThrow(() ->
                 new NotFoundException("Вещь с id = %s не найдена"));
         if (item.getOwnerId().equals(userId)) {
-            return addBookings(ItemMapper.toItemDto(item, commentRepository.findAllByItem(item).stream()
-                    .map(comment -> CommentMapper.toCommentDtoResponse(comment, comment.getAuthor().getName()))
-                    .collect(Collectors.toList())), userId);
+            return ItemMapper.toOwnerItemDto(item, findComments(item));
         }
-        return ItemMapper.toItemDto(item, commentRepository.findAllByItem(item).stream()
-                    .map(comment -> CommentMapper.toCommentDtoResponse(comment, comment.getAuthor().getName()))
-                    .collect(Collectors.toList()));
+        return ItemMapper.toItemDto(item, findComments(item));
     }
 
-
     @Override
+    @Transactional(readOnly = true)
     public List<ItemDto> findAllMyItems(Long userId, int from, int size) {
-        return itemRepository.findItemsByOwnerIdOrderById(userId, PageRequest.of(from, size)).stream()
-                        .map(item -> ItemMapper.toItemDto(item, commentRepository.findAllByItem(item).stream()
-                        .map(comment -> CommentMapper.toCommentDtoResponse(comment, comment.getAuthor().getName()))
-                        .collect(Collectors.toList()))).map(itemDto -> addBookings(itemDto, userId))
+        return toOwnerItemDtos(itemRepository.findItemsByOwnerIdOrderById(userId,
+                PaginationUtil.toPageable(from, size)));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<ItemDto> findAllMyItemsAfter(Long userId, String cursor, int size) {
+        var after = PageCursor.decode(cursor);
+        var items = itemRepository.findItemsByOwnerIdAndIdGreaterThanOrderById(userId,
+                after == null ? 0L : after.getId(), PageRequest.of(0, size + 1));
+        String nextCursor = null;
+        if (items.size() > size) {
+            items = items.subList(0, size);
+            nextCursor = PageCursor.of(items.get(size - 1).getId()).encode();
+        }
+        return new CursorPage<>(toOwnerItemDtos(items), nextCursor);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportMyItems(Long userId, Consumer<ItemDto> consumer) {
+        userCache.findById(userId).orElseThrow(() -> new NotFoundException("Пользователь не найден"));
+        try (var items = itemRepository.streamAllByOwnerId(userId)) {
+            items.forEach(consumer);
+        }
+    }
+
+    private List<ItemDto> toOwnerItemDtos(List<Item> items) {
+        var comments = findComments(items);
+        return items.stream()
+                .map(item -> ItemMapper.toOwnerItemDto(item, comments.getOrDefault(item.getId(),
+                        Collections.emptyList())))
                 .collect(Collectors.toList());
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<ItemDto> search(String text, int from, int size) {
         if (text.isEmpty()) {
             return new ArrayList<>();
         }
-        return itemRepository.search(text, PageRequest.of(from, size))
-                .stream().map(item -> ItemMapper.toItemDto(item, commentRepository.findAllByItem(item).stream()
-                        .map(comment -> CommentMapper.toCommentDtoResponse(comment, comment.getAuthor().getName()))
-                        .collect(Collectors.toList()))).collect(Collectors.toList());
+        return itemSearchCache.get(text, String.valueOf(from), size, () ->
+                new CursorPage<>(toItemDtos(itemSearchIndex.search(text, from, size)), null)).getItems();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<ItemDto> searchAfter(String text, String after, int size) {
+        if (text.isEmpty()) {
+            return new CursorPage<>(new ArrayList<>(), null);
+        }
+        return itemSearchCache.get(text, "after:" + after, size, () -> {
+            var page = itemSearchIndex.searchAfter(text, after, size);
+            return new CursorPage<>(toItemDtos(page.getIds()), page.getNextCursor());
+        });
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public ItemAvailabilityDto getAvailability(Long itemId, LocalDateTime from, LocalDateTime to) {
+        var busy = findBusySlots(itemId, from, to);
+        var free = new ArrayList<TimeSlotDto>();
+        var freeFrom = from;
+        for (TimeSlotDto slot : busy) {
+            if (slot.getStart().isAfter(freeFrom)) {
+                free.add(new TimeSlotDto(freeFrom, slot.getStart()));
+            }
+            freeFrom = slot.getEnd();
+        }
+        if (to.isAfter(freeFrom)) {
+            free.add(new TimeSlotDto(freeFrom, to));
+        }
+        return new ItemAvailabilityDto(itemId, from, to, busy, free);
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public TimeSlotDto findNextFreeSlot(Long itemId, LocalDateTime from, Duration duration, LocalDateTime to) {
+        var freeFrom = from;
+        for (TimeSlotDto slot : findBusySlots(itemId, from, to)) {
+            if (!freeFrom.plus(duration).isAfter(slot.getStart())) {
+                break;
+            }
+            freeFrom = slot.getEnd();
+        }
+        if (freeFrom.plus(duration).isAfter(to)) {
+            throw new NotFoundException(String.format("Вещь с id = %s занята на всём периоде с %s по %s",
+                    itemId, from, to));
+        }
+        return new TimeSlotDto(freeFrom, freeFrom.plus(duration));
+    }
+
+    @Override
+    @Transactional
     public CommentDtoResponse postComment(Long itemId, Long userId, CommentDtoRequest commentDtoRequest) {
-        var item = itemRepository.findById(itemId).orElseThrow(()
+        // отзыв пишется в outbox как событие вещи: блокировка строки упорядочивает его с её изменениями
+        var item = itemRepository.findAllByIdInOrderById(List.of(itemId)).stream().findFirst().orElseThrow(()
                 -> new NotFoundException("Вещь не найдена"));
-        var user = userRepository.findById(userId).orElseThrow(()
+        var user = userCache.findById(userId).orElseThrow(()
                 -> new NotFoundException("Пользователь на найден"));
-        var bookings = bookingRepository.findAllByBookerIdAndItemIdAndEndDateBeforeAndStatus(userId,
-                itemId, commentDtoRequest.getCreated(), BookingStatus.APPROVED);
-        if (bookings.isEmpty()) {
+        // бронирования архива закончились задолго до отзыва
+        if (!bookingRepository.existsByBookerIdAndItemIdAndEndDateBeforeAndStatus(userId, itemId,
+                commentDtoRequest.getCreated(), BookingStatus.APPROVED) &&
+                !archivedBookingRepository.existsByBookerIdAndItemIdAndStatus(userId, itemId, BookingStatus.APPROVED)) {
             throw new NotBookerException(String.format("Пользователь с id = %s не брал в аренду вещь с id = %s",
                     userId, itemId));
         }
         var comment = commentRepository.save(CommentMapper.toComment(commentDtoRequest, user, item));
-        return CommentMapper.toCommentDtoResponse(
-                comment, userRepository.findById(comment.getAuthor().getId()).get().getName());
-    }
-
-    private ItemDto addBookings(ItemDto itemDto, Long userId) {
-        var lastBooking = bookingRepository
-                .findFirstBookingByItemIdAndStartDateBeforeAndStatusNotOrderByStartDateDesc(itemDto.getId(),
-                        LocalDateTime.now(), BookingStatus.REJECTED);
-        lastBooking.ifPresent(booking -> itemDto.setLastBooking(BookingMapper.toBookingItemDto(lastBooking.get())));
-        var nextBooking = bookingRepository
-                .findFirstBookingByItemIdAndStartDateAfterAndStatusNotOrderByStartDate(itemDto.getId(),
-                        LocalDateTime.now(), BookingStatus.REJECTED);
-        nextBooking.ifPresent(booking -> itemDto.setNextBooking(BookingMapper.toBookingItemDto(nextBooking.get())));
-        return itemDto;
+        eventPublisher.publishEvent(new CommentAddedEvent(comment));
+        itemSearchCache.evictItem(itemId);
+        return CommentMapper.toCommentDtoResponse(comment, user.getName());
+    }
+
+    private List<TimeSlotDto> findBusySlots(Long itemId, LocalDateTime from, LocalDateTime to) {
+        if (!itemRepository.existsById(itemId)) {
+            throw new NotFoundException("Вещь не найдена");
+        }
+        var busy = new ArrayList<TimeSlotDto>();
+        for (BookingInterval interval : bookingRepository.findIntervalsByItemIdBetween(itemId,
+                List.of(BookingStatus.WAITING, BookingStatus.APPROVED), from, to)) {
+            var start = interval.getStartDate().isBefore(from) ? from : interval.getStartDate();
+            var end = interval.getEndDate().isAfter(to) ? to : interval.getEndDate();
+            var last = busy.isEmpty() ? null : busy.get(busy.size() - 1);
+            if (last != null && !start.isAfter(last.getEnd())) {
+                if (end.isAfter(last.getEnd())) {
+                    last.setEnd(end);
+                }
+            } else {
+                busy.add(new TimeSlotDto(start, end));
+            }
+        }
+        return busy;
+    }
+
+    private boolean isSearchableChanged(Item before, Item after) {
+        return !Objects.equals(before.getName(), after.getName()) ||
+                !Objects.equals(before.getDescription(), after.getDescription()) ||
+                !Objects.equals(before.getIsAvailable(), after.getIsAvailable());
+    }
+
+    private List<ItemDto> toItemDtos(List<Long> itemIds) {
+        if (itemIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        var itemsById = itemRepository.findAllById(itemIds).stream()
+                .collect(Collectors.toMap(Item::getId, Function.identity()));
+        var items = itemIds.stream().map(itemsById::get).filter(Objects::nonNull).collect(Collectors.toList());
+        var comments = findComments(items);
+        return items.stream()
+                .map(item -> ItemMapper.toItemDto(item, comments.getOrDefault(item.getId(), Collections.emptyList())))
+                .collect(Collectors.toList());
+    }
+
+    private List<CommentDtoResponse> findComments(Item item) {
+        return commentRepository.findAllByItem(item).stream()
+                .map(comment -> CommentMapper.toCommentDtoResponse(comment, comment.getAuthor().getName()))
+                .collect(Collectors.toList());
+    }
+
+    private Map<Long, List<CommentDtoResponse>> findComments(List<Item> items) {
+        if (items.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        var itemIds = items.stream().map(Item::getId).collect(Collectors.toList());
+        return commentRepository.findAllByItemIdIn(itemIds).stream()
+                .collect(Collectors.groupingBy(comment -> comment.getItem().getId(),
+                        Collectors.mapping(comment -> CommentMapper.toCommentDtoResponse(comment,
+                                comment.getAuthor().getName()), Collectors.toList())));
     }
 }
@@ -0,0 +1,14 @@
+package ru.practicum.shareit.item;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import ru.practicum.shareit.item.model.Item;
+
+/**
+ * Вещь отредактирована; публикуется внутри транзакции, сохранившей изменения.
+ */
+@Data
+@AllArgsConstructor
+public class ItemUpdatedEvent {
+    private Item item;
+}
@@ -0,0 +1,14 @@
+package ru.practicum.shareit.item.comment;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import ru.practicum.shareit.item.comment.model.Comment;
+
+/**
+ * Отзыв сохранён; публикуется внутри транзакции, сохранившей его.
+ */
+@Data
+@AllArgsConstructor
+public class CommentAddedEvent {
+    private Comment comment;
+}
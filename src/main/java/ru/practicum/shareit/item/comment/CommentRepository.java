@@ -1,12 +1,20 @@
 package ru.practicum.shareit.item.comment;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import ru.practicum.shareit.item.comment.model.Comment;
 import ru.practicum.shareit.item.model.Item;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface CommentRepository extends JpaRepository<Comment, Long> {
 
+    @EntityGraph(Comment.WITH_AUTHOR)
     List<Comment> findAllByItem(Item item);
+
+    @Query("select c from Comment c join fetch c.author where c.item.id in :itemIds order by c.id")
+    List<Comment> findAllByItemIdIn(@Param("itemIds") Collection<Long> itemIds);
 }
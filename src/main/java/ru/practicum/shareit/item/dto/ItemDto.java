@@ -1,5 +1,6 @@
 package ru.practicum.shareit.item.dto;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import ru.practicum.shareit.booking.dto.BookingItemDto;
@@ -8,10 +9,11 @@ import ru.practicum.shareit.item.comment.dto.CommentDtoResponse;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Positive;
+import java.util.Collections;
 import java.util.List;
 
 @Data
-@AllArgsConstructor
+@AllArgsConstructor(onConstructor_ = @JsonCreator)
 public class ItemDto {
     @Positive
     private Long id;
@@ -25,4 +27,8 @@ public class ItemDto {
     private BookingItemDto lastBooking;
     private BookingItemDto nextBooking;
     private List<CommentDtoResponse> comments;
+
+    public ItemDto(Long id, String name, String description, Boolean available, Long requestId) {
+        this(id, name, description, available, requestId, null, null, Collections.emptyList());
+    }
 }
@@ -1,9 +1,9 @@
 package ru.practicum.shareit.item.dto;
 
 import lombok.experimental.UtilityClass;
+import ru.practicum.shareit.booking.dto.BookingItemDto;
 import ru.practicum.shareit.item.comment.dto.CommentDtoResponse;
 import ru.practicum.shareit.item.model.Item;
-import ru.practicum.shareit.request.dto.ItemRequestAnswerDto;
 
 import java.util.List;
 
@@ -23,6 +23,31 @@ public final class ItemMapper {
         );
     }
 
+    public static ItemDto toItemDto(Item item, List<CommentDtoResponse> comments, BookingItemDto lastBooking,
+                                    BookingItemDto nextBooking) {
+        return new ItemDto(
+                item.getId(),
+                item.getName(),
+                item.getDescription(),
+                item.getIsAvailable(),
+                item.getRequestId(),
+                lastBooking,
+                nextBooking,
+                comments
+        );
+    }
+
+    /**
+     * Вещь для владельца: бронирования берутся из указателей самой вещи.
+     */
+    public static ItemDto toOwnerItemDto(Item item, List<CommentDtoResponse> comments) {
+        return toItemDto(item, comments,
+                item.getLastBookingId() == null ? null
+                        : new BookingItemDto(item.getLastBookingId(), item.getLastBookerId()),
+                item.getNextBookingId() == null ? null
+                        : new BookingItemDto(item.getNextBookingId(), item.getNextBookerId()));
+    }
+
     public static Item toItem(Long userId, ItemDto itemDto) {
         return new Item(
                 itemDto.getId(),
@@ -33,14 +58,4 @@ public final class ItemMapper {
                 itemDto.getRequestId()
         );
     }
-
-    public static ItemRequestAnswerDto toItemRequestAnswerDto(Item item) {
-        return new ItemRequestAnswerDto(
-                item.getId(),
-                item.getName(),
-                item.getDescription(),
-                item.getIsAvailable(),
-                item.getRequestId()
-        );
-    }
 }
@@ -0,0 +1,13 @@
+package ru.practicum.shareit.item.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+public class TimeSlotDto {
+    private LocalDateTime start;
+    private LocalDateTime end;
+}
@@ -1,19 +1,32 @@
 package ru.practicum.shareit.item.model;
 
-import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
 
 import javax.persistence.*;
+import java.time.LocalDateTime;
 
+/**
+ * Вещь хранит своё последнее и следующее бронирование, их поддерживает
+ * {@link ru.practicum.shareit.booking.ItemBookingPointers}. Обновляются только изменённые колонки, чтобы
+ * правка описания вещи не затирала указатели, пересчитанные параллельно.
+ */
 @Data
-@AllArgsConstructor
 @NoArgsConstructor
 @Entity
+@DynamicUpdate
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Table(name = "items")
 public class Item {
+    public static final String ANSWERS_CACHE_REGION = "item-answers";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "items_seq")
+    @SequenceGenerator(name = "items_seq", sequenceName = "items_seq", allocationSize = 50)
     private Long id;
     private String name;
     private String description;
@@ -23,4 +36,23 @@ public class Item {
     private Long ownerId;
     @Column(name = "request_id")
     private Long requestId;
+    @Column(name = "last_booking_id")
+    private Long lastBookingId;
+    @Column(name = "last_booker_id")
+    private Long lastBookerId;
+    @Column(name = "next_booking_id")
+    private Long nextBookingId;
+    @Column(name = "next_booker_id")
+    private Long nextBookerId;
+    @Column(name = "next_booking_start")
+    private LocalDateTime nextBookingStart;
+
+    public Item(Long id, String name, String description, Boolean isAvailable, Long ownerId, Long requestId) {
+        this.id = id;
+        this.name = name;
+        this.description = description;
+        this.isAvailable = isAvailable;
+        this.ownerId = ownerId;
+        this.requestId = requestId;
+    }
 }
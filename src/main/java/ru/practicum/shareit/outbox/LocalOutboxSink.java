@@ -0,0 +1,23 @@
+package ru.practicum.shareit.outbox;
+
+import lombok.AllArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.outbox.model.OutboxEvent;
+
+import java.util.List;
+
+/**
+ * Доставка в пределах экземпляра: каждое событие публикуется как событие приложения, его получают обработчики
+ * {@code @EventListener} с параметром {@link OutboxEvent}.
+ */
+@Component
+@AllArgsConstructor
+public class LocalOutboxSink implements OutboxSink {
+    private ApplicationEventPublisher eventPublisher;
+
+    @Override
+    public void publish(List<OutboxEvent> events) {
+        events.forEach(eventPublisher::publishEvent);
+    }
+}
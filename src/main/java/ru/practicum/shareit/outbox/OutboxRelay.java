@@ -0,0 +1,114 @@
+package ru.practicum.shareit.outbox;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.outbox.model.OutboxEvent;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/**
+ * Доставляет события outbox всем {@link OutboxSink} порциями по shareit.outbox.batch-size. Порция удаляется в той же
+ * транзакции после того, как её приняли все получатели; если получатель бросил исключение, порция остаётся в таблице,
+ * у её событий растёт attempts, и следующий запуск доставляет такие события по одному, начиная с первого. Так
+ * доставка выполняется хотя бы один раз и в порядке записи. Событие, которое не удалось доставить
+ * shareit.outbox.max-attempts раз, получает отметку failed и пропускается, чтобы не останавливать очередь.
+ * Метрики: outbox.events.pending, outbox.events.failed, outbox.lag (возраст самого старого недоставленного
+ * события) и outbox.relay.failures.
+ */
+@Slf4j
+@Component
+public class OutboxRelay {
+    private final OutboxRepository outboxRepository;
+    private final List<OutboxSink> sinks;
+    private final TransactionTemplate transactions;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Counter failures;
+
+    public OutboxRelay(OutboxRepository outboxRepository, List<OutboxSink> sinks,
+                       PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+                       @Value("${shareit.outbox.batch-size}") int batchSize,
+                       @Value("${shareit.outbox.max-attempts}") int maxAttempts) {
+        this.outboxRepository = outboxRepository;
+        this.sinks = sinks;
+        this.transactions = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        failures = Counter.builder("outbox.relay.failures").register(meterRegistry);
+        Gauge.builder("outbox.events.pending", outboxRepository, OutboxRepository::countByFailedIsNull)
+                .register(meterRegistry);
+        Gauge.builder("outbox.events.failed", outboxRepository, OutboxRepository::countByFailedIsNotNull)
+                .register(meterRegistry);
+        Gauge.builder("outbox.lag", outboxRepository, OutboxRelay::lagSeconds)
+                .baseUnit("seconds").register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.outbox.relay-interval}",
+            initialDelayString = "${shareit.outbox.relay-interval}")
+    public void relay() {
+        var delivering = new AtomicReference<List<Long>>(List.of());
+        var total = new AtomicInteger();
+        boolean more;
+        try {
+            do {
+                more = Boolean.TRUE.equals(transactions.execute(status -> {
+                    var events = outboxRepository.findBatch(batchSize);
+                    // после неудачи события доставляются по одному, чтобы найти то, которое не принимают
+                    int limit = !events.isEmpty() && events.get(0).getAttempts() > 0 ? 1 : batchSize;
+                    var batch = events.subList(0, Math.min(limit, events.size()));
+                    var ids = batch.stream().map(OutboxEvent::getId).collect(Collectors.toList());
+                    delivering.set(ids);
+                    if (!batch.isEmpty()) {
+                        sinks.forEach(sink -> sink.publish(batch));
+                        outboxRepository.deleteAllByIdInBatch(ids);
+                        total.addAndGet(batch.size());
+                    }
+                    return batch.size() == limit;
+                }));
+            } while (more);
+        } catch (RuntimeException e) {
+            log.warn("Доставка событий outbox прервана, доставлено {}, остальные будут отправлены повторно",
+                    total.get(), e);
+            failures.increment();
+            recordFailure(delivering.get());
+        }
+        if (total.get() > 0) {
+            log.debug("Доставлено {} событий outbox", total.get());
+        }
+    }
+
+    private void recordFailure(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        try {
+            int failed = transactions.execute(status -> {
+                outboxRepository.incrementAttempts(ids);
+                return outboxRepository.markFailed(ids, maxAttempts, LocalDateTime.now());
+            });
+            if (failed > 0) {
+                log.error("Событие outbox с id = {} не доставлено после {} попыток и больше не будет отправляться",
+                        ids.get(0), maxAttempts);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Не удалось учесть неудачную доставку событий outbox", e);
+        }
+    }
+
+    private static double lagSeconds(OutboxRepository outboxRepository) {
+        var oldest = outboxRepository.findOldestCreated();
+        return oldest == null ? 0 : Duration.between(oldest, LocalDateTime.now()).toMillis() / 1000.0;
+    }
+}
@@ -0,0 +1,37 @@
+package ru.practicum.shareit.outbox;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import ru.practicum.shareit.outbox.model.OutboxEvent;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface OutboxRepository extends JpaRepository<OutboxEvent, Long> {
+
+    /**
+     * Первые по порядку недоставленные события без отметки failed. Строки блокируются до конца транзакции доставки,
+     * поэтому другой экземпляр ждёт её и не доставляет события одного агрегата не по порядку.
+     */
+    @Query(value = "select * from outbox_events where failed is null order by id limit :limit for update",
+            nativeQuery = true)
+    List<OutboxEvent> findBatch(@Param("limit") int limit);
+
+    @Modifying
+    @Query("update OutboxEvent e set e.attempts = e.attempts + 1 where e.id in :ids")
+    int incrementAttempts(@Param("ids") List<Long> ids);
+
+    @Modifying
+    @Query("update OutboxEvent e set e.failed = :failed where e.id in :ids and e.attempts >= :maxAttempts")
+    int markFailed(@Param("ids") List<Long> ids, @Param("maxAttempts") int maxAttempts,
+                   @Param("failed") LocalDateTime failed);
+
+    long countByFailedIsNull();
+
+    long countByFailedIsNotNull();
+
+    @Query("select min(e.created) from OutboxEvent e where e.failed is null")
+    LocalDateTime findOldestCreated();
+}
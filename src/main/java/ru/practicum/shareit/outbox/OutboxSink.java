@@ -0,0 +1,13 @@
+package ru.practicum.shareit.outbox;
+
+import ru.practicum.shareit.outbox.model.OutboxEvent;
+
+import java.util.List;
+
+/**
+ * Получатель событий outbox. События приходят порциями в порядке записи; порция, на которой получатель бросил
+ * исключение, будет доставлена повторно, поэтому получатель должен переносить повторы.
+ */
+public interface OutboxSink {
+    void publish(List<OutboxEvent> events);
+}
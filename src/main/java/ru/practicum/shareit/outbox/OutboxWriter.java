@@ -0,0 +1,142 @@
+package ru.practicum.shareit.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.AllArgsConstructor;
+import org.hibernate.query.NativeQuery;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.BookingCreatedEvent;
+import ru.practicum.shareit.booking.BookingStatusChangedEvent;
+import ru.practicum.shareit.booking.dto.BookingMapper;
+import ru.practicum.shareit.item.ItemCreatedEvent;
+import ru.practicum.shareit.item.ItemUpdatedEvent;
+import ru.practicum.shareit.item.comment.CommentAddedEvent;
+import ru.practicum.shareit.item.comment.dto.CommentMapper;
+import ru.practicum.shareit.item.dto.ItemMapper;
+import ru.practicum.shareit.outbox.model.OutboxEvent;
+import ru.practicum.shareit.request.ItemRequestCreatedEvent;
+import ru.practicum.shareit.request.dto.ItemRequestMapper;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Пишет события в outbox_events. Обработчики выполняются синхронно в транзакции, опубликовавшей событие, и копят
+ * события до её фиксации; перед фиксацией изменения сбрасываются в базу, и только потом события вставляются
+ * многострочными insert. Строки изменённых агрегатов к этому моменту заблокированы, поэтому id, которые база выдаёт
+ * событиям одного агрегата, растут в порядке фиксации изменений. Отзыв относится к агрегату своей вещи, и её строку
+ * postComment блокирует до сохранения отзыва.
+ */
+@Component
+@AllArgsConstructor
+@Transactional(propagation = Propagation.MANDATORY)
+public class OutboxWriter {
+    public static final String BOOKING = "Booking";
+    public static final String ITEM = "Item";
+    public static final String ITEM_REQUEST = "ItemRequest";
+    private static final int ROWS_PER_INSERT = 500;
+
+    private EntityManager em;
+    private ObjectMapper objectMapper;
+
+    @EventListener
+    public void onBookingCreated(BookingCreatedEvent event) {
+        var booking = event.getBooking();
+        add(BOOKING, booking.getId(), "BookingCreated", BookingMapper.toBookingDtoResponse(booking));
+    }
+
+    @EventListener
+    public void onBookingStatusChanged(BookingStatusChangedEvent event) {
+        var booking = event.getBooking();
+        add(BOOKING, booking.getId(), "BookingStatusChanged", BookingMapper.toBookingDtoResponse(booking));
+    }
+
+    @EventListener
+    public void onItemCreated(ItemCreatedEvent event) {
+        var item = event.getItem();
+        add(ITEM, item.getId(), "ItemCreated", ItemMapper.toItemDto(item, null));
+    }
+
+    @EventListener
+    public void onItemUpdated(ItemUpdatedEvent event) {
+        var item = event.getItem();
+        add(ITEM, item.getId(), "ItemUpdated", ItemMapper.toItemDto(item, null));
+    }
+
+    @EventListener
+    public void onCommentAdded(CommentAddedEvent event) {
+        var comment = event.getComment();
+        add(ITEM, comment.getItem().getId(), "CommentAdded",
+                CommentMapper.toCommentDtoResponse(comment, comment.getAuthor().getName()));
+    }
+
+    @EventListener
+    public void onItemRequestCreated(ItemRequestCreatedEvent event) {
+        var itemRequest = event.getItemRequest();
+        add(ITEM_REQUEST, itemRequest.getId(), "ItemRequestCreated",
+                ItemRequestMapper.toItemRequestDtoResponse(itemRequest));
+    }
+
+    private void add(String aggregateType, Long aggregateId, String eventType, Object payload) {
+        try {
+            pending().add(new OutboxEvent(null, aggregateType, aggregateId, eventType,
+                    objectMapper.writeValueAsString(payload), LocalDateTime.now(), 0, null));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(String.format("Не удалось записать событие %s агрегата %s с id = %s",
+                    eventType, aggregateType, aggregateId), e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<OutboxEvent> pending() {
+        var pending = (List<OutboxEvent>) TransactionSynchronizationManager.getResource(this);
+        if (pending != null) {
+            return pending;
+        }
+        var events = new ArrayList<OutboxEvent>();
+        TransactionSynchronizationManager.bindResource(this, events);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                em.flush();
+                insert(events);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResource(OutboxWriter.this);
+            }
+        });
+        return events;
+    }
+
+    private void insert(List<OutboxEvent> events) {
+        for (int from = 0; from < events.size(); from += ROWS_PER_INSERT) {
+            var rows = events.subList(from, Math.min(from + ROWS_PER_INSERT, events.size()));
+            var sql = new StringBuilder("insert into outbox_events (aggregate_type, aggregate_id, event_type, " +
+                    "payload, created) values ");
+            for (int i = 0; i < rows.size(); i++) {
+                sql.append(i == 0 ? "" : ", ").append("(?, ?, ?, ?, ?)");
+            }
+            // без пространства запроса Hibernate сбросил бы после вставки весь кэш второго уровня
+            var query = em.createNativeQuery(sql.toString()).unwrap(NativeQuery.class)
+                    .addSynchronizedQuerySpace("outbox_events");
+            int position = 1;
+            for (OutboxEvent event : rows) {
+                query.setParameter(position++, event.getAggregateType());
+                query.setParameter(position++, event.getAggregateId());
+                query.setParameter(position++, event.getEventType());
+                query.setParameter(position++, event.getPayload());
+                query.setParameter(position++, event.getCreated());
+            }
+            query.executeUpdate();
+        }
+    }
+}
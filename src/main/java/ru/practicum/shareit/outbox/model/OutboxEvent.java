@@ -0,0 +1,37 @@
+package ru.practicum.shareit.outbox.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Событие для внешних потребителей. Агрегат — бронирование, вещь или запрос, к которым относится событие;
+ * payload — ответ REST API для этого агрегата в JSON. attempts — число неудачных доставок; failed — когда доставку
+ * прекратили после shareit.outbox.max-attempts неудач.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "outbox_events")
+public class OutboxEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    @Column(name = "aggregate_type", nullable = false)
+    private String aggregateType;
+    @Column(name = "aggregate_id", nullable = false)
+    private Long aggregateId;
+    @Column(name = "event_type", nullable = false)
+    private String eventType;
+    @Column(nullable = false)
+    private String payload;
+    @Column(nullable = false)
+    private LocalDateTime created;
+    @Column(nullable = false)
+    private int attempts;
+    private LocalDateTime failed;
+}
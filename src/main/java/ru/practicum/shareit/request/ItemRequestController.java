@@ -4,7 +4,6 @@ import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.shareit.common.Constants;
-import ru.practicum.shareit.common.PaginationUtil;
 import ru.practicum.shareit.common.Validator;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.dto.ItemRequestDtoResponse;
@@ -33,12 +32,18 @@ public class ItemRequestController {
     }
 
     @GetMapping
-    public List<ItemRequestDtoResponseWithAnswers> getMyRequests(@RequestHeader(Constants.USER_HEADER) Long userId) {
+    public List<ItemRequestDtoResponseWithAnswers> getMyRequests(@RequestHeader(Constants.USER_HEADER) Long userId,
+                                                                 @RequestParam(defaultValue = Constants.DEFAULT_FROM)
+                                                                 int from,
+                                                                 @RequestParam(defaultValue = Constants.DEFAULT_SIZE)
+                                                                 int size) {
         log.info(String.format(
-                "Получен запрос GET /requests на получение списка своих запросов от пользователя с id = %s", userId));
+                "Получен запрос GET /requests на получение списка своих запросов от пользователя с id = %s " +
+                        "с параметрами пагинации от %s до %s", userId, from, size));
+        validator.validatePageParams(from, size);
         validator.validateId(userId);
         validator.checkIsUserExists(userId);
-        return itemRequestService.getMyRequests(userId);
+        return itemRequestService.getMyRequests(userId, from, size);
     }
 
     @GetMapping("/{requestId}")
@@ -63,7 +68,6 @@ public class ItemRequestController {
         validator.validatePageParams(from, size);
         validator.validateId(userId);
         validator.checkIsUserExists(userId);
-        int page = PaginationUtil.positionToPage(from, size);
-        return itemRequestService.getAll(page, size, userId);
+        return itemRequestService.getAll(from, size, userId);
     }
 }
@@ -0,0 +1,14 @@
+package ru.practicum.shareit.request;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import ru.practicum.shareit.request.model.ItemRequest;
+
+/**
+ * Запрос вещи сохранён; публикуется внутри транзакции, сохранившей его.
+ */
+@Data
+@AllArgsConstructor
+public class ItemRequestCreatedEvent {
+    private ItemRequest itemRequest;
+}
@@ -8,7 +8,7 @@ import ru.practicum.shareit.request.model.ItemRequest;
 import java.util.List;
 
 public interface ItemRequestRepository extends JpaRepository<ItemRequest, Long> {
-    List<ItemRequest> findAllByUserIdOrderByCreatedDesc(Long userId);
+    List<ItemRequest> findAllByUserIdOrderByCreatedDesc(Pageable page, Long userId);
 
     List<ItemRequest> findAllByUserIdNotOrderByCreatedDesc(Pageable page, Long userId);
 }
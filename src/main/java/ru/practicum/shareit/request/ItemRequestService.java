@@ -9,7 +9,7 @@ import java.util.List;
 public interface ItemRequestService {
     ItemRequestDtoResponse addRequest(Long userId, ItemRequestDto itemRequestDto);
 
-    List<ItemRequestDtoResponseWithAnswers> getMyRequests(Long userId);
+    List<ItemRequestDtoResponseWithAnswers> getMyRequests(Long userId, int from, int size);
 
     ItemRequestDtoResponseWithAnswers findItemRequest(Long requestId);
 
@@ -1,16 +1,22 @@
 package ru.practicum.shareit.request;
 
 import lombok.AllArgsConstructor;
-import org.springframework.data.domain.PageRequest;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.common.PaginationUtil;
 import ru.practicum.shareit.exceptions.NotFoundException;
 import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.request.dto.ItemRequestAnswerDto;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.dto.ItemRequestDtoResponse;
 import ru.practicum.shareit.request.dto.ItemRequestDtoResponseWithAnswers;
 import ru.practicum.shareit.request.dto.ItemRequestMapper;
-import ru.practicum.shareit.user.UserRepository;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.user.UserCache;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -18,35 +24,55 @@ import java.util.stream.Collectors;
 @AllArgsConstructor
 public class ItemRequestServiceImpl implements ItemRequestService {
     private final ItemRequestRepository itemRequestRepository;
-    private final UserRepository userRepository;
+    private final UserCache userCache;
     private final ItemRepository itemRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
+    @Transactional
     public ItemRequestDtoResponse addRequest(Long userId, ItemRequestDto itemRequestDto) {
-        var user = userRepository.findById(userId).orElseThrow(() -> new NotFoundException(
+        var user = userCache.findById(userId).orElseThrow(() -> new NotFoundException(
                 String.format("Пользователь с id = %s не найден", userId)));
-        return ItemRequestMapper.toItemRequestDtoResponse(itemRequestRepository.save(
-                ItemRequestMapper.toItemRequest(user, itemRequestDto)));
+        var itemRequest = itemRequestRepository.save(ItemRequestMapper.toItemRequest(user, itemRequestDto));
+        eventPublisher.publishEvent(new ItemRequestCreatedEvent(itemRequest));
+        return ItemRequestMapper.toItemRequestDtoResponse(itemRequest);
     }
 
     @Override
-    public List<ItemRequestDtoResponseWithAnswers> getMyRequests(Long userId) {
-        return itemRequestRepository.findAllByUserIdOrderByCreatedDesc(userId).stream().map(itemRequest ->
-                        ItemRequestMapper.toItemRequestDtoResponseWithAnswers(itemRequest, itemRepository))
-                .collect(Collectors.toList());
+    @Transactional(readOnly = true)
+    public List<ItemRequestDtoResponseWithAnswers> getMyRequests(Long userId, int from, int size) {
+        return withAnswers(itemRequestRepository.findAllByUserIdOrderByCreatedDesc(
+                PaginationUtil.toPageable(from, size), userId));
     }
 
     @Override
+    @Transactional(readOnly = true)
     public ItemRequestDtoResponseWithAnswers findItemRequest(Long requestId) {
         var itemRequest = itemRequestRepository.findById(requestId).orElseThrow(() ->
                 new NotFoundException(String.format("Запрос с id = %s не найден", requestId)));
-        return ItemRequestMapper.toItemRequestDtoResponseWithAnswers(itemRequest, itemRepository);
+        return withAnswers(List.of(itemRequest)).get(0);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<ItemRequestDtoResponseWithAnswers> getAll(int from, int size, Long userId) {
-        return itemRequestRepository.findAllByUserIdNotOrderByCreatedDesc(PageRequest.of(from, size), userId).stream()
-                .map(itemRequest -> ItemRequestMapper.toItemRequestDtoResponseWithAnswers(itemRequest, itemRepository))
+        return withAnswers(itemRequestRepository.findAllByUserIdNotOrderByCreatedDesc(
+                PaginationUtil.toPageable(from, size), userId));
+    }
+
+    /**
+     * Ответы на все запросы страницы загружаются одним запросом и раскладываются по запросам в памяти.
+     */
+    private List<ItemRequestDtoResponseWithAnswers> withAnswers(List<ItemRequest> itemRequests) {
+        if (itemRequests.isEmpty()) {
+            return new ArrayList<>();
+        }
+        var requestIds = itemRequests.stream().map(ItemRequest::getId).collect(Collectors.toList());
+        var answers = itemRepository.findAnswersByRequestIdIn(requestIds).stream()
+                .collect(Collectors.groupingBy(ItemRequestAnswerDto::getRequestId));
+        return itemRequests.stream()
+                .map(itemRequest -> ItemRequestMapper.toItemRequestDtoResponseWithAnswers(itemRequest,
+                        answers.getOrDefault(itemRequest.getId(), Collections.emptyList())))
                 .collect(Collectors.toList());
     }
 }
@@ -1,12 +1,10 @@
 package ru.practicum.shareit.request.dto;
 
 import lombok.experimental.UtilityClass;
-import ru.practicum.shareit.item.ItemRepository;
-import ru.practicum.shareit.item.dto.ItemMapper;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.user.model.User;
 
-import java.util.stream.Collectors;
+import java.util.List;
 
 @UtilityClass
 public final class ItemRequestMapper {
@@ -28,16 +26,13 @@ public final class ItemRequestMapper {
         );
     }
 
-    public static ItemRequestDtoResponseWithAnswers toItemRequestDtoResponseWithAnswers(ItemRequest itemRequest,
-                                                                                        ItemRepository itemRepository) {
-
+    public static ItemRequestDtoResponseWithAnswers toItemRequestDtoResponseWithAnswers(
+            ItemRequest itemRequest, List<ItemRequestAnswerDto> answers) {
         return new ItemRequestDtoResponseWithAnswers(
                 itemRequest.getId(),
                 itemRequest.getDescription(),
                 itemRequest.getCreated(),
-                itemRepository.findAllByRequestId(
-                                itemRequest.getId()).stream().map(ItemMapper::toItemRequestAnswerDto)
-                        .collect(Collectors.toList())
+                answers
         );
     }
 }
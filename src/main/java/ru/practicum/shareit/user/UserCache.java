@@ -0,0 +1,91 @@
+package ru.practicum.shareit.user;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.common.EntityInvalidatedEvent;
+import ru.practicum.shareit.common.PrimaryReader;
+import ru.practicum.shareit.common.TransactionUtil;
+import ru.practicum.shareit.user.model.User;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Пользователи по id для проверок существования и ссылок на пользователя из бронирований, отзывов и запросов.
+ * Хранятся копии, не связанные с сессией Hibernate; отсутствующие пользователи не кэшируются.
+ * Пользователи загружаются с основной базы, чтобы в кэш не попала устаревшая копия с реплики.
+ * При shareit.user.cache.maximum-size=0 кэш отключён.
+ */
+@Component
+public class UserCache {
+    private static final String NAME = "users";
+
+    private final UserRepository userRepository;
+    private final PrimaryReader primaryReader;
+    private final Cache<Long, User> cache;
+    private final boolean enabled;
+    private final AtomicLong version = new AtomicLong();
+
+    public UserCache(UserRepository userRepository, PrimaryReader primaryReader,
+                     @Value("${shareit.user.cache.maximum-size}") long maximumSize,
+                     MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.primaryReader = primaryReader;
+        enabled = maximumSize > 0;
+        cache = Caffeine.newBuilder().maximumSize(maximumSize).recordStats().build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, NAME);
+        Gauge.builder("cache.hit.ratio", cache, current -> current.stats().hitRate())
+                .tag("cache", NAME).register(meterRegistry);
+        Gauge.builder("cache.miss.ratio", cache, current -> current.stats().missRate())
+                .tag("cache", NAME).register(meterRegistry);
+    }
+
+    public Optional<User> findById(Long userId) {
+        if (!enabled) {
+            return userRepository.findById(userId);
+        }
+        var cached = cache.getIfPresent(userId);
+        if (cached != null) {
+            return Optional.of(copy(cached));
+        }
+        long loadedVersion = version.get();
+        var loaded = primaryReader.read(() -> userRepository.findById(userId)).map(UserCache::copy);
+        if (loaded.isPresent() && version.get() == loadedVersion) {
+            cache.put(userId, loaded.get());
+        }
+        return loaded.map(UserCache::copy);
+    }
+
+    public void evict(Long userId) {
+        TransactionUtil.runAfterCommit(() -> {
+            version.incrementAndGet();
+            cache.invalidate(userId);
+        });
+    }
+
+    /**
+     * Пользователь изменён на другом экземпляре; приходит уже после фиксации транзакции.
+     */
+    @EventListener
+    public void onEntityInvalidated(EntityInvalidatedEvent event) {
+        if (event.getEntityClass() != User.class) {
+            return;
+        }
+        version.incrementAndGet();
+        if (event.getId() == null) {
+            cache.invalidateAll();
+        } else {
+            cache.invalidate(event.getId());
+        }
+    }
+
+    private static User copy(User user) {
+        return new User(user.getId(), user.getName(), user.getEmail());
+    }
+}
@@ -3,10 +3,13 @@ package ru.practicum.shareit.user;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.bind.annotation.*;
+import ru.practicum.shareit.common.Constants;
+import ru.practicum.shareit.common.PaginationUtil;
 import ru.practicum.shareit.common.Validator;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.model.User;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 import java.util.List;
 
@@ -19,8 +22,14 @@ public class UserController {
     private Validator validator;
 
     @GetMapping
-    public List<UserDto> getAllUsers() {
+    public List<UserDto> getAllUsers(@RequestParam(required = false) String cursor,
+                                     @RequestParam(defaultValue = Constants.DEFAULT_SIZE) int size,
+                                     HttpServletResponse response) {
         log.info("Получен запрос GET/users на получение списка пользователей");
+        if (cursor != null) {
+            validator.validatePageParams(0, size);
+            return PaginationUtil.writeCursorHeaders(userService.getAllAfter(cursor, size), response);
+        }
         return userService.getAll();
     }
 
@@ -1,13 +1,18 @@
 package ru.practicum.shareit.user;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.user.model.User;
 
+import java.util.List;
+
 public interface UserRepository extends JpaRepository<User, Long> {
 
+    List<User> findAllByIdGreaterThanOrderById(Long id, Pageable page);
+
     @Transactional
     @Modifying
     @Query(value = "DELETE from User u where u.id = ?1")
@@ -1,5 +1,6 @@
 package ru.practicum.shareit.user;
 
+import ru.practicum.shareit.common.CursorPage;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.model.User;
 
@@ -8,6 +9,8 @@ import java.util.List;
 public interface UserService {
     List<UserDto> getAll();
 
+    CursorPage<UserDto> getAllAfter(String cursor, int size);
+
     UserDto createUser(User user);
 
     UserDto updateUser(Long id, User user);
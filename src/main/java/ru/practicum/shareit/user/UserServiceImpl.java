@@ -1,7 +1,14 @@
 package ru.practicum.shareit.user;
 
 import lombok.AllArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.common.CursorPage;
+import ru.practicum.shareit.common.EntityCacheInvalidation;
+import ru.practicum.shareit.common.EntityRenamedEvent;
+import ru.practicum.shareit.common.PageCursor;
 import ru.practicum.shareit.exceptions.NotFoundException;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.dto.UserMapper;
@@ -14,27 +21,50 @@ import java.util.stream.Collectors;
 @Service
 public class UserServiceImpl implements UserService {
     private UserRepository userRepository;
+    private UserCache userCache;
+    private EntityCacheInvalidation entityCacheInvalidation;
+    private ApplicationEventPublisher eventPublisher;
 
     @Override
+    @Transactional(readOnly = true)
     public List<UserDto> getAll() {
         return userRepository.findAll().stream().map(UserMapper::toUserDto).collect(Collectors.toList());
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<UserDto> getAllAfter(String cursor, int size) {
+        var after = PageCursor.decode(cursor);
+        var users = userRepository.findAllByIdGreaterThanOrderById(after == null ? 0L : after.getId(),
+                PageRequest.of(0, size + 1));
+        String nextCursor = null;
+        if (users.size() > size) {
+            users = users.subList(0, size);
+            nextCursor = PageCursor.of(users.get(size - 1).getId()).encode();
+        }
+        return new CursorPage<>(users.stream().map(UserMapper::toUserDto).collect(Collectors.toList()), nextCursor);
+    }
+
     @Override
     public UserDto createUser(User user) {
         return UserMapper.toUserDto(userRepository.save(user));
     }
 
     @Override
+    @Transactional
     public UserDto updateUser(Long id, User user) {
         final var oldUser = findUser(id);
-        if (user.getName() != null && !user.getName().isBlank()) {
+        if (user.getName() != null && !user.getName().isBlank() && !user.getName().equals(oldUser.getName())) {
             oldUser.setName(user.getName());
+            eventPublisher.publishEvent(new EntityRenamedEvent(User.class, id, user.getName()));
         }
         if (user.getEmail() != null && !user.getEmail().isBlank()) {
             oldUser.setEmail(user.getEmail());
         }
-        return UserMapper.toUserDto(userRepository.save(oldUser));
+        var updated = userRepository.save(oldUser);
+        userCache.evict(id);
+        entityCacheInvalidation.invalidate(User.class, id);
+        return UserMapper.toUserDto(updated);
     }
 
     @Override
@@ -42,9 +72,12 @@ public class UserServiceImpl implements UserService {
         if (userRepository.deleteByIdAndReturnCount(id) != 1) {
             throw new NotFoundException("Пользователь не найден");
         }
+        userCache.evict(id);
+        entityCacheInvalidation.invalidate(User.class, id);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public UserDto getUser(Long userId) {
         return UserMapper.toUserDto(findUser(userId));
     }
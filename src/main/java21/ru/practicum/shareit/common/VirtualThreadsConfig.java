@@ -0,0 +1,33 @@
+package ru.practicum.shareit.common;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.scheduling.annotation.AsyncAnnotationBeanPostProcessor;
+
+import java.util.concurrent.Executors;
+
+/**
+ * Обработка HTTP-запросов Tomcat и асинхронные задачи приложения на виртуальных потоках.
+ * Собирается только в профиле Maven virtual-threads (JDK 21) и включается shareit.threads.virtual.enabled=true.
+ * Число одновременных обращений к базе ограничивает пул соединений, а не число потоков.
+ */
+@Configuration
+@ConditionalOnProperty(name = "shareit.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadsConfig {
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadsProtocolHandlerCustomizer() {
+        return protocolHandler -> protocolHandler.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    @Bean(name = {TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME,
+            AsyncAnnotationBeanPostProcessor.DEFAULT_TASK_EXECUTOR_BEAN_NAME})
+    public AsyncTaskExecutor applicationTaskExecutor() {
+        return new TaskExecutorAdapter(Executors.newVirtualThreadPerTaskExecutor());
+    }
+}
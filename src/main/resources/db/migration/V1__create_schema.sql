@@ -1,9 +1,3 @@
-DROP TABLE IF EXISTS "comments";
-DROP TABLE IF EXISTS "users" CASCADE;
-DROP TABLE IF EXISTS "items" CASCADE;
-DROP TABLE IF EXISTS "requests";
-DROP TABLE IF EXISTS "bookings"; --Оставлено, чтобы пройти тесты. Закомментировать для работы--
-
 CREATE TABLE IF NOT EXISTS users
 (
     id    BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
@@ -59,6 +53,4 @@ CREATE TABLE IF NOT EXISTS bookings
     CONSTRAINT pk_bookings PRIMARY KEY (id),
     CONSTRAINT fk_bookings_item FOREIGN KEY (item_id) REFERENCES items (id) ON DELETE CASCADE,
     CONSTRAINT pk_booker FOREIGN KEY (booker_id) REFERENCES users (id) ON DELETE CASCADE
-)
-
-
+);
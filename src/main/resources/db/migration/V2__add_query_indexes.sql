@@ -0,0 +1,16 @@
+-- Бронирования пользователя: все состояния, сортировка по start_date и курсор (start_date, id)
+CREATE INDEX IF NOT EXISTS ix_bookings_booker_start ON bookings (booker_id, start_date, id);
+-- Бронирования пользователя со статусом WAITING/REJECTED
+CREATE INDEX IF NOT EXISTS ix_bookings_booker_status_start ON bookings (booker_id, status, start_date);
+-- Бронирования вещи: последнее/следующее бронирование и бронирования вещей владельца
+CREATE INDEX IF NOT EXISTS ix_bookings_item_start ON bookings (item_id, start_date, id);
+-- Проверка завершённой аренды перед публикацией отзыва
+CREATE INDEX IF NOT EXISTS ix_bookings_booker_item_end ON bookings (booker_id, item_id, end_date);
+
+CREATE INDEX IF NOT EXISTS ix_items_owner ON items (owner_id, id);
+CREATE INDEX IF NOT EXISTS ix_items_request ON items (request_id);
+
+CREATE INDEX IF NOT EXISTS ix_comments_item ON comments (item_id, id);
+
+CREATE INDEX IF NOT EXISTS ix_requests_requestor_created ON requests (requestor_id, created);
+CREATE INDEX IF NOT EXISTS ix_requests_created ON requests (created DESC);
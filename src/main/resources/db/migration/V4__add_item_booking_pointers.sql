@@ -0,0 +1,26 @@
+-- Последнее и следующее бронирование вещи: список вещей владельца читается без запросов к bookings
+ALTER TABLE items ADD COLUMN IF NOT EXISTS last_booking_id bigint;
+ALTER TABLE items ADD COLUMN IF NOT EXISTS last_booker_id bigint;
+ALTER TABLE items ADD COLUMN IF NOT EXISTS next_booking_id bigint;
+ALTER TABLE items ADD COLUMN IF NOT EXISTS next_booker_id bigint;
+ALTER TABLE items ADD COLUMN IF NOT EXISTS next_booking_start timestamp;
+
+ALTER TABLE items ADD CONSTRAINT fk_items_last_booking
+    FOREIGN KEY (last_booking_id) REFERENCES bookings (id) ON DELETE SET NULL;
+ALTER TABLE items ADD CONSTRAINT fk_items_next_booking
+    FOREIGN KEY (next_booking_id) REFERENCES bookings (id) ON DELETE SET NULL;
+
+UPDATE items i
+SET last_booking_id = (SELECT b.id FROM bookings b
+                       WHERE b.item_id = i.id AND b.start_date < LOCALTIMESTAMP AND b.status <> 'REJECTED'
+                       ORDER BY b.start_date DESC, b.id DESC LIMIT 1),
+    next_booking_id = (SELECT b.id FROM bookings b
+                       WHERE b.item_id = i.id AND b.start_date > LOCALTIMESTAMP AND b.status <> 'REJECTED'
+                       ORDER BY b.start_date, b.id LIMIT 1);
+UPDATE items i
+SET last_booker_id     = (SELECT b.booker_id FROM bookings b WHERE b.id = i.last_booking_id),
+    next_booker_id     = (SELECT b.booker_id FROM bookings b WHERE b.id = i.next_booking_id),
+    next_booking_start = (SELECT b.start_date FROM bookings b WHERE b.id = i.next_booking_id);
+
+-- Вещи, у которых наступило следующее бронирование, для периодического пересчёта указателей
+CREATE INDEX IF NOT EXISTS ix_items_next_booking_start ON items (next_booking_start);
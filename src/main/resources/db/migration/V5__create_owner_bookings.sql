@@ -0,0 +1,32 @@
+-- Бронирования вещей владельца для /bookings/owner: строка на бронирование с владельцем, названием вещи
+-- и арендатором, список читается одним диапазоном индекса без соединения с items и users
+CREATE TABLE IF NOT EXISTS owner_bookings
+(
+    booking_id  bigint       NOT NULL,
+    owner_id    bigint       NOT NULL,
+    item_id     bigint       NOT NULL,
+    item_name   varchar(255) NOT NULL,
+    booker_id   bigint       NOT NULL,
+    booker_name varchar(64)  NOT NULL,
+    start_date  timestamp    NOT NULL,
+    end_date    timestamp    NOT NULL,
+    status      varchar      NOT NULL,
+    CONSTRAINT pk_owner_bookings PRIMARY KEY (booking_id),
+    CONSTRAINT fk_owner_bookings_booking FOREIGN KEY (booking_id) REFERENCES bookings (id) ON DELETE CASCADE
+);
+
+-- Все состояния, кроме WAITING/REJECTED: диапазон по start_date, курсор (start_date, booking_id)
+CREATE INDEX IF NOT EXISTS ix_owner_bookings_owner_start ON owner_bookings (owner_id, start_date, booking_id);
+-- WAITING/REJECTED
+CREATE INDEX IF NOT EXISTS ix_owner_bookings_owner_status_start
+    ON owner_bookings (owner_id, status, start_date, booking_id);
+-- Переименование вещи и арендатора
+CREATE INDEX IF NOT EXISTS ix_owner_bookings_item ON owner_bookings (item_id);
+CREATE INDEX IF NOT EXISTS ix_owner_bookings_booker ON owner_bookings (booker_id);
+
+INSERT INTO owner_bookings (booking_id, owner_id, item_id, item_name, booker_id, booker_name, start_date, end_date,
+                            status)
+SELECT b.id, i.owner_id, i.id, i.name, u.id, u.name, b.start_date, b.end_date, b.status
+FROM bookings b
+         JOIN items i ON i.id = b.item_id
+         JOIN users u ON u.id = b.booker_id;
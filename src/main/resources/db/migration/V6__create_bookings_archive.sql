@@ -0,0 +1,25 @@
+-- Бронирования, закончившиеся раньше горизонта shareit.booking.archive.horizon. Строки переносит BookingArchiver,
+-- списки бронирований читают архив, только когда страница доходит до старой истории
+CREATE TABLE IF NOT EXISTS bookings_archive
+(
+    id         bigint    NOT NULL,
+    start_date timestamp NOT NULL,
+    end_date   timestamp NOT NULL,
+    item_id    bigint    NOT NULL,
+    booker_id  bigint    NOT NULL,
+    owner_id   bigint    NOT NULL,
+    status     varchar   NOT NULL,
+    CONSTRAINT pk_bookings_archive PRIMARY KEY (id),
+    CONSTRAINT fk_bookings_archive_item FOREIGN KEY (item_id) REFERENCES items (id) ON DELETE CASCADE,
+    CONSTRAINT fk_bookings_archive_booker FOREIGN KEY (booker_id) REFERENCES users (id) ON DELETE CASCADE
+);
+
+-- Списки арендатора и владельца: диапазон по start_date, курсор (start_date, id)
+CREATE INDEX IF NOT EXISTS ix_bookings_archive_booker_start ON bookings_archive (booker_id, start_date, id);
+CREATE INDEX IF NOT EXISTS ix_bookings_archive_owner_start ON bookings_archive (owner_id, start_date, id);
+CREATE INDEX IF NOT EXISTS ix_bookings_archive_item ON bookings_archive (item_id);
+
+-- Выбор бронирований для переноса и проверка ссылок из items при удалении строк bookings
+CREATE INDEX IF NOT EXISTS ix_bookings_end_date ON bookings (end_date);
+CREATE INDEX IF NOT EXISTS ix_items_last_booking ON items (last_booking_id);
+CREATE INDEX IF NOT EXISTS ix_items_next_booking ON items (next_booking_id);
@@ -0,0 +1,13 @@
+-- События об изменениях бронирований, вещей, отзывов и запросов для внешних потребителей. Строка пишется в транзакции,
+-- меняющей данные, и удаляется OutboxRelay после доставки. Id выдаёт база при вставке: события одного агрегата
+-- пишутся под блокировкой его строки, поэтому порядок id совпадает с порядком изменений
+CREATE TABLE IF NOT EXISTS outbox_events
+(
+    id             bigint GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+    aggregate_type varchar(32)                             NOT NULL,
+    aggregate_id   bigint                                  NOT NULL,
+    event_type     varchar(64)                             NOT NULL,
+    payload        text                                    NOT NULL,
+    created        timestamp                               NOT NULL,
+    CONSTRAINT pk_outbox_events PRIMARY KEY (id)
+);
@@ -0,0 +1,12 @@
+-- Единственный генератор идентификаторов — последовательности из V3: identity-столбцы V1 выдавали бы
+-- значения независимо от них, и id из разных источников совпадали бы
+ALTER TABLE users ALTER COLUMN id DROP IDENTITY;
+ALTER TABLE users ALTER COLUMN id SET DEFAULT nextval('users_seq');
+ALTER TABLE requests ALTER COLUMN id DROP IDENTITY;
+ALTER TABLE requests ALTER COLUMN id SET DEFAULT nextval('requests_seq');
+ALTER TABLE items ALTER COLUMN id DROP IDENTITY;
+ALTER TABLE items ALTER COLUMN id SET DEFAULT nextval('items_seq');
+ALTER TABLE comments ALTER COLUMN id DROP IDENTITY;
+ALTER TABLE comments ALTER COLUMN id SET DEFAULT nextval('comments_seq');
+ALTER TABLE bookings ALTER COLUMN id DROP IDENTITY;
+ALTER TABLE bookings ALTER COLUMN id SET DEFAULT nextval('bookings_seq');
@@ -0,0 +1,6 @@
+-- attempts считает неудачные доставки события. Событие, которое не удалось доставить shareit.outbox.max-attempts раз,
+-- получает отметку failed и больше не доставляется, чтобы не задерживать остальные события
+ALTER TABLE outbox_events ADD COLUMN IF NOT EXISTS attempts integer DEFAULT 0 NOT NULL;
+ALTER TABLE outbox_events ADD COLUMN IF NOT EXISTS failed timestamp;
+
+CREATE INDEX IF NOT EXISTS idx_outbox_events_failed ON outbox_events (failed, id);
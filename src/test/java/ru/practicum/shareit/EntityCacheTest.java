@@ -0,0 +1,103 @@
+package ru.practicum.shareit;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.practicum.shareit.common.InvalidationChannel;
+import ru.practicum.shareit.common.SqlStatements;
+import ru.practicum.shareit.common.SqlStatementsExtension;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.request.ItemRequestRepository;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.user.UserCache;
+import ru.practicum.shareit.user.UserRepository;
+import ru.practicum.shareit.user.model.User;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Кэш второго уровня и кэш запросов заполняются только зафиксированными данными, поэтому тест работает
+ * без общей транзакции и удаляет свои строки сам.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ExtendWith(SqlStatementsExtension.class)
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class EntityCacheTest {
+    final UserRepository userRepository;
+    final ItemRepository itemRepository;
+    final ItemRequestRepository itemRequestRepository;
+    final UserCache userCache;
+    final InvalidationChannel invalidationChannel;
+    final EntityManagerFactory entityManagerFactory;
+    User user;
+    Item item;
+    ItemRequest request;
+
+    @BeforeEach
+    void loadInitial() {
+        entityManagerFactory.getCache().evictAll();
+        user = userRepository.save(new User(null, "Andrej", "cache@mail.com"));
+        request = itemRequestRepository.save(new ItemRequest(null, "Need a hammer", user, LocalDateTime.now()));
+        item = itemRepository.save(new Item(null, "Hammer", "Heavy", true, user.getId(), request.getId()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        itemRepository.deleteById(item.getId());
+        itemRequestRepository.deleteById(request.getId());
+        userRepository.deleteById(user.getId());
+    }
+
+    @Test
+    void findByIdIsServedFromSecondLevelCache(SqlStatements statements) {
+        statements.count(() -> userRepository.findById(user.getId()));
+        statements.count(() -> itemRepository.findById(item.getId()));
+
+        statements.assertExactly(0, () -> assertEquals("Andrej", userRepository.findById(user.getId())
+                .orElseThrow().getName()));
+        statements.assertExactly(0, () -> assertEquals("Hammer", itemRepository.findById(item.getId())
+                .orElseThrow().getName()));
+    }
+
+    @Test
+    void answersQueryIsCachedUntilItemChanges(SqlStatements statements) {
+        statements.count(() -> itemRepository.findAnswersByRequestIdIn(List.of(request.getId())));
+
+        statements.assertExactly(0, () -> assertEquals(1,
+                itemRepository.findAnswersByRequestIdIn(List.of(request.getId())).size()));
+
+        var second = itemRepository.save(new Item(null, "Mallet", "Wooden", true, user.getId(),
+                request.getId()));
+        try {
+            assertEquals(2, itemRepository.findAnswersByRequestIdIn(List.of(request.getId())).size());
+        } finally {
+            itemRepository.deleteById(second.getId());
+        }
+    }
+
+    @Test
+    void messageFromAnotherInstanceEvictsCaches(SqlStatements statements) {
+        userRepository.findById(user.getId());
+        itemRepository.findAnswersByRequestIdIn(List.of(request.getId()));
+        userCache.findById(user.getId());
+        assertTrue(entityManagerFactory.getCache().contains(User.class, user.getId()));
+
+        invalidationChannel.publish("User:" + user.getId());
+        invalidationChannel.publish("Item:" + item.getId());
+
+        assertFalse(entityManagerFactory.getCache().contains(User.class, user.getId()));
+        statements.assertExactly(1, () -> userCache.findById(user.getId()));
+        statements.assertExactly(1, () -> itemRepository.findAnswersByRequestIdIn(List.of(request.getId())));
+    }
+}
@@ -0,0 +1,66 @@
+package ru.practicum.shareit;
+
+import lombok.RequiredArgsConstructor;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.common.Constants;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDateTime;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@Transactional
+@AutoConfigureMetrics
+@AutoConfigureMockMvc
+@SpringBootTest
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class MetricsTest {
+    final EntityManager em;
+    final MockMvc mvc;
+    User owner;
+
+    @BeforeEach
+    void loadInitial() {
+        owner = em.merge(new User(null, "Andrej", "witcher@mail.com"));
+        var booker = em.merge(new User(null, "Geralt", "geralt@mail.com"));
+        var item = em.merge(new Item(null, "Hammer", "Heavy", true, owner.getId(), null));
+        var start = LocalDateTime.now().plusDays(1);
+        em.merge(new Booking(null, start, start.plusHours(1), item, booker, BookingStatus.WAITING));
+        em.flush();
+    }
+
+    @SneakyThrows
+    @Test
+    void prometheusExposesRequestRepositoryAndStatementMetrics() {
+        mvc.perform(get("/bookings/owner").header(Constants.USER_HEADER, owner.getId()))
+                .andExpect(status().isOk());
+
+        var scrape = mvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        assertThat(scrape, containsString("http_server_requests_seconds_bucket{exception=\"None\",method=\"GET\"," +
+                "outcome=\"SUCCESS\",status=\"200\",uri=\"/bookings/owner\","));
+        assertThat(scrape, containsString("spring_data_repository_invocations_seconds_bucket{exception=\"None\"," +
+                "method=\"findOwnerBookings\",repository=\"OwnerBookingRepository\","));
+        assertThat(scrape, containsString("http_server_requests_statements_count{method=\"GET\",status=\"200\"," +
+                "uri=\"/bookings/owner\",} 1.0"));
+    }
+}
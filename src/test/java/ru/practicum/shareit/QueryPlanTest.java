@@ -0,0 +1,220 @@
+package ru.practicum.shareit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.booking.ArchivedBookingRepository;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.BookingRepositoryCustom;
+import ru.practicum.shareit.booking.OwnerBookingRepository;
+import ru.practicum.shareit.booking.OwnerBookingRepositoryCustom;
+import ru.practicum.shareit.booking.model.BookingStates;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.common.StatementCounter;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.item.comment.CommentRepository;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.outbox.OutboxRepository;
+import ru.practicum.shareit.request.ItemRequestRepository;
+import ru.practicum.shareit.user.UserRepository;
+
+import javax.persistence.EntityManager;
+import java.lang.reflect.Method;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Планы запросов репозиториев. Каждый метод вызывается, а SQL, который для него подготовил Hibernate,
+ * перехватывает {@link StatementCounter}; планы строятся по этому SQL с параметрами. При добавлении метода
+ * в репозиторий сюда нужно добавить его вызов.
+ */
+@DataJpaTest
+@Import(StatementCounter.class)
+public class QueryPlanTest {
+    private static final LocalDateTime NOW = LocalDateTime.now();
+    private static final Pageable PAGE = PageRequest.of(2, 10);
+    private static final Map<String, Consumer<QueryPlanTest>> QUERIES = new LinkedHashMap<>();
+    // пересборка модели owner_bookings читает и перезаписывает таблицы целиком
+    private static final Set<String> FULL_SCAN_ALLOWED = Set.of("OwnerBookingRepository.deleteAllRows",
+            "OwnerBookingRepository.insertFromBookings");
+
+    static {
+        QUERIES.put("BookingRepository.streamAllByBookerId",
+                test -> test.bookingRepository.streamAllByBookerId(1L).close());
+        QUERIES.put("BookingRepository.findAllByBookerIdOrderByStartDateDesc",
+                test -> test.bookingRepository.findAllByBookerIdOrderByStartDateDesc(1L, PAGE));
+        QUERIES.put("BookingRepository.findAllByBookerIdAndStartDateBeforeAndEndDateAfterOrderByStartDateDesc",
+                test -> test.bookingRepository.findAllByBookerIdAndStartDateBeforeAndEndDateAfterOrderByStartDateDesc(
+                        1L, NOW, NOW, PAGE));
+        QUERIES.put("BookingRepository.findAllByBookerIdAndEndDateBeforeOrderByStartDateDesc",
+                test -> test.bookingRepository.findAllByBookerIdAndEndDateBeforeOrderByStartDateDesc(1L, NOW, PAGE));
+        QUERIES.put("BookingRepository.findAllByBookerIdAndStartDateAfterOrderByStartDateDesc",
+                test -> test.bookingRepository.findAllByBookerIdAndStartDateAfterOrderByStartDateDesc(1L, NOW, PAGE));
+        QUERIES.put("BookingRepository.findAllByBookerIdAndStatusOrderByStartDateDesc",
+                test -> test.bookingRepository.findAllByBookerIdAndStatusOrderByStartDateDesc(1L,
+                        BookingStatus.WAITING, PAGE));
+        QUERIES.put("BookingRepository.findLastBookings",
+                test -> test.bookingRepository.findLastBookings(List.of(1L, 2L), NOW, BookingStatus.REJECTED));
+        QUERIES.put("BookingRepository.findNextBookings",
+                test -> test.bookingRepository.findNextBookings(List.of(1L, 2L), NOW, BookingStatus.REJECTED));
+        QUERIES.put("BookingRepository.findIntervalsByItemId",
+                test -> test.bookingRepository.findIntervalsByItemId(1L, BookingStatus.REJECTED));
+        QUERIES.put("BookingRepository.findIntervalsByItemIdBetween",
+                test -> test.bookingRepository.findIntervalsByItemIdBetween(1L,
+                        List.of(BookingStatus.WAITING, BookingStatus.APPROVED), NOW, NOW.plusDays(1)));
+        QUERIES.put("BookingRepository.existsByBookerIdAndItemIdAndEndDateBeforeAndStatus",
+                test -> test.bookingRepository.existsByBookerIdAndItemIdAndEndDateBeforeAndStatus(1L, 1L, NOW,
+                        BookingStatus.APPROVED));
+        QUERIES.put("BookingRepository.findWithItemAndBookerById",
+                test -> test.bookingRepository.findWithItemAndBookerById(1L));
+        QUERIES.put("BookingRepository.findIdsToArchive",
+                test -> test.bookingRepository.findIdsToArchive(NOW, 500));
+        QUERIES.put("BookingRepositoryCustom.findBookerBookingsAfter",
+                test -> test.bookingRepository.findBookerBookingsAfter(1L, BookingStates.ALL, NOW, NOW, 5L, 11));
+
+        QUERIES.put("OwnerBookingRepositoryCustom.findOwnerBookings",
+                test -> test.ownerBookingRepository.findOwnerBookings(1L, BookingStates.PAST, NOW, PAGE));
+        QUERIES.put("OwnerBookingRepositoryCustom.findOwnerBookingsAfter",
+                test -> test.ownerBookingRepository.findOwnerBookingsAfter(1L, BookingStates.WAITING, NOW, NOW, 5L,
+                        11));
+        QUERIES.put("OwnerBookingRepository.updateStatus",
+                test -> test.ownerBookingRepository.updateStatus(1L, BookingStatus.APPROVED));
+        QUERIES.put("OwnerBookingRepository.updateItemName",
+                test -> test.ownerBookingRepository.updateItemName(1L, "Hammer"));
+        QUERIES.put("OwnerBookingRepository.updateBookerName",
+                test -> test.ownerBookingRepository.updateBookerName(1L, "Geralt"));
+
+        QUERIES.put("ArchivedBookingRepository.findBookerBookings",
+                test -> test.archivedBookingRepository.findBookerBookings(1L, PAGE));
+        QUERIES.put("ArchivedBookingRepository.findBookerBookingsAfter",
+                test -> test.archivedBookingRepository.findBookerBookingsAfter(1L, NOW, 5L, PageRequest.of(0, 11)));
+        QUERIES.put("ArchivedBookingRepository.findOwnerBookings",
+                test -> test.archivedBookingRepository.findOwnerBookings(1L, PAGE));
+        QUERIES.put("ArchivedBookingRepository.findOwnerBookingsAfter",
+                test -> test.archivedBookingRepository.findOwnerBookingsAfter(1L, NOW, 5L, PageRequest.of(0, 11)));
+        QUERIES.put("ArchivedBookingRepository.existsByBookerIdAndItemIdAndStatus",
+                test -> test.archivedBookingRepository.existsByBookerIdAndItemIdAndStatus(1L, 1L,
+                        BookingStatus.APPROVED));
+        QUERIES.put("ArchivedBookingRepository.copyFromBookings",
+                test -> test.archivedBookingRepository.copyFromBookings(List.of(1L, 2L)));
+
+        QUERIES.put("ItemRepository.findItemsByOwnerIdOrderById",
+                test -> test.itemRepository.findItemsByOwnerIdOrderById(1L, PAGE));
+        QUERIES.put("ItemRepository.findItemsByOwnerIdAndIdGreaterThanOrderById",
+                test -> test.itemRepository.findItemsByOwnerIdAndIdGreaterThanOrderById(1L, 5L, PageRequest.of(0, 11)));
+        QUERIES.put("ItemRepository.streamAllByOwnerId",
+                test -> test.itemRepository.streamAllByOwnerId(1L).close());
+        QUERIES.put("ItemRepository.findAnswersByRequestIdIn",
+                test -> test.itemRepository.findAnswersByRequestIdIn(List.of(1L, 2L)));
+        QUERIES.put("ItemRepository.findAllByIdInOrderById",
+                test -> test.itemRepository.findAllByIdInOrderById(List.of(1L, 2L)));
+        QUERIES.put("ItemRepository.findIdsByNextBookingStartBefore",
+                test -> test.itemRepository.findIdsByNextBookingStartBefore(NOW, PageRequest.of(0, 500)));
+        QUERIES.put("ItemRepository.findAllByIsAvailableTrueAndIdGreaterThanOrderById",
+                test -> test.itemRepository.findAllByIsAvailableTrueAndIdGreaterThanOrderById(5L,
+                        PageRequest.of(0, 1000)));
+
+        QUERIES.put("CommentRepository.findAllByItem",
+                test -> test.commentRepository.findAllByItem(test.em.getReference(Item.class, 1L)));
+        QUERIES.put("CommentRepository.findAllByItemIdIn",
+                test -> test.commentRepository.findAllByItemIdIn(List.of(1L, 2L)));
+
+        QUERIES.put("ItemRequestRepository.findAllByUserIdOrderByCreatedDesc",
+                test -> test.itemRequestRepository.findAllByUserIdOrderByCreatedDesc(PAGE, 1L));
+        QUERIES.put("ItemRequestRepository.findAllByUserIdNotOrderByCreatedDesc",
+                test -> test.itemRequestRepository.findAllByUserIdNotOrderByCreatedDesc(PAGE, 1L));
+
+        QUERIES.put("OutboxRepository.findBatch", test -> test.outboxRepository.findBatch(100));
+        QUERIES.put("OutboxRepository.incrementAttempts",
+                test -> test.outboxRepository.incrementAttempts(List.of(1L, 2L)));
+        QUERIES.put("OutboxRepository.markFailed",
+                test -> test.outboxRepository.markFailed(List.of(1L, 2L), 20, LocalDateTime.now()));
+        QUERIES.put("OutboxRepository.countByFailedIsNull", test -> test.outboxRepository.countByFailedIsNull());
+        QUERIES.put("OutboxRepository.countByFailedIsNotNull",
+                test -> test.outboxRepository.countByFailedIsNotNull());
+        QUERIES.put("OutboxRepository.findOldestCreated", test -> test.outboxRepository.findOldestCreated());
+
+        QUERIES.put("UserRepository.findAllByIdGreaterThanOrderById",
+                test -> test.userRepository.findAllByIdGreaterThanOrderById(5L, PageRequest.of(0, 11)));
+        QUERIES.put("UserRepository.deleteByIdAndReturnCount",
+                test -> test.userRepository.deleteByIdAndReturnCount(1L));
+    }
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    @Autowired
+    EntityManager em;
+    @Autowired
+    StatementCounter statementCounter;
+    @Autowired
+    BookingRepository bookingRepository;
+    @Autowired
+    OwnerBookingRepository ownerBookingRepository;
+    @Autowired
+    ArchivedBookingRepository archivedBookingRepository;
+    @Autowired
+    ItemRepository itemRepository;
+    @Autowired
+    CommentRepository commentRepository;
+    @Autowired
+    ItemRequestRepository itemRequestRepository;
+    @Autowired
+    OutboxRepository outboxRepository;
+    @Autowired
+    UserRepository userRepository;
+
+    static Stream<String> queries() {
+        return QUERIES.keySet().stream();
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("queries")
+    void testQueryDoesNotScanWholeTable(String method) {
+        List<String> statements;
+        statementCounter.startRecording();
+        try {
+            QUERIES.get(method).accept(this);
+        } finally {
+            statements = statementCounter.stopRecording();
+        }
+
+        assertFalse(statements.isEmpty(), () -> method + " не выполнил ни одного запроса");
+        for (String sql : statements) {
+            var plan = jdbcTemplate.query(connection -> connection.prepareStatement("explain " + sql),
+                    (resultSet, rowNum) -> resultSet.getString(1)).get(0);
+            assertFalse(plan.contains(".tableScan"), () -> method + " читает таблицу целиком:\n" + plan);
+        }
+    }
+
+    @Test
+    void testEveryRepositoryQueryHasPlan() {
+        var methods = Stream.of(BookingRepository.class, BookingRepositoryCustom.class,
+                        OwnerBookingRepository.class, OwnerBookingRepositoryCustom.class,
+                        ArchivedBookingRepository.class, ItemRepository.class,
+                        CommentRepository.class, ItemRequestRepository.class, OutboxRepository.class,
+                        UserRepository.class)
+                .flatMap(repository -> Arrays.stream(repository.getDeclaredMethods())
+                        .map(Method::getName)
+                        .map(name -> repository.getSimpleName() + "." + name))
+                .filter(name -> !FULL_SCAN_ALLOWED.contains(name))
+                .collect(Collectors.toSet());
+
+        assertEquals(methods, QUERIES.keySet());
+    }
+}
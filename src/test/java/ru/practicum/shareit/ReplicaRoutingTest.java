@@ -0,0 +1,179 @@
+package ru.practicum.shareit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.common.Constants;
+import ru.practicum.shareit.common.ReplicaRouting;
+import ru.practicum.shareit.user.UserCache;
+import ru.practicum.shareit.user.UserRepository;
+
+import javax.persistence.EntityManagerFactory;
+import java.sql.DriverManager;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Две базы H2: основная и реплика, на которую ничего не реплицируется, поэтому по наличию строки видно,
+ * какая из баз ответила.
+ */
+@AutoConfigureMockMvc
+@SpringBootTest(properties = {
+        "spring.datasource.url=" + ReplicaRoutingTest.PRIMARY_URL,
+        "shareit.datasource.replicas.urls=" + ReplicaRoutingTest.REPLICA_URL,
+        "shareit.datasource.replicas.migrate=true",
+        "shareit.datasource.replicas.max-staleness=1h"})
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class ReplicaRoutingTest {
+    static final String PRIMARY_URL = "jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1";
+    static final String REPLICA_URL = "jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1";
+
+    final MockMvc mvc;
+    final ObjectMapper objectMapper;
+    final EntityManagerFactory entityManagerFactory;
+    final UserCache userCache;
+    final UserRepository userRepository;
+    final PlatformTransactionManager transactionManager;
+
+    @SneakyThrows
+    @Test
+    void readOnlyRequestGoesToReplica() {
+        try (var connection = DriverManager.getConnection(REPLICA_URL, "test", "test")) {
+            connection.createStatement().executeUpdate("insert into users (id, name, email) " +
+                    "values (100000, 'Replica', 'replica@mail.com')");
+        }
+
+        mvc.perform(get("/users/{userId}", 100000))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Replica"));
+    }
+
+    @SneakyThrows
+    @Test
+    void bookingAndRequestListsAreReadFromReplica() {
+        var ownerId = id(mvc.perform(post("/users")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\": \"Owner\", \"email\": \"list-owner@mail.com\"}")));
+        var bookerId = id(mvc.perform(post("/users")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\": \"Booker\", \"email\": \"list-booker@mail.com\"}")));
+        onReplica("insert into users (id, name, email) values (" + ownerId + ", 'Owner', 'list-owner@mail.com')",
+                "insert into users (id, name, email) values (" + bookerId + ", 'Booker', 'list-booker@mail.com')",
+                "insert into items (id, name, description, is_available, owner_id) " +
+                        "values (200000, 'Replica hammer', 'Heavy', true, " + ownerId + ")",
+                "insert into bookings (id, start_date, end_date, item_id, booker_id, status) " +
+                        "values (200000, localtimestamp + interval '1' day, localtimestamp + interval '2' day, " +
+                        "200000, " + bookerId + ", 'WAITING')",
+                "insert into owner_bookings (booking_id, owner_id, item_id, item_name, booker_id, booker_name, " +
+                        "start_date, end_date, status) select b.id, " + ownerId + ", b.item_id, 'Replica hammer', " +
+                        "b.booker_id, 'Booker', b.start_date, b.end_date, b.status from bookings b where b.id = 200000",
+                "insert into requests (id, description, requestor_id, created) " +
+                        "values (200000, 'Replica request', " + ownerId + ", localtimestamp)");
+
+        mvc.perform(get("/bookings").header(Constants.USER_HEADER, bookerId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(200000));
+        mvc.perform(get("/bookings/owner").header(Constants.USER_HEADER, ownerId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(200000));
+        mvc.perform(get("/requests/all").header(Constants.USER_HEADER, bookerId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].description").value("Replica request"));
+    }
+
+    /**
+     * Так выполняется запрос GET: сервис читает список с реплики в транзакции только для чтения, а кэш пользователей
+     * затем загружает пользователя, которого ещё нет в кэше.
+     */
+    @SneakyThrows
+    @Test
+    void primaryReadAfterReplicaReadInSameTransaction() {
+        try (var connection = DriverManager.getConnection(PRIMARY_URL, "test", "test")) {
+            connection.createStatement().executeUpdate("insert into users (id, name, email) " +
+                    "values (300000, 'Primary', 'primary-read@mail.com')");
+        }
+        onReplica("insert into users (id, name, email) values (300000, 'Replica', 'primary-read@mail.com')");
+        var transactions = new TransactionTemplate(transactionManager);
+        transactions.setReadOnly(true);
+
+        ReplicaRouting.allowReplica();
+        try {
+            var names = transactions.execute(status -> List.of(
+                    userRepository.findAllByIdGreaterThanOrderById(299999L, PageRequest.of(0, 1)).get(0).getName(),
+                    userCache.findById(300000L).orElseThrow().getName()));
+
+            assertEquals(List.of("Replica", "Primary"), names);
+        } finally {
+            ReplicaRouting.clear();
+        }
+    }
+
+    @SneakyThrows
+    @Test
+    void searchReadsItemsFromReplica() {
+        var ownerId = id(mvc.perform(post("/users")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\": \"Owner\", \"email\": \"search-owner@mail.com\"}")));
+        var itemId = id(mvc.perform(post("/items")
+                .header(Constants.USER_HEADER, ownerId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\": \"Anvil\", \"description\": \"Heavy\", \"available\": true}")));
+        onReplica("insert into users (id, name, email) values (" + ownerId + ", 'Owner', 'search-owner@mail.com')",
+                "insert into items (id, name, description, is_available, owner_id) " +
+                        "values (" + itemId + ", 'Anvil', 'Replica anvil', true, " + ownerId + ")");
+        entityManagerFactory.getCache().evictAll();
+
+        mvc.perform(get("/items/search").param("text", "anvil"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].description").value("Replica anvil"));
+    }
+
+    @SneakyThrows
+    @Test
+    void writerReadsOwnWritesFromPrimary() {
+        var ownerId = id(mvc.perform(post("/users")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\": \"Andrej\", \"email\": \"witcher@mail.com\"}")));
+        var itemId = id(mvc.perform(post("/items")
+                .header(Constants.USER_HEADER, ownerId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\": \"Hammer\", \"description\": \"Heavy\", \"available\": true}")));
+
+        mvc.perform(get("/items/{itemId}", itemId).header(Constants.USER_HEADER, ownerId))
+                .andExpect(status().isOk());
+        // вещь уже в кэше второго уровня, без сброса чтение до реплики не дойдёт
+        entityManagerFactory.getCache().evictAll();
+        mvc.perform(get("/items/{itemId}", itemId).header(Constants.USER_HEADER, ownerId + 1))
+                .andExpect(status().isNotFound());
+    }
+
+    @SneakyThrows
+    private static void onReplica(String... statements) {
+        try (var connection = DriverManager.getConnection(REPLICA_URL, "test", "test")) {
+            for (String statement : statements) {
+                connection.createStatement().executeUpdate(statement);
+            }
+        }
+    }
+
+    @SneakyThrows
+    private long id(ResultActions result) {
+        var body = result.andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body).get("id").asLong();
+    }
+}
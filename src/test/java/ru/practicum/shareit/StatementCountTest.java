@@ -0,0 +1,290 @@
+package ru.practicum.shareit;
+
+import lombok.RequiredArgsConstructor;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.common.Constants;
+import ru.practicum.shareit.common.SqlStatements;
+import ru.practicum.shareit.common.SqlStatementsExtension;
+import ru.practicum.shareit.item.comment.model.Comment;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.user.model.User;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Верхние границы числа SQL-запросов на вызов каждого эндпоинта. В данных несколько вещей, бронирований, отзывов
+ * и запросов с ответами, а границы от их количества не зависят, поэтому выборка связанных сущностей по одной (N+1)
+ * или новое ленивое обращение превысит границу и уронит тест.
+ */
+@Transactional
+@AutoConfigureMockMvc
+@SpringBootTest
+@ExtendWith(SqlStatementsExtension.class)
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class StatementCountTest {
+    private static final int ITEMS = 5;
+
+    final EntityManager em;
+    final MockMvc mvc;
+    User owner;
+    User booker;
+    List<Item> items = new ArrayList<>();
+    List<Booking> bookings = new ArrayList<>();
+    List<ItemRequest> requests = new ArrayList<>();
+    LocalDateTime now;
+
+    @BeforeEach
+    void loadInitial() {
+        owner = em.merge(new User(null, "Andrej", "witcher@mail.com"));
+        booker = em.merge(new User(null, "Geralt", "geralt@mail.com"));
+        now = LocalDateTime.now();
+        for (int i = 0; i < ITEMS; i++) {
+            var request = em.merge(new ItemRequest(null, "Need a tool " + i, booker, now.minusDays(10 + i)));
+            requests.add(request);
+            var item = em.merge(new Item(null, "Drill " + i, "Cordless", true, owner.getId(), request.getId()));
+            items.add(item);
+            for (int j = 1; j <= 2; j++) {
+                bookings.add(em.merge(new Booking(null, now.minusDays(j * 2L), now.minusDays(j * 2L - 1), item,
+                        booker, BookingStatus.APPROVED)));
+                bookings.add(em.merge(new Booking(null, now.plusDays(j * 2L), now.plusDays(j * 2L + 1), item,
+                        booker, BookingStatus.WAITING)));
+                em.merge(new Comment(null, "Good " + j, item, booker, now.minusDays(1)));
+            }
+        }
+    }
+
+    @Test
+    void getAllUsers(SqlStatements statements) {
+        statements.assertAtMost(1, () -> perform(get("/users")));
+    }
+
+    @Test
+    void getUser(SqlStatements statements) {
+        statements.assertAtMost(1, () -> perform(get("/users/{userId}", owner.getId())));
+    }
+
+    @Test
+    void createUser(SqlStatements statements) {
+        statements.assertAtMost(1, () -> perform(post("/users")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\": \"Ciri\", \"email\": \"ciri@mail.com\"}")));
+    }
+
+    @Test
+    void updateUser(SqlStatements statements) {
+        // новое имя переносится в строки owner_bookings арендатора
+        statements.assertAtMost(3, () -> perform(patch("/users/{userId}", owner.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\": \"Vesemir\"}")));
+    }
+
+    @Test
+    void createBooking(SqlStatements statements) {
+        // пересчёт указателей вещи: блокировка, последнее и следующее бронирование, обновление вещи;
+        // строка owner_bookings
+        statements.assertAtMost(9, () -> perform(post("/bookings")
+                .header(Constants.USER_HEADER, booker.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(String.format("{\"itemId\": %s, \"start\": \"%s\", \"end\": \"%s\"}", items.get(0).getId(),
+                        now.plusDays(20).withNano(0), now.plusDays(21).withNano(0)))));
+    }
+
+    @Test
+    void createBookings(SqlStatements statements) {
+        var body = new StringBuilder("[");
+        for (int i = 0; i < ITEMS; i++) {
+            body.append(i == 0 ? "" : ",").append(String.format("{\"itemId\": %s, \"start\": \"%s\", \"end\": \"%s\"}",
+                    items.get(i).getId(), now.plusDays(20).withNano(0), now.plusDays(21).withNano(0)));
+        }
+        // интервалы бронирований каждой вещи, ещё не попавшей в индекс, читаются отдельным запросом;
+        // указатели всех вещей пакета пересчитываются четырьмя запросами, строки owner_bookings вставляются пакетом
+        statements.assertAtMost(8 + ITEMS, () -> perform(post("/bookings/batch")
+                .header(Constants.USER_HEADER, booker.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body.append("]").toString())));
+    }
+
+    @Test
+    void getBooking(SqlStatements statements) {
+        // пользователь и бронирование вместе с вещью и арендатором
+        statements.assertAtMost(2, () -> perform(get("/bookings/{bookingId}", bookings.get(0).getId())
+                .header(Constants.USER_HEADER, booker.getId())));
+    }
+
+    @Test
+    void approveBooking(SqlStatements statements) {
+        // пользователь, бронирование с вещью и арендатором, обновление статуса; блокировка вещи,
+        // последнее и следующее бронирование, обновление указателей; статус в owner_bookings
+        statements.assertAtMost(8, () -> perform(patch("/bookings/{bookingId}", bookings.get(1).getId())
+                .param("approved", "true")
+                .header(Constants.USER_HEADER, owner.getId())));
+    }
+
+    @Test
+    void getAllBookings(SqlStatements statements) {
+        statements.assertAtMost(2, () -> perform(get("/bookings").header(Constants.USER_HEADER, booker.getId())));
+    }
+
+    @Test
+    void getAllBookingsWithCachedUser(SqlStatements statements) {
+        perform(get("/bookings").header(Constants.USER_HEADER, booker.getId()));
+
+        // пользователь берётся из кэша, остаётся только выборка списка
+        statements.assertExactly(1, () -> perform(get("/bookings").header(Constants.USER_HEADER, booker.getId())));
+    }
+
+    @Test
+    void getAllBookingsAfterCursor(SqlStatements statements) {
+        statements.assertAtMost(2, () -> perform(get("/bookings")
+                .param("cursor", "")
+                .param("size", "3")
+                .header(Constants.USER_HEADER, booker.getId())));
+    }
+
+    @Test
+    void exportBookings(SqlStatements statements) {
+        // пользователь и один поток строк независимо от размера истории
+        statements.assertAtMost(2, () -> perform(get("/bookings/export")
+                .header(Constants.USER_HEADER, booker.getId())));
+    }
+
+    @Test
+    void getAllItemBookings(SqlStatements statements) {
+        // страница неполная, поэтому список дочитывается из архива
+        statements.assertAtMost(3, () -> perform(get("/bookings/owner")
+                .header(Constants.USER_HEADER, owner.getId())));
+    }
+
+    @Test
+    void addItem(SqlStatements statements) {
+        statements.assertAtMost(2, () -> perform(post("/items")
+                .header(Constants.USER_HEADER, owner.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\": \"Saw\", \"description\": \"Sharp\", \"available\": true}")));
+    }
+
+    @Test
+    void editItem(SqlStatements statements) {
+        // новое название переносится в строки owner_bookings вещи
+        statements.assertAtMost(5, () -> perform(patch("/items/{itemId}", items.get(0).getId())
+                .header(Constants.USER_HEADER, owner.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\": \"Hammer drill\"}")));
+    }
+
+    @Test
+    void showItemInfo(SqlStatements statements) {
+        // вещь и отзывы с авторами, бронирования берутся из указателей вещи
+        statements.assertAtMost(2, () -> perform(get("/items/{itemId}", items.get(0).getId())
+                .header(Constants.USER_HEADER, owner.getId())));
+    }
+
+    @Test
+    void findAllMyItems(SqlStatements statements) {
+        // пользователь, вещи, отзывы всех вещей; бронирования берутся из указателей вещей
+        statements.assertAtMost(3, () -> perform(get("/items").header(Constants.USER_HEADER, owner.getId())));
+    }
+
+    @Test
+    void findAllMyItemsAfterCursor(SqlStatements statements) {
+        statements.assertAtMost(3, () -> perform(get("/items")
+                .param("cursor", "")
+                .param("size", "3")
+                .header(Constants.USER_HEADER, owner.getId())));
+    }
+
+    @Test
+    void exportMyItems(SqlStatements statements) {
+        statements.assertAtMost(2, () -> perform(get("/items/export").header(Constants.USER_HEADER, owner.getId())));
+    }
+
+    @Test
+    void search(SqlStatements statements) {
+        // поиск идёт по индексу в памяти, найденные вещи загружаются одним запросом
+        statements.assertAtMost(1, () -> perform(get("/items/search").param("text", "drill")));
+    }
+
+    @Test
+    void getAvailability(SqlStatements statements) {
+        statements.assertAtMost(2, () -> perform(get("/items/{itemId}/availability", items.get(0).getId())
+                .header(Constants.USER_HEADER, owner.getId())
+                .param("from", now.minusDays(30).withNano(0).toString())
+                .param("to", now.plusDays(30).withNano(0).toString())));
+    }
+
+    @Test
+    void findNextFreeSlot(SqlStatements statements) {
+        statements.assertAtMost(2, () -> perform(get("/items/{itemId}/availability/next", items.get(0).getId())
+                .header(Constants.USER_HEADER, owner.getId())
+                .param("from", now.withNano(0).toString())
+                .param("duration", "P1D")));
+    }
+
+    @Test
+    void postComment(SqlStatements statements) {
+        // вещь, пользователь, проверка бронирования и вставка отзыва, id берётся из уже выделенного блока
+        statements.assertAtMost(4, () -> perform(post("/items/{itemId}/comment", items.get(0).getId())
+                .header(Constants.USER_HEADER, booker.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"text\": \"Great\"}")));
+    }
+
+    @Test
+    void addRequest(SqlStatements statements) {
+        statements.assertAtMost(2, () -> perform(post("/requests")
+                .header(Constants.USER_HEADER, owner.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"description\": \"Need a ladder\"}")));
+    }
+
+    @Test
+    void getMyRequests(SqlStatements statements) {
+        // пользователь, страница запросов и ответы на все запросы страницы
+        statements.assertAtMost(3, () -> perform(get("/requests").header(Constants.USER_HEADER, booker.getId())));
+    }
+
+    @Test
+    void getRequest(SqlStatements statements) {
+        statements.assertAtMost(3, () -> perform(get("/requests/{requestId}", requests.get(0).getId())
+                .header(Constants.USER_HEADER, owner.getId())));
+    }
+
+    @Test
+    void getAllRequests(SqlStatements statements) {
+        statements.assertAtMost(3, () -> perform(get("/requests/all").header(Constants.USER_HEADER, owner.getId())));
+    }
+
+    @Test
+    void deleteUser(SqlStatements statements) {
+        var stranger = em.merge(new User(null, "Lambert", "lambert@mail.com"));
+
+        statements.assertAtMost(1, () -> perform(delete("/users/{userId}", stranger.getId())));
+    }
+
+    @SneakyThrows
+    private void perform(RequestBuilder request) {
+        mvc.perform(request).andExpect(status().isOk());
+    }
+}
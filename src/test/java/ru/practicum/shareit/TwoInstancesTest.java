@@ -0,0 +1,104 @@
+package ru.practicum.shareit;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import ru.practicum.shareit.booking.BookingService;
+import ru.practicum.shareit.booking.dto.BookingDtoRequest;
+import ru.practicum.shareit.common.InvalidationChannel;
+import ru.practicum.shareit.common.LocalInvalidationChannel;
+import ru.practicum.shareit.exceptions.ItemNotAvailable;
+import ru.practicum.shareit.item.ItemService;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.user.UserService;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Два экземпляра приложения над одной базой H2. Канал сброса кэшей общий, как LISTEN/NOTIFY в PostgreSQL:
+ * изменения, сделанные на первом экземпляре, должны стать видны в кэшах и индексах второго.
+ */
+public class TwoInstancesTest {
+    static ConfigurableApplicationContext first;
+    static ConfigurableApplicationContext second;
+
+    @BeforeAll
+    static void startInstances() {
+        first = startInstance();
+        second = startInstance();
+    }
+
+    @AfterAll
+    static void stop() {
+        second.close();
+        first.close();
+    }
+
+    @Test
+    void searchSeesItemChangedOnAnotherInstance() {
+        var owner = first.getBean(UserService.class).createUser(new User(null, "Andrej", "search-two@mail.com"));
+        var item = first.getBean(ItemService.class).addItem(owner.getId(), new ItemDto(null, "Hammer", "Heavy",
+                true, null, null, null, null));
+
+        assertEquals(List.of(item.getId()), search(second, "hammer"));
+        assertEquals(List.of(), search(second, "drill"));
+
+        first.getBean(ItemService.class).editItem(owner.getId(), item.getId(), new ItemDto(null, "Drill", null,
+                null, null, null, null, null));
+
+        assertEquals(List.of(), search(second, "hammer"));
+        assertEquals(List.of(item.getId()), search(second, "drill"));
+    }
+
+    @Test
+    void bookingOnAnotherInstanceBlocksOverlap() {
+        var users = first.getBean(UserService.class);
+        var owner = users.createUser(new User(null, "Andrej", "owner-two@mail.com"));
+        var booker = users.createUser(new User(null, "Geralt", "booker-two@mail.com"));
+        var item = first.getBean(ItemService.class).addItem(owner.getId(), new ItemDto(null, "Ladder", "Tall",
+                true, null, null, null, null));
+        var start = LocalDateTime.now().plusDays(1);
+        var request = new BookingDtoRequest(item.getId(), start, start.plusDays(1));
+        // второй экземпляр уже загрузил бронирования вещи
+        var secondBookings = second.getBean(BookingService.class);
+        secondBookings.createBooking(booker.getId(), new BookingDtoRequest(item.getId(), start.plusDays(5),
+                start.plusDays(6)));
+
+        first.getBean(BookingService.class).createBooking(booker.getId(), request);
+
+        assertThrows(ItemNotAvailable.class, () -> secondBookings.createBooking(booker.getId(), request));
+    }
+
+    private static List<Long> search(ConfigurableApplicationContext context, String text) {
+        return context.getBean(ItemService.class).search(text, 0, 10).stream().map(ItemDto::getId)
+                .collect(Collectors.toList());
+    }
+
+    private static ConfigurableApplicationContext startInstance() {
+        return new SpringApplicationBuilder(ShareItApp.class, SharedChannelConfig.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:two-instances;DB_CLOSE_DELAY=-1",
+                        "--shareit.cache.invalidation=shared");
+    }
+
+    @TestConfiguration
+    static class SharedChannelConfig {
+        static final LocalInvalidationChannel CHANNEL = new LocalInvalidationChannel();
+
+        @Bean
+        InvalidationChannel sharedInvalidationChannel() {
+            return CHANNEL;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package ru.practicum.shareit.booking;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.dto.BookingDtoResponse;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.common.CursorPage;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Transactional
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class BookingArchiverTest {
+    private static final List<String> STATES = List.of("ALL", "PAST", "FUTURE", "WAITING");
+
+    final EntityManager em;
+    final BookingService bookingService;
+    final BookingArchiver bookingArchiver;
+    final BookingRepository bookingRepository;
+    final ArchivedBookingRepository archivedBookingRepository;
+    final ItemBookingPointers itemBookingPointers;
+    final OwnerBookingProjection ownerBookingProjection;
+    User owner;
+    User booker;
+    Item hammer;
+    Item drill;
+    Booking onlyDrillBooking;
+    LocalDateTime now;
+
+    @BeforeEach
+    void loadInitial() {
+        owner = em.merge(new User(null, "Andrej", "witcher@mail.com"));
+        booker = em.merge(new User(null, "Geralt", "geralt@mail.com"));
+        hammer = em.merge(new Item(null, "Hammer", "Heavy", true, owner.getId(), null));
+        drill = em.merge(new Item(null, "Drill", "Loud", true, owner.getId(), null));
+        now = LocalDateTime.now().withNano(0);
+        for (int i = 1; i <= 3; i++) {
+            em.merge(new Booking(null, now.minusYears(i + 1), now.minusYears(i + 1).plusDays(1), hammer, booker,
+                    BookingStatus.APPROVED));
+            em.merge(new Booking(null, now.minusDays(i * 10L), now.minusDays(i * 10L - 1), hammer, booker,
+                    BookingStatus.APPROVED));
+            em.merge(new Booking(null, now.plusDays(i * 10L), now.plusDays(i * 10L + 1), hammer, booker,
+                    BookingStatus.WAITING));
+        }
+        // последнее бронирование дрели давно закончилось, но на него указывает вещь
+        onlyDrillBooking = em.merge(new Booking(null, now.minusYears(5), now.minusYears(5).plusDays(1), drill,
+                booker, BookingStatus.APPROVED));
+        em.flush();
+        itemBookingPointers.refresh(List.of(hammer.getId(), drill.getId()), LocalDateTime.now());
+        em.flush();
+        ownerBookingProjection.rebuild();
+        em.clear();
+    }
+
+    @Test
+    void oldBookingsAreMovedExceptItemLastBooking() {
+        bookingArchiver.archive();
+        em.clear();
+
+        assertEquals(3, archivedBookingRepository.count());
+        assertEquals(7, bookingRepository.count());
+        assertTrue(bookingRepository.existsById(onlyDrillBooking.getId()));
+    }
+
+    @Test
+    void listsAreTheSameAfterArchiving() {
+        var before = new HashMap<String, List<BookingDtoResponse>>();
+        collectPages(before);
+
+        bookingArchiver.archive();
+        em.clear();
+
+        var after = new HashMap<String, List<BookingDtoResponse>>();
+        collectPages(after);
+        assertEquals(before, after);
+    }
+
+    private void collectPages(Map<String, List<BookingDtoResponse>> pages) {
+        for (String state : STATES) {
+            for (int size : List.of(1, 2, 4, 20)) {
+                for (int from = 0; from < 12; from += size == 4 ? 3 : size) {
+                    pages.put("booker " + state + " " + from + "/" + size,
+                            bookingService.getAllBookings(booker.getId(), state, from, size));
+                    pages.put("owner " + state + " " + from + "/" + size,
+                            bookingService.getAllItemBookings(owner.getId(), state, from, size));
+                }
+                pages.put("booker after " + state + " " + size, walk(size,
+                        (cursor, limit) -> bookingService.getAllBookingsAfter(booker.getId(), state, cursor, limit)));
+                pages.put("owner after " + state + " " + size, walk(size,
+                        (cursor, limit) -> bookingService.getAllItemBookingsAfter(owner.getId(), state, cursor,
+                                limit)));
+            }
+        }
+    }
+
+    private List<BookingDtoResponse> walk(int size, BiFunction<String, Integer, CursorPage<BookingDtoResponse>> read) {
+        var all = new ArrayList<BookingDtoResponse>();
+        String cursor = "";
+        do {
+            var page = read.apply(cursor, size);
+            all.addAll(page.getItems());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        return all;
+    }
+}
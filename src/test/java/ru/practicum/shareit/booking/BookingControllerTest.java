@@ -9,24 +9,33 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
 import ru.practicum.shareit.booking.dto.BookingDtoRequest;
 import ru.practicum.shareit.booking.dto.BookingDtoResponse;
 import ru.practicum.shareit.booking.model.BookingStatus;
 import ru.practicum.shareit.common.Constants;
+import ru.practicum.shareit.common.CursorPage;
+import ru.practicum.shareit.common.NdjsonWriter;
 import ru.practicum.shareit.common.Validator;
+import ru.practicum.shareit.exceptions.InvalidBatchException;
 import ru.practicum.shareit.exceptions.InvalidBookingDates;
 import ru.practicum.shareit.exceptions.InvalidPageParamsException;
+import ru.practicum.shareit.exceptions.NotFoundException;
 import ru.practicum.shareit.exceptions.ValidationIdException;
+import ru.practicum.shareit.item.dto.ItemShortDto;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.dto.UserShortDto;
 import ru.practicum.shareit.user.model.User;
 
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(controllers = BookingController.class)
@@ -61,7 +70,8 @@ public class BookingControllerTest {
         item = new Item(2L, "Hammer", "Very big", true, 1L, 1L);
         bookingId = 3L;
         bookingDtoResponse = new BookingDtoResponse(bookingId, bookingDtoRequest.getStart(),
-                bookingDtoRequest.getEnd(), BookingStatus.WAITING, user, item);
+                bookingDtoRequest.getEnd(), BookingStatus.WAITING, new UserShortDto(user.getId(), user.getName()),
+                new ItemShortDto(item.getId(), item.getName()));
         approved = true;
         state = "ALL";
         from = 0;
@@ -87,6 +97,44 @@ public class BookingControllerTest {
         assertEquals(mapper.writeValueAsString(bookingDtoResponse), result);
     }
 
+    @SneakyThrows
+    @Test
+    void testCreateBookingsOk() {
+        var results = List.of(new BookingBatchResultDto(0, bookingDtoResponse, null),
+                new BookingBatchResultDto(1, null, "Вещь с id = 2 уже забронирована"));
+        when(service.createBookings(userId, List.of(bookingDtoRequest, bookingDtoRequest))).thenReturn(results);
+
+        var result = mvc.perform(post("/bookings/batch")
+                        .header(Constants.USER_HEADER, userId)
+                        .content(mapper.writeValueAsString(List.of(bookingDtoRequest, bookingDtoRequest)))
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString(StandardCharsets.UTF_8);
+
+        assertEquals(mapper.writeValueAsString(results), result);
+        verify(validator, times(1)).validateBatchSize(2);
+    }
+
+    @SneakyThrows
+    @Test
+    void testCreateBookingsTooLargeThenReturnBadRequest() {
+        doThrow(new InvalidBatchException("Слишком большой пакет")).when(validator).validateBatchSize(anyInt());
+
+        mvc.perform(post("/bookings/batch")
+                        .header(Constants.USER_HEADER, userId)
+                        .content(mapper.writeValueAsString(List.of(bookingDtoRequest)))
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+
+        verify(service, never()).createBookings(anyLong(), any());
+    }
+
     @SneakyThrows
     @Test
     void testCreateBookingInvalidDatesThrown() {
@@ -244,6 +292,29 @@ public class BookingControllerTest {
         assertEquals(mapper.writeValueAsString(List.of(bookingDtoResponse)), result);
     }
 
+    @SneakyThrows
+    @Test
+    void testGetAllItemBookingsAfterOk() {
+        when(service.getAllItemBookingsAfter(userId, state, "", size))
+                .thenReturn(new CursorPage<>(List.of(bookingDtoResponse), "next"));
+
+        var response = mvc.perform(get("/bookings/owner")
+                        .header(Constants.USER_HEADER, userId)
+                        .param("state", state)
+                        .param("cursor", "")
+                        .param("size", String.valueOf(size))
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse();
+
+        assertEquals(mapper.writeValueAsString(List.of(bookingDtoResponse)), response.getContentAsString());
+        assertEquals("next", response.getHeader(Constants.NEXT_CURSOR_HEADER));
+        assertEquals("true", response.getHeader(Constants.HAS_MORE_HEADER));
+        verify(service, never()).getAllItemBookings(anyLong(), any(), anyInt(), anyInt());
+    }
+
     @SneakyThrows
     @Test
     void testGetAllItemBookingsInvalidParamsThenReturnBadRequest() {
@@ -263,4 +334,39 @@ public class BookingControllerTest {
         verify(validator, times(1)).validatePageParams(from, size);
         verify(service, never()).getAllItemBookings(anyLong(), any(), anyInt(), anyInt());
     }
+
+    @SneakyThrows
+    @Test
+    void testExportBookingsOk() {
+        var another = new BookingDtoResponse(4L, bookingDtoRequest.getStart().plusDays(1),
+                bookingDtoRequest.getEnd().plusDays(1), BookingStatus.APPROVED, bookingDtoResponse.getBooker(),
+                bookingDtoResponse.getItem());
+        doAnswer(invocation -> {
+            Consumer<BookingDtoResponse> consumer = invocation.getArgument(1);
+            consumer.accept(bookingDtoResponse);
+            consumer.accept(another);
+            return null;
+        }).when(service).exportBookings(eq(userId), any());
+
+        var result = mvc.perform(get("/bookings/export")
+                        .header(Constants.USER_HEADER, userId))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(NdjsonWriter.CONTENT_TYPE))
+                .andReturn()
+                .getResponse()
+                .getContentAsString(StandardCharsets.UTF_8);
+
+        assertEquals(mapper.writeValueAsString(bookingDtoResponse) + "\n" + mapper.writeValueAsString(another) + "\n",
+                result);
+    }
+
+    @SneakyThrows
+    @Test
+    void testExportBookingsUserNotExistsNotFound() {
+        doThrow(new NotFoundException("Пользователь не найден")).when(service).exportBookings(eq(userId), any());
+
+        mvc.perform(get("/bookings/export")
+                        .header(Constants.USER_HEADER, userId))
+                .andExpect(status().isNotFound());
+    }
 }
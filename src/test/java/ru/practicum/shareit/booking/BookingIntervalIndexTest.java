@@ -0,0 +1,80 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import ru.practicum.shareit.booking.dto.BookingInterval;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.common.EntityCacheInvalidation;
+import ru.practicum.shareit.common.PrimaryReader;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class BookingIntervalIndexTest {
+    @Mock
+    BookingRepository bookingRepository;
+    @Mock
+    EntityCacheInvalidation entityCacheInvalidation;
+    PrimaryReader primaryReader = new PrimaryReader(mock(PlatformTransactionManager.class),
+            mock(EntityManagerFactory.class));
+    BookingIntervalIndex index;
+    Item item;
+    User booker;
+    LocalDateTime now;
+
+    @BeforeEach
+    void loadInitial() {
+        index = new BookingIntervalIndex(bookingRepository, primaryReader, entityCacheInvalidation, 100);
+        item = new Item(1L, "Hammer", "Very big", true, 2L, null);
+        booker = new User(3L, "John", "john@doe.com");
+        now = LocalDateTime.of(2030, 1, 1, 12, 0);
+    }
+
+    @Test
+    void testLoadsItemOnceOk() {
+        when(bookingRepository.findIntervalsByItemId(item.getId(), BookingStatus.REJECTED)).thenReturn(List.of(
+                new BookingInterval(10L, booker.getId(), now.minusDays(2), now.minusDays(1), BookingStatus.APPROVED),
+                new BookingInterval(11L, booker.getId(), now.plusDays(1), now.plusDays(2), BookingStatus.WAITING)));
+
+        assertEquals(10L, index.findOverlap(item.getId(), now.minusDays(3), now).orElseThrow().getId());
+        assertEquals(11L, index.findOverlap(item.getId(), now.plusDays(1), now.plusDays(3)).orElseThrow().getId());
+        assertTrue(index.findOverlap(item.getId(), now, now.plusHours(1)).isEmpty());
+        verify(bookingRepository, times(1)).findIntervalsByItemId(item.getId(), BookingStatus.REJECTED);
+    }
+
+    @Test
+    void testApplyKeepsLoadedItemInSyncOk() {
+        when(bookingRepository.findIntervalsByItemId(item.getId(), BookingStatus.REJECTED)).thenReturn(List.of());
+        index.findOverlap(item.getId(), now, now.plusHours(1));
+        var booking = new Booking(12L, now.plusDays(1), now.plusDays(2), item, booker, BookingStatus.WAITING);
+
+        index.apply(booking);
+
+        assertEquals(12L, index.findOverlap(item.getId(), now.plusDays(1), now.plusDays(3)).orElseThrow().getId());
+
+        booking.setStatus(BookingStatus.REJECTED);
+        index.apply(booking);
+
+        assertTrue(index.findOverlap(item.getId(), now.plusDays(1), now.plusDays(3)).isEmpty());
+    }
+
+    @Test
+    void testApplyToNotLoadedItemSkippedOk() {
+        index.apply(new Booking(12L, now.plusDays(1), now.plusDays(2), item, booker, BookingStatus.WAITING));
+
+        verify(bookingRepository, never()).findIntervalsByItemId(any(), any());
+    }
+}
@@ -0,0 +1,91 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.booking.dto.BookingInterval;
+import ru.practicum.shareit.booking.model.BookingStatus;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BookingIntervalTreeTest {
+    BookingIntervalTree tree;
+    LocalDateTime now;
+
+    @BeforeEach
+    void loadInitial() {
+        tree = new BookingIntervalTree();
+        now = LocalDateTime.of(2030, 1, 1, 12, 0);
+    }
+
+    @Test
+    void testFindOverlapOk() {
+        tree.put(interval(1L, 0, 2), true);
+        tree.put(interval(2L, 4, 6), true);
+
+        assertEquals(1L, tree.findOverlap(at(1), at(3)).orElseThrow().getId());
+        assertEquals(2L, tree.findOverlap(at(3), at(5)).orElseThrow().getId());
+        assertTrue(tree.findOverlap(at(2), at(4)).isEmpty());
+        assertTrue(tree.findOverlap(at(6), at(8)).isEmpty());
+    }
+
+    @Test
+    void testNotBlockingIntervalIgnoredByOverlapOk() {
+        tree.put(interval(1L, 0, 10), false);
+
+        assertTrue(tree.findOverlap(at(2), at(3)).isEmpty());
+        assertEquals(1, tree.size());
+    }
+
+    @Test
+    void testPutReplacesAndRemoveOk() {
+        tree.put(interval(1L, 0, 2), true);
+        tree.put(interval(1L, 5, 7), true);
+
+        assertEquals(1, tree.size());
+        assertTrue(tree.findOverlap(at(0), at(2)).isEmpty());
+
+        tree.remove(1L);
+
+        assertEquals(0, tree.size());
+        assertTrue(tree.findOverlap(at(5), at(7)).isEmpty());
+    }
+
+    @Test
+    void testMatchesLinearScanOk() {
+        var random = new Random(7);
+        var intervals = new ArrayList<BookingInterval>();
+        for (long id = 1; id <= 500; id++) {
+            int start = random.nextInt(1000);
+            var interval = interval(id, start, start + 1 + random.nextInt(20));
+            intervals.add(interval);
+            tree.put(interval, true);
+            if (id % 3 == 0) {
+                var removed = intervals.remove(random.nextInt(intervals.size()));
+                tree.remove(removed.getId());
+            }
+        }
+
+        for (int i = 0; i < 300; i++) {
+            int start = random.nextInt(1000);
+            var from = at(start);
+            var to = at(start + 1 + random.nextInt(20));
+            boolean expected = intervals.stream()
+                    .anyMatch(interval -> interval.getStartDate().isBefore(to) && interval.getEndDate().isAfter(from));
+            assertEquals(expected, tree.findOverlap(from, to).isPresent());
+        }
+        assertEquals(intervals.size(), tree.size());
+    }
+
+    private BookingInterval interval(Long id, int startHour, int endHour) {
+        return new BookingInterval(id, 1L, at(startHour), at(endHour), BookingStatus.APPROVED);
+    }
+
+    private LocalDateTime at(int hour) {
+        return now.plusHours(hour);
+    }
+}
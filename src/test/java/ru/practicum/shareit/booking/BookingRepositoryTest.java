@@ -6,7 +6,12 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import ru.practicum.shareit.booking.dto.BookingDtoResponse;
+import ru.practicum.shareit.booking.dto.BookingInterval;
+import ru.practicum.shareit.booking.dto.BookingMapper;
+import ru.practicum.shareit.booking.dto.BookingShort;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStates;
 import ru.practicum.shareit.booking.model.BookingStatus;
 import ru.practicum.shareit.item.ItemRepository;
 import ru.practicum.shareit.item.model.Item;
@@ -14,9 +19,13 @@ import ru.practicum.shareit.user.UserRepository;
 import ru.practicum.shareit.user.model.User;
 
 import java.time.LocalDateTime;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @DataJpaTest
@@ -65,12 +74,22 @@ public class BookingRepositoryTest {
         page = PageRequest.of(0, 1);
     }
 
+    @Test
+    void testStreamAllByBookerId() {
+        List<BookingDtoResponse> result;
+        try (var bookings = repository.streamAllByBookerId(user.getId())) {
+            result = bookings.collect(Collectors.toList());
+        }
+
+        assertEquals(toResponses(bookingFutureItem2, bookingCurrentItem2), result);
+    }
+
     @Test
     void testFindAllByBookerIdOrderByStartDateDesc() {
         var result = repository.findAllByBookerIdOrderByStartDateDesc(user.getId(), page);
 
         assertTrue(result.size() == 1);
-        assertEquals(bookingFutureItem2, result.get(0));
+        assertEquals(BookingMapper.toBookingDtoResponse(bookingFutureItem2), result.get(0));
     }
 
     @Test
@@ -79,7 +98,7 @@ public class BookingRepositoryTest {
                 user2.getId(), LocalDateTime.now(), LocalDateTime.now(), page);
 
         assertTrue(result.size() == 1);
-        assertEquals(bookingCurrentNextItem, result.get(0));
+        assertEquals(BookingMapper.toBookingDtoResponse(bookingCurrentNextItem), result.get(0));
     }
 
     @Test
@@ -88,7 +107,7 @@ public class BookingRepositoryTest {
                 user2.getId(), LocalDateTime.now(), page);
 
         assertTrue(result.size() == 1);
-        assertEquals(bookingPastItem, result.get(0));
+        assertEquals(BookingMapper.toBookingDtoResponse(bookingPastItem), result.get(0));
     }
 
     @Test
@@ -97,7 +116,7 @@ public class BookingRepositoryTest {
                 user.getId(), LocalDateTime.now(), page);
 
         assertTrue(result.size() == 1);
-        assertEquals(bookingFutureItem2, result.get(0));
+        assertEquals(BookingMapper.toBookingDtoResponse(bookingFutureItem2), result.get(0));
     }
 
     @Test
@@ -110,92 +129,85 @@ public class BookingRepositoryTest {
                 user2.getId(), BookingStatus.WAITING, page);
 
         assertTrue(resultApproved.size() == 1);
-        assertEquals(bookingFutureItem2, resultApproved.get(0));
+        assertEquals(BookingMapper.toBookingDtoResponse(bookingFutureItem2), resultApproved.get(0));
 
         assertEquals(Collections.emptyList(), resultRejected);
 
         assertTrue(resultWaiting.size() == 1);
-        assertEquals(bookingPastItem, resultWaiting.get(0));
-    }
-
-    @Test
-    void testFindAllByItemOwnerIdOrderByStartDateDesc() {
-        var result = repository.findAllByItemOwnerIdOrderByStartDateDesc(item.getOwnerId(), page);
-
-        assertTrue(result.size() == 1);
-        assertEquals(bookingCurrentNextItem, result.get(0));
+        assertEquals(BookingMapper.toBookingDtoResponse(bookingPastItem), resultWaiting.get(0));
     }
 
     @Test
-    void testFindAllByItemOwnerIdAndStartDateBeforeAndEndDateAfterOrderByStartDateDesc() {
-        var result = repository.findAllByItemOwnerIdAndStartDateBeforeAndEndDateAfterOrderByStartDateDesc(
-                item2.getOwnerId(), LocalDateTime.now(), LocalDateTime.now(), page);
-
-        assertTrue(result.size() == 1);
-        assertEquals(bookingCurrentItem2, result.get(0));
-    }
-
-    @Test
-    void testFindAllByItemOwnerIdAndEndDateBeforeOrderByStartDateDesc() {
-        var result = repository.findAllByItemOwnerIdAndEndDateBeforeOrderByStartDateDesc(
-                user.getId(), LocalDateTime.now(), page);
+    void testExistsByBookerIdAndItemIdAndEndDateBeforeAndStatus() {
+        var result = repository.existsByBookerIdAndItemIdAndEndDateBeforeAndStatus(
+                user2.getId(), item.getId(), LocalDateTime.now(), BookingStatus.APPROVED);
 
-        assertTrue(result.size() == 1);
-        assertEquals(bookingPastItem, result.get(0));
+        assertFalse(result);
     }
 
     @Test
-    void testFindAllByItemOwnerIdAndStartDateAfterOrderByStartDateDesc() {
-        var result = repository.findAllByItemOwnerIdAndStartDateAfterOrderByStartDateDesc(
-                user2.getId(), LocalDateTime.now(), page);
+    void testFindLastAndNextBookings() {
+        var now = LocalDateTime.now();
+        var lastItem2 = repository.save(new Booking(null, now.minusDays(2), now.minusDays(1),
+                item2, user, BookingStatus.APPROVED));
+        var nextItem2 = repository.save(new Booking(null, now.plusDays(1), now.plusDays(2),
+                item2, user, BookingStatus.WAITING));
+        repository.save(new Booking(null, now.plusDays(3), now.plusDays(4),
+                item2, user, BookingStatus.APPROVED));
+        repository.save(new Booking(null, now.minusHours(1), now.plusDays(1),
+                item, user2, BookingStatus.REJECTED));
 
-        assertTrue(result.size() == 1);
-        assertEquals(bookingFutureItem2, result.get(0));
+        var last = repository.findLastBookings(List.of(item.getId(), item2.getId()), now, BookingStatus.REJECTED);
+        var next = repository.findNextBookings(List.of(item.getId(), item2.getId()), now, BookingStatus.REJECTED);
+
+        assertEquals(2, last.size());
+        var lastByItem = last.stream().collect(Collectors.toMap(BookingShort::getItemId, BookingShort::getId));
+        assertEquals(bookingPastItem.getId(), lastByItem.get(item.getId()));
+        assertEquals(lastItem2.getId(), lastByItem.get(item2.getId()));
+        assertEquals(1, next.size());
+        assertEquals(nextItem2.getId(), next.get(0).getId());
+        assertEquals(item2.getId(), next.get(0).getItemId());
+        assertEquals(user.getId(), next.get(0).getBookerId());
     }
 
     @Test
-    void testFindAllByItemOwnerIdAndStatusOrderByStartDateDesc() {
-        var resultApproved = repository.findAllByItemOwnerIdAndStatusOrderByStartDateDesc(
-                user2.getId(), BookingStatus.APPROVED, page);
-        var resultRejected = repository.findAllByItemOwnerIdAndStatusOrderByStartDateDesc(
-                user2.getId(), BookingStatus.REJECTED, page);
-        var resultWaiting = repository.findAllByItemOwnerIdAndStatusOrderByStartDateDesc(
-                user.getId(), BookingStatus.WAITING, page);
-
-        assertTrue(resultApproved.size() == 1);
-        assertEquals(bookingFutureItem2, resultApproved.get(0));
-
-        assertEquals(Collections.emptyList(), resultRejected);
-
-        assertTrue(resultWaiting.size() == 1);
-        assertEquals(bookingPastItem, resultWaiting.get(0));
+    void testFindBookerBookingsAfter() {
+        var firstPage = repository.findBookerBookingsAfter(user.getId(), BookingStates.ALL, LocalDateTime.now(),
+                null, null, 1);
+        var secondPage = repository.findBookerBookingsAfter(user.getId(), BookingStates.ALL, LocalDateTime.now(),
+                bookingFutureItem2.getStartDate(), bookingFutureItem2.getId(), 2);
+
+        assertEquals(toResponses(bookingFutureItem2), firstPage);
+        assertEquals(toResponses(bookingCurrentItem2), secondPage);
     }
 
     @Test
-    void testFindAllByBookerIdAndItemIdAndEndDateBeforeAndStatus() {
-        var result = repository.findAllByBookerIdAndItemIdAndEndDateBeforeAndStatus(
-                user2.getId(), item.getId(), LocalDateTime.now(), BookingStatus.APPROVED);
-
-        assertTrue(result.size() == 0);
+    void testFindIntervalsByItemId() {
+        var result = repository.findIntervalsByItemId(item.getId(), BookingStatus.REJECTED);
+
+        assertEquals(1, result.size());
+        assertEquals(bookingPastItem.getId(), result.get(0).getId());
+        assertEquals(user2.getId(), result.get(0).getBookerId());
+        assertEquals(bookingPastItem.getStartDate(), result.get(0).getStartDate());
+        assertEquals(bookingPastItem.getEndDate(), result.get(0).getEndDate());
+        assertEquals(BookingStatus.WAITING, result.get(0).getStatus());
     }
 
     @Test
-    void testFindFirstBookingByItemIdAndStartDateBeforeAndStatusNotOrderByStartDateDesc() {
-        var result = repository
-                .findFirstBookingByItemIdAndStartDateBeforeAndStatusNotOrderByStartDateDesc(
-                        item.getId(), LocalDateTime.now(), BookingStatus.REJECTED);
-
-        assertTrue(result.isPresent());
-        assertEquals(bookingPastItem, result.get());
+    void testFindIntervalsByItemIdBetween() {
+        var result = repository.findIntervalsByItemIdBetween(item2.getId(),
+                List.of(BookingStatus.WAITING, BookingStatus.APPROVED),
+                LocalDateTime.of(2023, 1, 1, 0, 0), LocalDateTime.of(2026, 1, 1, 0, 0));
+        var outsideWindow = repository.findIntervalsByItemIdBetween(item2.getId(),
+                List.of(BookingStatus.WAITING, BookingStatus.APPROVED),
+                LocalDateTime.of(2024, 6, 1, 0, 0), LocalDateTime.of(2024, 12, 1, 0, 0));
+
+        assertEquals(List.of(bookingCurrentItem2.getId(), bookingFutureItem2.getId()),
+                result.stream().map(BookingInterval::getId).collect(Collectors.toList()));
+        assertTrue(outsideWindow.isEmpty());
     }
 
-    @Test
-    void testFindFirstBookingByItemIdAndStartDateAfterAndStatusNotOrderByStartDate() {
-        var result = repository.findFirstBookingByItemIdAndStartDateAfterAndStatusNotOrderByStartDate(
-                item2.getId(), LocalDateTime.now(), BookingStatus.REJECTED);
-
-        assertTrue(result.isPresent());
-        assertEquals(bookingFutureItem2, result.get());
+    private static List<BookingDtoResponse> toResponses(Booking... bookings) {
+        return Arrays.stream(bookings).map(BookingMapper::toBookingDtoResponse).collect(Collectors.toList());
     }
-
 }
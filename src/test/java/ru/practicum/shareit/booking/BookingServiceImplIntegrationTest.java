@@ -0,0 +1,87 @@
+package ru.practicum.shareit.booking;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
+import ru.practicum.shareit.booking.dto.BookingDtoRequest;
+import ru.practicum.shareit.booking.dto.BookingDtoResponse;
+import ru.practicum.shareit.common.SqlStatements;
+import ru.practicum.shareit.common.SqlStatementsExtension;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+@Transactional
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ExtendWith(SqlStatementsExtension.class)
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class BookingServiceImplIntegrationTest {
+    final EntityManager em;
+    final BookingService service;
+    Long bookerId;
+    Item item;
+
+    @BeforeEach
+    void loadInitial() {
+        var owner = em.merge(new User(null, "Andrej", "witcher@mail.com"));
+        bookerId = em.merge(new User(null, "Geralt", "geralt@mail.com")).getId();
+        item = em.merge(new Item(null, "Hammer", "Heavy", true, owner.getId(), null));
+        em.flush();
+    }
+
+    @Test
+    void createBookingsInsertsInBatches(SqlStatements statements) {
+        int rows = 120;
+        var start = LocalDateTime.now().plusDays(1);
+        var requests = new ArrayList<BookingDtoRequest>();
+        for (int i = 0; i < rows; i++) {
+            requests.add(new BookingDtoRequest(item.getId(), start.plusHours(i), start.plusHours(i + 1)));
+        }
+        requests.add(new BookingDtoRequest(item.getId(), start, start.plusHours(1)));
+
+        List<BookingBatchResultDto> results = new ArrayList<>();
+        long count = statements.count(() -> results.addAll(service.createBookings(bookerId, requests)));
+
+        assertThat(results.size(), equalTo(rows + 1));
+        assertThat(results.get(rows - 1).getBooking().getId(), notNullValue());
+        assertThat(results.get(rows).getError(), notNullValue());
+        assertThat(em.createQuery("select count(b) from Booking b where b.item.id = :itemId", Long.class)
+                .setParameter("itemId", item.getId()).getSingleResult(), equalTo((long) rows));
+        // пользователь, вещи, бронирования вещи для индекса, три блока id, три пакета вставок
+        // и пересчёт указателей: блокировка вещи, последнее и следующее бронирование, обновление вещи
+        assertThat(count, lessThanOrEqualTo(13L));
+    }
+
+    @Test
+    void getAllBookingsReadsOnlyResponseColumns(SqlStatements statements) {
+        var start = LocalDateTime.now().plusDays(1);
+        var requests = new ArrayList<BookingDtoRequest>();
+        for (int i = 0; i < 5; i++) {
+            requests.add(new BookingDtoRequest(item.getId(), start.plusHours(i), start.plusHours(i + 1)));
+        }
+        service.createBookings(bookerId, requests);
+
+        List<BookingDtoResponse> bookings = new ArrayList<>();
+        long count = statements.count(() -> bookings.addAll(service.getAllBookings(bookerId, "ALL", 0, 10)));
+
+        assertThat(bookings.size(), equalTo(5));
+        assertThat(bookings.get(0).getBooker().getName(), equalTo("Geralt"));
+        assertThat(bookings.get(0).getItem().getName(), equalTo("Hammer"));
+        // пользователь уже в кэше после создания бронирований, сущности вещи и арендатора не загружаются;
+        // страница неполная, поэтому второй запрос читает архив
+        assertThat(count, equalTo(2L));
+        assertThat(statements.getEntityLoadCount(), equalTo(0L));
+    }
+}
@@ -5,26 +5,38 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.PageRequest;
 import ru.practicum.shareit.booking.dto.BookingDtoRequest;
 import ru.practicum.shareit.booking.dto.BookingDtoResponse;
+import ru.practicum.shareit.booking.dto.BookingInterval;
+import ru.practicum.shareit.booking.dto.BookingMapper;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStates;
 import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.common.OffsetPageRequest;
+import ru.practicum.shareit.common.PageCursor;
 import ru.practicum.shareit.exceptions.*;
 import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.item.dto.ItemShortDto;
 import ru.practicum.shareit.item.model.Item;
-import ru.practicum.shareit.user.UserRepository;
+import ru.practicum.shareit.user.UserCache;
+import ru.practicum.shareit.user.dto.UserShortDto;
 import ru.practicum.shareit.user.model.User;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertThrows;
-import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyLong;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -32,13 +44,24 @@ public class BookingServiceImplTest {
     final int from = 0;
     final int size = 10;
     @Mock
-    UserRepository userRepository;
+    UserCache userCache;
     @InjectMocks
     BookingServiceImpl bookingService;
     @Mock
     ItemRepository itemRepository;
     @Mock
     BookingRepository bookingRepository;
+    @Mock
+    BookingIntervalIndex bookingIntervalIndex;
+    @Mock
+    ItemBookingPointers itemBookingPointers;
+    @Mock
+    OwnerBookingRepository ownerBookingRepository;
+    @Mock
+    ApplicationEventPublisher eventPublisher;
+    ArchivedBookingRepository archivedBookingRepository = mock(ArchivedBookingRepository.class);
+    @Spy
+    BookingArchive bookingArchive = new BookingArchive(archivedBookingRepository, Duration.ofDays(365));
     Item item;
     Item itemAnotherOwner;
     Long userId;
@@ -64,7 +87,8 @@ public class BookingServiceImplTest {
                 LocalDateTime.now(), item, user, BookingStatus.WAITING);
         bookingDtoRequest = new BookingDtoRequest(1L, booking.getStartDate(), booking.getEndDate());
         bookingDtoResponse = new BookingDtoResponse(booking.getId(), booking.getStartDate(), booking.getEndDate(),
-                booking.getStatus(), booking.getBooker(), booking.getItem());
+                booking.getStatus(), new UserShortDto(user.getId(), user.getName()),
+                new ItemShortDto(item.getId(), item.getName()));
         stateAll = "ALL";
         stateCurrent = "CURRENT";
         stateFuture = "FUTURE";
@@ -76,70 +100,151 @@ public class BookingServiceImplTest {
 
     @Test
     void testCreateBookingOk() {
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
+        passThroughItemLock();
+        when(userCache.findById(anyLong())).thenReturn(Optional.of(user));
         when(itemRepository.findById(anyLong())).thenReturn(Optional.of(itemAnotherOwner));
-        when(bookingRepository.save(any())).thenReturn(booking);
+        when(bookingIntervalIndex.findOverlap(any(), any(), any())).thenReturn(Optional.empty());
+        when(itemBookingPointers.save(any())).thenReturn(List.of(booking));
 
         var result = bookingService.createBooking(userId, bookingDtoRequest);
 
         assertEquals(bookingDtoResponse, result);
-        verify(userRepository, times(1)).findById(userId);
+        verify(userCache, times(1)).findById(userId);
         verify(itemRepository, times(1)).findById(bookingDtoRequest.getItemId());
-        verify(bookingRepository, times(1)).save(any());
+        verify(bookingIntervalIndex, times(1)).withItemLock(eq(itemAnotherOwner.getId()), any());
+        verify(bookingIntervalIndex, times(1)).findOverlap(itemAnotherOwner.getId(), bookingDtoRequest.getStart(),
+                bookingDtoRequest.getEnd());
+        verify(itemBookingPointers, times(1)).save(List.of(BookingMapper.toBooking(bookingDtoRequest, user,
+                itemAnotherOwner)));
+        verify(bookingIntervalIndex, times(1)).apply(booking);
+    }
+
+    @Test
+    void testCreateBookingOverlapsThrownItemNotAvailable() {
+        passThroughItemLock();
+        when(userCache.findById(anyLong())).thenReturn(Optional.of(user));
+        when(itemRepository.findById(anyLong())).thenReturn(Optional.of(itemAnotherOwner));
+        when(bookingIntervalIndex.findOverlap(any(), any(), any())).thenReturn(Optional.of(
+                new BookingInterval(5L, 3L, booking.getStartDate(), booking.getEndDate(), BookingStatus.APPROVED)));
+
+        assertThrows(ItemNotAvailable.class, () -> bookingService.createBooking(userId, bookingDtoRequest));
+
+        verify(itemBookingPointers, never()).save(any());
+        verify(bookingIntervalIndex, never()).apply(any());
     }
 
     @Test
     void testCreateBookingUserNotExistsThrownNotFound() {
-        when(userRepository.findById(anyLong())).thenReturn(Optional.empty());
+        when(userCache.findById(anyLong())).thenReturn(Optional.empty());
 
         assertThrows(NotFoundException.class, () -> bookingService.createBooking(userId, bookingDtoRequest));
 
-        verify(userRepository, times(1)).findById(userId);
+        verify(userCache, times(1)).findById(userId);
         verify(itemRepository, never()).findById(any());
-        verify(bookingRepository, never()).save(any());
+        verify(itemBookingPointers, never()).save(any());
     }
 
     @Test
     void testCreateBookingItemNotExistsThrownNotFound() {
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
+        when(userCache.findById(anyLong())).thenReturn(Optional.of(user));
         when(itemRepository.findById(anyLong())).thenReturn(Optional.empty());
 
         assertThrows(NotFoundException.class, () -> bookingService.createBooking(userId, bookingDtoRequest));
 
-        verify(userRepository, times(1)).findById(userId);
+        verify(userCache, times(1)).findById(userId);
         verify(itemRepository, times(1)).findById(bookingDtoRequest.getItemId());
-        verify(bookingRepository, never()).save(any());
+        verify(itemBookingPointers, never()).save(any());
     }
 
     @Test
     void testCreateBookingItemNotAvailableThrown() {
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
+        when(userCache.findById(anyLong())).thenReturn(Optional.of(user));
         when(itemRepository.findById(anyLong())).thenReturn(Optional.of(itemAnotherOwner));
         itemAnotherOwner.setIsAvailable(false);
 
         assertThrows(ItemNotAvailable.class, () -> bookingService.createBooking(userId, bookingDtoRequest));
 
-        verify(userRepository, times(1)).findById(userId);
+        verify(userCache, times(1)).findById(userId);
         verify(itemRepository, times(1)).findById(bookingDtoRequest.getItemId());
-        verify(bookingRepository, never()).save(any());
+        verify(itemBookingPointers, never()).save(any());
     }
 
     @Test
     void testCreateBookingUserIsOwnerThrownNotAccess() {
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
+        when(userCache.findById(anyLong())).thenReturn(Optional.of(user));
         when(itemRepository.findById(anyLong())).thenReturn(Optional.of(item));
 
         assertThrows(NotAccessException.class, () -> bookingService.createBooking(userId, bookingDtoRequest));
 
-        verify(userRepository, times(1)).findById(userId);
+        verify(userCache, times(1)).findById(userId);
         verify(itemRepository, times(1)).findById(bookingDtoRequest.getItemId());
-        verify(bookingRepository, never()).save(any());
+        verify(itemBookingPointers, never()).save(any());
+    }
+
+    @Test
+    void testCreateBookingsReportsFailedRows() {
+        passThroughItemLocks();
+        var start = LocalDateTime.now().plusDays(1);
+        var ok = new BookingDtoRequest(itemAnotherOwner.getId(), start, start.plusHours(1));
+        var sameBatchOverlap = new BookingDtoRequest(itemAnotherOwner.getId(), start.plusMinutes(30),
+                start.plusHours(2));
+        var ownItem = new BookingDtoRequest(item.getId(), start, start.plusHours(1));
+        var unknownItem = new BookingDtoRequest(99L, start, start.plusHours(1));
+        var wrongDates = new BookingDtoRequest(itemAnotherOwner.getId(), start.plusHours(1), start);
+        var saved = new Booking(7L, start, start.plusHours(1), itemAnotherOwner, user, BookingStatus.WAITING);
+        when(userCache.findById(anyLong())).thenReturn(Optional.of(user));
+        when(itemRepository.findAllById(any())).thenReturn(List.of(item, itemAnotherOwner));
+        when(bookingIntervalIndex.findOverlap(any(), any(), any())).thenReturn(Optional.empty());
+        when(itemBookingPointers.save(any())).thenReturn(List.of(saved));
+
+        var results = bookingService.createBookings(userId, List.of(ok, sameBatchOverlap, ownItem, unknownItem,
+                wrongDates));
+
+        assertEquals(5, results.size());
+        assertEquals(7L, results.get(0).getBooking().getId());
+        assertNull(results.get(0).getError());
+        for (int i = 1; i < results.size(); i++) {
+            assertEquals(i, results.get(i).getIndex());
+            assertNull(results.get(i).getBooking());
+            assertNotNull(results.get(i).getError());
+        }
+        verify(itemRepository, times(1)).findAllById(Set.of(item.getId(), itemAnotherOwner.getId(), 99L));
+        verify(itemRepository, never()).findById(anyLong());
+        verify(itemBookingPointers, times(1)).save(argThat(bookings -> ((List<Booking>) bookings).size() == 1));
+        verify(bookingIntervalIndex, times(1)).apply(saved);
+    }
+
+    @Test
+    void testCreateBookingsOverlapWithStoredBookingFailsRow() {
+        passThroughItemLocks();
+        var start = LocalDateTime.now().plusDays(1);
+        var request = new BookingDtoRequest(itemAnotherOwner.getId(), start, start.plusHours(1));
+        when(userCache.findById(anyLong())).thenReturn(Optional.of(user));
+        when(itemRepository.findAllById(any())).thenReturn(List.of(itemAnotherOwner));
+        when(bookingIntervalIndex.findOverlap(any(), any(), any())).thenReturn(Optional.of(
+                new BookingInterval(5L, 3L, start, start.plusHours(3), BookingStatus.APPROVED)));
+        when(itemBookingPointers.save(any())).thenReturn(List.of());
+
+        var results = bookingService.createBookings(userId, List.of(request));
+
+        assertNotNull(results.get(0).getError());
+        verify(bookingIntervalIndex, times(1)).withItemLocks(eq(Set.of(itemAnotherOwner.getId())), any());
+        verify(bookingIntervalIndex, never()).apply(any());
+    }
+
+    @Test
+    void testCreateBookingsUserNotExistsThrownNotFound() {
+        when(userCache.findById(anyLong())).thenReturn(Optional.empty());
+
+        assertThrows(NotFoundException.class, () -> bookingService.createBookings(userId, List.of(bookingDtoRequest)));
+
+        verify(itemBookingPointers, never()).save(any());
     }
 
     @Test
     void testApprovedBookingOk() {
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
-        when(bookingRepository.findById(anyLong())).thenReturn(Optional.of(booking));
+        when(userCache.findById(anyLong())).thenReturn(Optional.of(user));
+        when(bookingRepository.findWithItemAndBookerById(anyLong())).thenReturn(Optional.of(booking));
         when(bookingRepository.save(any())).thenReturn(booking);
 
         bookingDtoResponse.setStatus(BookingStatus.APPROVED);
@@ -154,84 +259,87 @@ public class BookingServiceImplTest {
         result = bookingService.approvedBooking(booking.getId(), false, userId);
 
         assertEquals(bookingDtoResponse, result);
-        verify(userRepository, times(2)).findById(userId);
-        verify(bookingRepository, times(2)).findById(booking.getId());
+        verify(userCache, times(2)).findById(userId);
+        verify(bookingRepository, times(2)).findWithItemAndBookerById(booking.getId());
         verify(bookingRepository, times(2)).save(booking);
+        verify(itemBookingPointers, times(2)).refresh(eq(List.of(item.getId())), any());
+        verify(eventPublisher, times(2)).publishEvent(new BookingStatusChangedEvent(booking));
+        verify(bookingIntervalIndex, times(2)).apply(booking);
     }
 
     @Test
     void testApprovedBookingUserNotExistsThrownNotFound() {
-        when(userRepository.findById(anyLong())).thenReturn(Optional.empty());
+        when(userCache.findById(anyLong())).thenReturn(Optional.empty());
 
         assertThrows(NotFoundException.class, () -> bookingService.approvedBooking(
                 booking.getId(), true, userId));
 
-        verify(userRepository, times(1)).findById(userId);
-        verify(bookingRepository, never()).findById(any());
+        verify(userCache, times(1)).findById(userId);
+        verify(bookingRepository, never()).findWithItemAndBookerById(any());
         verify(bookingRepository, never()).save(any());
     }
 
     @Test
     void testApprovedBookingNotExistsThrownNotFound() {
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
-        when(bookingRepository.findById(anyLong())).thenReturn(Optional.empty());
+        when(userCache.findById(anyLong())).thenReturn(Optional.of(user));
+        when(bookingRepository.findWithItemAndBookerById(anyLong())).thenReturn(Optional.empty());
 
         assertThrows(NotFoundException.class, () -> bookingService.approvedBooking(
                 booking.getId(), true, userId));
 
-        verify(userRepository, times(1)).findById(userId);
-        verify(bookingRepository, times(1)).findById(booking.getId());
+        verify(userCache, times(1)).findById(userId);
+        verify(bookingRepository, times(1)).findWithItemAndBookerById(booking.getId());
         verify(bookingRepository, never()).save(any());
     }
 
     @Test
     void testApprovedBookingAlreadyApprovedThrown() {
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
-        when(bookingRepository.findById(anyLong())).thenReturn(Optional.of(booking));
+        when(userCache.findById(anyLong())).thenReturn(Optional.of(user));
+        when(bookingRepository.findWithItemAndBookerById(anyLong())).thenReturn(Optional.of(booking));
 
         booking.setStatus(BookingStatus.APPROVED);
 
         assertThrows(BookingAlreadyApprovedException.class, () -> bookingService.approvedBooking(
                 booking.getId(), true, userId));
-        verify(userRepository, times(1)).findById(userId);
-        verify(bookingRepository, times(1)).findById(booking.getId());
+        verify(userCache, times(1)).findById(userId);
+        verify(bookingRepository, times(1)).findWithItemAndBookerById(booking.getId());
         verify(bookingRepository, never()).save(any());
     }
 
     @Test
     void testApprovedBookingThrownNotAccessExc() {
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
-        when(bookingRepository.findById(anyLong())).thenReturn(Optional.of(booking));
+        when(userCache.findById(anyLong())).thenReturn(Optional.of(user));
+        when(bookingRepository.findWithItemAndBookerById(anyLong())).thenReturn(Optional.of(booking));
 
         final Long notOwnerUserId = 2L;
 
         assertThrows(NotAccessException.class, () -> bookingService.approvedBooking(
                 booking.getId(), true, notOwnerUserId));
-        verify(userRepository, times(1)).findById(notOwnerUserId);
-        verify(bookingRepository, times(1)).findById(booking.getId());
+        verify(userCache, times(1)).findById(notOwnerUserId);
+        verify(bookingRepository, times(1)).findWithItemAndBookerById(booking.getId());
         verify(bookingRepository, never()).save(any());
     }
 
     @Test
     void testGetBookingOk() {
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
-        when(bookingRepository.findById(anyLong())).thenReturn(Optional.of(booking));
+        when(userCache.findById(anyLong())).thenReturn(Optional.of(user));
+        when(bookingRepository.findWithItemAndBookerById(anyLong())).thenReturn(Optional.of(booking));
 
         var result = bookingService.getBooking(userId, booking.getId());
 
         assertEquals(bookingDtoResponse, result);
-        verify(userRepository, times(1)).findById(userId);
-        verify(bookingRepository, times(1)).findById(booking.getId());
+        verify(userCache, times(1)).findById(userId);
+        verify(bookingRepository, times(1)).findWithItemAndBookerById(booking.getId());
     }
 
     @Test
     void testGetBookingUserNotFoundThrown() {
-        when(userRepository.findById(anyLong())).thenReturn(Optional.empty());
+        when(userCache.findById(anyLong())).thenReturn(Optional.empty());
 
         assertThrows(NotFoundException.class, () -> bookingService.getBooking(userId, booking.getId()));
 
-        verify(userRepository, times(1)).findById(userId);
-        verify(bookingRepository, never()).findById(any());
+        verify(userCache, times(1)).findById(userId);
+        verify(bookingRepository, never()).findWithItemAndBookerById(any());
     }
 
     @Test
@@ -239,118 +347,139 @@ public class BookingServiceImplTest {
         booking.setItem(itemAnotherOwner);
         user.setId(3L);
 
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
-        when(bookingRepository.findById(anyLong())).thenReturn(Optional.of(booking));
+        when(userCache.findById(anyLong())).thenReturn(Optional.of(user));
+        when(bookingRepository.findWithItemAndBookerById(anyLong())).thenReturn(Optional.of(booking));
 
         assertThrows(NotFoundException.class, () -> bookingService.getBooking(userId, booking.getId()));
 
-        verify(userRepository, times(1)).findById(userId);
-        verify(bookingRepository, times(1)).findById(booking.getId());
+        verify(userCache, times(1)).findById(userId);
+        verify(bookingRepository, times(1)).findWithItemAndBookerById(booking.getId());
     }
 
     @Test
     void testGetBookingNotExistsThrownNotFound() {
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
-        when(bookingRepository.findById(anyLong())).thenReturn(Optional.empty());
+        when(userCache.findById(anyLong())).thenReturn(Optional.of(user));
+        when(bookingRepository.findWithItemAndBookerById(anyLong())).thenReturn(Optional.empty());
 
         assertThrows(NotFoundException.class, () -> bookingService.getBooking(userId, booking.getId()));
 
-        verify(userRepository, times(1)).findById(userId);
-        verify(bookingRepository, times(1)).findById(booking.getId());
+        verify(userCache, times(1)).findById(userId);
+        verify(bookingRepository, times(1)).findWithItemAndBookerById(booking.getId());
+    }
+
+    @Test
+    void testExportBookingsOk() {
+        var exported = new ArrayList<BookingDtoResponse>();
+        when(userCache.findById(anyLong())).thenReturn(Optional.of(user));
+        when(bookingRepository.streamAllByBookerId(anyLong())).thenReturn(Stream.of(bookingDtoResponse));
+
+        bookingService.exportBookings(userId, exported::add);
+
+        assertEquals(List.of(bookingDtoResponse), exported);
+        verify(bookingRepository, times(1)).streamAllByBookerId(userId);
+    }
+
+    @Test
+    void testExportBookingsUserNotExistsThrownNotFound() {
+        when(userCache.findById(anyLong())).thenReturn(Optional.empty());
+
+        assertThrows(NotFoundException.class, () -> bookingService.exportBookings(userId, booking -> {
+        }));
+        verify(bookingRepository, never()).streamAllByBookerId(any());
     }
 
     @Test
     void testGetAllBookingsAllOk() {
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
-        when(bookingRepository.findAllByBookerIdOrderByStartDateDesc(anyLong(), any())).thenReturn(List.of(booking));
+        when(userCache.findById(anyLong())).thenReturn(Optional.of(user));
+        when(bookingRepository.findAllByBookerIdOrderByStartDateDesc(anyLong(), any())).thenReturn(List.of(bookingDtoResponse));
 
         var resultAll = bookingService.getAllBookings(userId, stateAll, from, size);
 
         assertEquals(List.of(bookingDtoResponse), resultAll);
 
-        verify(userRepository, times(1)).findById(userId);
+        verify(userCache, times(1)).findById(userId);
         verify(bookingRepository, times(1))
                 .findAllByBookerIdOrderByStartDateDesc(anyLong(), any());
     }
 
     @Test
     void testGetAllBookingsCurrentOk() {
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
+        when(userCache.findById(anyLong())).thenReturn(Optional.of(user));
         when(bookingRepository.findAllByBookerIdAndStartDateBeforeAndEndDateAfterOrderByStartDateDesc(
-                anyLong(), any(), any(), any())).thenReturn(List.of(booking));
+                anyLong(), any(), any(), any())).thenReturn(List.of(bookingDtoResponse));
 
         var resultCurrent = bookingService.getAllBookings(userId, stateCurrent, from, size);
 
         assertEquals(List.of(bookingDtoResponse), resultCurrent);
-        verify(userRepository, times(1)).findById(userId);
+        verify(userCache, times(1)).findById(userId);
         verify(bookingRepository, times(1)).findAllByBookerIdAndStartDateBeforeAndEndDateAfterOrderByStartDateDesc(
                 anyLong(), any(), any(), any());
     }
 
     @Test
     void testGetAllBookingPastOk() {
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
+        when(userCache.findById(anyLong())).thenReturn(Optional.of(user));
         when(bookingRepository.findAllByBookerIdAndEndDateBeforeOrderByStartDateDesc(
-                anyLong(), any(), any())).thenReturn(List.of(booking));
+                anyLong(), any(), any())).thenReturn(List.of(bookingDtoResponse));
 
         var resultPast = bookingService.getAllBookings(userId, statePast, from, size);
 
         assertEquals(List.of(bookingDtoResponse), resultPast);
-        verify(userRepository, times(1)).findById(userId);
+        verify(userCache, times(1)).findById(userId);
         verify(bookingRepository, times(1)).findAllByBookerIdAndEndDateBeforeOrderByStartDateDesc(
                 anyLong(), any(), any());
     }
 
     @Test
     void testGetAllBookingFutureOk() {
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
+        when(userCache.findById(anyLong())).thenReturn(Optional.of(user));
         when(bookingRepository.findAllByBookerIdAndStartDateAfterOrderByStartDateDesc(
-                anyLong(), any(), any())).thenReturn(List.of(booking));
+                anyLong(), any(), any())).thenReturn(List.of(bookingDtoResponse));
 
         var resultFuture = bookingService.getAllBookings(userId, stateFuture, from, size);
 
         assertEquals(List.of(bookingDtoResponse), resultFuture);
-        verify(userRepository, times(1)).findById(userId);
+        verify(userCache, times(1)).findById(userId);
         verify(bookingRepository, times(1)).findAllByBookerIdAndStartDateAfterOrderByStartDateDesc(
                 anyLong(), any(), any());
     }
 
     @Test
     void testGetAllBookingRejectedOk() {
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
+        when(userCache.findById(anyLong())).thenReturn(Optional.of(user));
         when(bookingRepository.findAllByBookerIdAndStatusOrderByStartDateDesc(
-                anyLong(), any(), any())).thenReturn(List.of(booking));
+                anyLong(), any(), any())).thenReturn(List.of(bookingDtoResponse));
 
         var resultRejected = bookingService.getAllBookings(userId, stateRejected, from, size);
 
         assertEquals(List.of(bookingDtoResponse), resultRejected);
-        verify(userRepository, times(1)).findById(userId);
+        verify(userCache, times(1)).findById(userId);
         verify(bookingRepository, times(1)).findAllByBookerIdAndStatusOrderByStartDateDesc(
                 anyLong(), any(), any());
     }
 
     @Test
     void testGetAllBookingWaitingOk() {
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
+        when(userCache.findById(anyLong())).thenReturn(Optional.of(user));
         when(bookingRepository.findAllByBookerIdAndStatusOrderByStartDateDesc(
-                anyLong(), any(), any())).thenReturn(List.of(booking));
+                anyLong(), any(), any())).thenReturn(List.of(bookingDtoResponse));
 
         var resultWaiting = bookingService.getAllBookings(userId, stateWaiting, from, size);
 
         assertEquals(List.of(bookingDtoResponse), resultWaiting);
-        verify(userRepository, times(1)).findById(userId);
+        verify(userCache, times(1)).findById(userId);
         verify(bookingRepository, times(1)).findAllByBookerIdAndStatusOrderByStartDateDesc(
                 anyLong(), any(), any());
     }
 
     @Test
     void testGetAllBookingsWrongStateThrown() {
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
+        when(userCache.findById(anyLong())).thenReturn(Optional.of(user));
 
         assertThrows(UnsupportedBookingStateException.class, () ->
                 bookingService.getAllBookings(userId, stateWrong, from, size));
 
-        verify(userRepository, times(1)).findById(userId);
+        verify(userCache, times(1)).findById(userId);
         verify(bookingRepository, never())
                 .findAllByBookerIdOrderByStartDateDesc(anyLong(), any());
         verify(bookingRepository, never()).findAllByBookerIdAndStartDateBeforeAndEndDateAfterOrderByStartDateDesc(
@@ -365,124 +494,228 @@ public class BookingServiceImplTest {
 
     @Test
     void testGetAllBookingUserNotExistsThrownNotFound() {
-        when(userRepository.findById(anyLong())).thenReturn(Optional.empty());
+        when(userCache.findById(anyLong())).thenReturn(Optional.empty());
 
         assertThrows(NotFoundException.class, () -> bookingService.getAllBookings(userId, stateAll, from, size));
 
-        verify(userRepository, times(1)).findById(userId);
+        verify(userCache, times(1)).findById(userId);
         verify(bookingRepository, never()).findAllByBookerIdOrderByStartDateDesc(anyLong(), any());
     }
 
     @Test
     void testGetAllItemBookingsAllOk() {
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
-        when(bookingRepository.findAllByItemOwnerIdOrderByStartDateDesc(anyLong(), any())).thenReturn(List.of(booking));
+        when(userCache.findById(anyLong())).thenReturn(Optional.of(user));
+        when(ownerBookingRepository.findOwnerBookings(anyLong(), any(), any(), any()))
+                .thenReturn(List.of(bookingDtoResponse));
 
-        var resultAll = bookingService.getAllItemBookings(userId, stateAll, from, size);
+        var result = bookingService.getAllItemBookings(userId, stateAll, from, size);
 
-        assertEquals(List.of(bookingDtoResponse), resultAll);
-
-        verify(userRepository, times(1)).findById(userId);
-        verify(bookingRepository, times(1))
-                .findAllByItemOwnerIdOrderByStartDateDesc(userId, PageRequest.of(from, size));
+        assertEquals(List.of(bookingDtoResponse), result);
+        verify(userCache, times(1)).findById(userId);
+        verify(ownerBookingRepository, times(1)).findOwnerBookings(eq(userId), eq(BookingStates.ALL), any(),
+                eq(PageRequest.of(from, size)));
+        verifyNoInteractions(bookingRepository);
     }
 
     @Test
     void testGetAllItemBookingsCurrentOk() {
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
-        when(bookingRepository.findAllByItemOwnerIdAndStartDateBeforeAndEndDateAfterOrderByStartDateDesc(
-                anyLong(), any(), any(), any())).thenReturn(List.of(booking));
+        when(userCache.findById(anyLong())).thenReturn(Optional.of(user));
+        when(ownerBookingRepository.findOwnerBookings(anyLong(), any(), any(), any()))
+                .thenReturn(List.of(bookingDtoResponse));
 
-        var resultCurrent = bookingService.getAllItemBookings(userId, stateCurrent, from, size);
+        var result = bookingService.getAllItemBookings(userId, stateCurrent, from, size);
 
-        assertEquals(List.of(bookingDtoResponse), resultCurrent);
-        verify(userRepository, times(1)).findById(userId);
-        verify(bookingRepository, times(1))
-                .findAllByItemOwnerIdAndStartDateBeforeAndEndDateAfterOrderByStartDateDesc(
-                        anyLong(), any(), any(), any());
+        assertEquals(List.of(bookingDtoResponse), result);
+        verify(userCache, times(1)).findById(userId);
+        verify(ownerBookingRepository, times(1)).findOwnerBookings(eq(userId), eq(BookingStates.CURRENT), any(),
+                eq(PageRequest.of(from, size)));
+        verifyNoInteractions(bookingRepository);
     }
 
     @Test
     void testGetAllItemBookingPastOk() {
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
-        when(bookingRepository.findAllByItemOwnerIdAndEndDateBeforeOrderByStartDateDesc(
-                anyLong(), any(), any())).thenReturn(List.of(booking));
+        when(userCache.findById(anyLong())).thenReturn(Optional.of(user));
+        when(ownerBookingRepository.findOwnerBookings(anyLong(), any(), any(), any()))
+                .thenReturn(List.of(bookingDtoResponse));
 
-        var resultPast = bookingService.getAllItemBookings(userId, statePast, from, size);
+        var result = bookingService.getAllItemBookings(userId, statePast, from, size);
 
-        assertEquals(List.of(bookingDtoResponse), resultPast);
-        verify(userRepository, times(1)).findById(userId);
-        verify(bookingRepository, times(1))
-                .findAllByItemOwnerIdAndEndDateBeforeOrderByStartDateDesc(anyLong(), any(), any());
+        assertEquals(List.of(bookingDtoResponse), result);
+        verify(userCache, times(1)).findById(userId);
+        verify(ownerBookingRepository, times(1)).findOwnerBookings(eq(userId), eq(BookingStates.PAST), any(),
+                eq(PageRequest.of(from, size)));
+        verifyNoInteractions(bookingRepository);
     }
 
     @Test
     void testGetAllItemBookingFutureOk() {
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
-        when(bookingRepository.findAllByItemOwnerIdAndStartDateAfterOrderByStartDateDesc(
-                anyLong(), any(), any())).thenReturn(List.of(booking));
+        when(userCache.findById(anyLong())).thenReturn(Optional.of(user));
+        when(ownerBookingRepository.findOwnerBookings(anyLong(), any(), any(), any()))
+                .thenReturn(List.of(bookingDtoResponse));
 
-        var resultFuture = bookingService.getAllItemBookings(userId, stateFuture, from, size);
+        var result = bookingService.getAllItemBookings(userId, stateFuture, from, size);
 
-        assertEquals(List.of(bookingDtoResponse), resultFuture);
-        verify(userRepository, times(1)).findById(userId);
-        verify(bookingRepository, times(1))
-                .findAllByItemOwnerIdAndStartDateAfterOrderByStartDateDesc(anyLong(), any(), any());
+        assertEquals(List.of(bookingDtoResponse), result);
+        verify(userCache, times(1)).findById(userId);
+        verify(ownerBookingRepository, times(1)).findOwnerBookings(eq(userId), eq(BookingStates.FUTURE), any(),
+                eq(PageRequest.of(from, size)));
+        verifyNoInteractions(bookingRepository);
     }
 
     @Test
     void testGetAllItemBookingRejectedOk() {
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
-        when(bookingRepository.findAllByItemOwnerIdAndStatusOrderByStartDateDesc(
-                anyLong(), any(), any())).thenReturn(List.of(booking));
+        when(userCache.findById(anyLong())).thenReturn(Optional.of(user));
+        when(ownerBookingRepository.findOwnerBookings(anyLong(), any(), any(), any()))
+                .thenReturn(List.of(bookingDtoResponse));
 
-        var resultRejected = bookingService.getAllItemBookings(userId, stateRejected, from, size);
+        var result = bookingService.getAllItemBookings(userId, stateRejected, from, size);
 
-        assertEquals(List.of(bookingDtoResponse), resultRejected);
-        verify(userRepository, times(1)).findById(userId);
-        verify(bookingRepository, times(1)).findAllByItemOwnerIdAndStatusOrderByStartDateDesc(
-                userId, BookingStatus.valueOf(stateRejected), PageRequest.of(from, size));
+        assertEquals(List.of(bookingDtoResponse), result);
+        verify(userCache, times(1)).findById(userId);
+        verify(ownerBookingRepository, times(1)).findOwnerBookings(eq(userId), eq(BookingStates.REJECTED), any(),
+                eq(PageRequest.of(from, size)));
+        verifyNoInteractions(bookingRepository);
     }
 
     @Test
     void testGetAllItemBookingWaitingOk() {
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
-        when(bookingRepository.findAllByItemOwnerIdAndStatusOrderByStartDateDesc(
-                anyLong(), any(), any())).thenReturn(List.of(booking));
+        when(userCache.findById(anyLong())).thenReturn(Optional.of(user));
+        when(ownerBookingRepository.findOwnerBookings(anyLong(), any(), any(), any()))
+                .thenReturn(List.of(bookingDtoResponse));
 
-        var resultWaiting = bookingService.getAllItemBookings(userId, stateWaiting, from, size);
+        var result = bookingService.getAllItemBookings(userId, stateWaiting, from, size);
 
-        assertEquals(List.of(bookingDtoResponse), resultWaiting);
-        verify(userRepository, times(1)).findById(userId);
-        verify(bookingRepository, times(1)).findAllByItemOwnerIdAndStatusOrderByStartDateDesc(
-                userId, BookingStatus.valueOf(stateWaiting), PageRequest.of(from, size));
+        assertEquals(List.of(bookingDtoResponse), result);
+        verify(userCache, times(1)).findById(userId);
+        verify(ownerBookingRepository, times(1)).findOwnerBookings(eq(userId), eq(BookingStates.WAITING), any(),
+                eq(PageRequest.of(from, size)));
+        verifyNoInteractions(bookingRepository);
     }
 
     @Test
     void testGetAllItemBookingUserNotExistsThrownNotFound() {
-        when(userRepository.findById(anyLong())).thenReturn(Optional.empty());
+        when(userCache.findById(anyLong())).thenReturn(Optional.empty());
 
         assertThrows(NotFoundException.class, () -> bookingService.getAllItemBookings(userId, stateAll, from, size));
 
-        verify(userRepository, times(1)).findById(userId);
-        verify(bookingRepository, never()).findAllByItemOwnerIdOrderByStartDateDesc(anyLong(), any());
+        verify(userCache, times(1)).findById(userId);
+        verify(ownerBookingRepository, never()).findOwnerBookings(anyLong(), any(), any(), any());
     }
 
     @Test
     void testGetAllItemBookingsWrongStateThrown() {
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
+        when(userCache.findById(anyLong())).thenReturn(Optional.of(user));
 
         assertThrows(UnsupportedBookingStateException.class, () ->
                 bookingService.getAllItemBookings(userId, stateWrong, from, size));
 
-        verify(userRepository, times(1)).findById(userId);
-        verify(bookingRepository, never()).findAllByItemOwnerIdOrderByStartDateDesc(anyLong(), any());
-        verify(bookingRepository, never()).findAllByItemOwnerIdAndStartDateBeforeAndEndDateAfterOrderByStartDateDesc(
-                anyLong(), any(), any(), any());
-        verify(bookingRepository, never()).findAllByItemOwnerIdAndEndDateBeforeOrderByStartDateDesc(
-                anyLong(), any(), any());
-        verify(bookingRepository, never()).findAllByItemOwnerIdAndStartDateAfterOrderByStartDateDesc(
-                anyLong(), any(), any());
-        verify(bookingRepository, never()).findAllByItemOwnerIdAndStatusOrderByStartDateDesc(anyLong(), any(), any());
+        verify(userCache, times(1)).findById(userId);
+        verify(ownerBookingRepository, never()).findOwnerBookings(anyLong(), any(), any(), any());
+    }
+
+    @Test
+    void testGetAllBookingsNotAlignedFromOk() {
+        when(userCache.findById(anyLong())).thenReturn(Optional.of(user));
+        when(bookingRepository.findAllByBookerIdOrderByStartDateDesc(anyLong(), any())).thenReturn(List.of(bookingDtoResponse));
+
+        bookingService.getAllBookings(userId, stateAll, 3, 2);
+
+        verify(bookingRepository, times(1))
+                .findAllByBookerIdOrderByStartDateDesc(userId, new OffsetPageRequest(3, 2));
+    }
+
+    @Test
+    void testGetAllBookingsPastRecentPageSkipsArchive() {
+        var recent = BookingMapper.toBookingDtoResponse(new Booking(2L, LocalDateTime.now().minusDays(2),
+                LocalDateTime.now().minusDays(1), item, user, BookingStatus.APPROVED));
+        when(userCache.findById(anyLong())).thenReturn(Optional.of(user));
+        when(bookingRepository.findAllByBookerIdAndEndDateBeforeOrderByStartDateDesc(anyLong(), any(), any()))
+                .thenReturn(List.of(recent));
+
+        var result = bookingService.getAllBookings(userId, statePast, 0, 1);
+
+        assertEquals(List.of(recent), result);
+        verifyNoInteractions(archivedBookingRepository);
+    }
+
+    @Test
+    void testGetAllBookingsPastOldPageMergedWithArchive() {
+        var recent = BookingMapper.toBookingDtoResponse(new Booking(3L, LocalDateTime.now().minusDays(2),
+                LocalDateTime.now().minusDays(1), item, user, BookingStatus.APPROVED));
+        var archived = BookingMapper.toBookingDtoResponse(new Booking(2L, LocalDateTime.now().minusYears(3),
+                LocalDateTime.now().minusYears(3).plusDays(1), item, user, BookingStatus.APPROVED));
+        when(userCache.findById(anyLong())).thenReturn(Optional.of(user));
+        when(bookingRepository.findAllByBookerIdAndEndDateBeforeOrderByStartDateDesc(anyLong(), any(), any()))
+                .thenReturn(List.of(recent));
+        when(archivedBookingRepository.findBookerBookings(userId, PageRequest.of(0, 3)))
+                .thenReturn(List.of(archived));
+
+        var result = bookingService.getAllBookings(userId, statePast, 1, 2);
+
+        assertEquals(List.of(archived), result);
+        verify(bookingRepository, times(1))
+                .findAllByBookerIdAndEndDateBeforeOrderByStartDateDesc(eq(userId), any(), eq(PageRequest.of(0, 3)));
+    }
+
+    @Test
+    void testGetAllBookingsAfterOk() {
+        var secondBooking = BookingMapper.toBookingDtoResponse(new Booking(2L, booking.getStartDate().minusDays(1),
+                booking.getEndDate(), item, user, BookingStatus.WAITING));
+        when(userCache.findById(anyLong())).thenReturn(Optional.of(user));
+        when(bookingRepository.findBookerBookingsAfter(eq(userId), eq(BookingStates.ALL), any(), isNull(), isNull(),
+                eq(2))).thenReturn(List.of(bookingDtoResponse, secondBooking));
+
+        var result = bookingService.getAllBookingsAfter(userId, stateAll, "", 1);
+
+        assertEquals(List.of(bookingDtoResponse), result.getItems());
+        assertTrue(result.isHasMore());
+        var cursor = PageCursor.decode(result.getNextCursor());
+        assertEquals(booking.getStartDate(), cursor.getStartDate());
+        assertEquals(booking.getId(), cursor.getId());
+    }
+
+    @Test
+    void testGetAllItemBookingsAfterLastPageOk() {
+        var cursor = new PageCursor(booking.getStartDate().plusDays(1), 5L);
+        when(userCache.findById(anyLong())).thenReturn(Optional.of(user));
+        when(ownerBookingRepository.findOwnerBookingsAfter(eq(userId), eq(BookingStates.WAITING), any(),
+                eq(cursor.getStartDate()), eq(5L), eq(size + 1))).thenReturn(List.of(bookingDtoResponse));
+
+        var result = bookingService.getAllItemBookingsAfter(userId, stateWaiting, cursor.encode(), size);
+
+        assertEquals(List.of(bookingDtoResponse), result.getItems());
+        assertFalse(result.isHasMore());
+    }
+
+    @Test
+    void testGetAllBookingsAfterWrongCursorThrownInvalidPageParams() {
+        when(userCache.findById(anyLong())).thenReturn(Optional.of(user));
+
+        assertThrows(InvalidPageParamsException.class, () ->
+                bookingService.getAllBookingsAfter(userId, stateAll, "не курсор", size));
+
+        verify(bookingRepository, never()).findBookerBookingsAfter(any(), any(), any(), any(), any(), anyInt());
+    }
+
+    @Test
+    void testGetAllItemBookingsAfterIdOnlyCursorThrownInvalidPageParams() {
+        when(userCache.findById(anyLong())).thenReturn(Optional.of(user));
+
+        assertThrows(InvalidPageParamsException.class, () ->
+                bookingService.getAllItemBookingsAfter(userId, stateAll, PageCursor.of(5L).encode(), size));
+
+        verify(ownerBookingRepository, never()).findOwnerBookingsAfter(any(), any(), any(), any(), any(), anyInt());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void passThroughItemLocks() {
+        when(bookingIntervalIndex.withItemLocks(any(), any())).thenAnswer(invocation ->
+                ((Supplier<Object>) invocation.getArgument(1)).get());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void passThroughItemLock() {
+        when(bookingIntervalIndex.withItemLock(any(), any())).thenAnswer(invocation ->
+                ((Supplier<Object>) invocation.getArgument(1)).get());
     }
 }
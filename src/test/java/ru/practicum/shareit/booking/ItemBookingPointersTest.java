@@ -0,0 +1,102 @@
+package ru.practicum.shareit.booking;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.dto.BookingDtoRequest;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.common.SqlStatements;
+import ru.practicum.shareit.common.SqlStatementsExtension;
+import ru.practicum.shareit.item.ItemService;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@Transactional
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ExtendWith(SqlStatementsExtension.class)
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class ItemBookingPointersTest {
+    final EntityManager em;
+    final BookingService bookingService;
+    final ItemService itemService;
+    final ItemBookingPointers itemBookingPointers;
+    User owner;
+    User booker;
+    Item item;
+    LocalDateTime start;
+
+    @BeforeEach
+    void loadInitial() {
+        owner = em.merge(new User(null, "Andrej", "witcher@mail.com"));
+        booker = em.merge(new User(null, "Geralt", "geralt@mail.com"));
+        item = em.merge(new Item(null, "Hammer", "Heavy", true, owner.getId(), null));
+        em.flush();
+        start = LocalDateTime.now().plusDays(1).withNano(0);
+    }
+
+    @Test
+    void createBookingMovesNextPointer() {
+        var later = book(start.plusDays(2));
+        var sooner = book(start);
+
+        var stored = em.find(Item.class, item.getId());
+
+        assertEquals(sooner, stored.getNextBookingId());
+        assertEquals(booker.getId(), stored.getNextBookerId());
+        assertEquals(start, stored.getNextBookingStart());
+        assertNull(stored.getLastBookingId());
+
+        bookingService.approvedBooking(sooner, false, owner.getId());
+
+        assertEquals(later, em.find(Item.class, item.getId()).getNextBookingId());
+    }
+
+    @Test
+    void ownerReadsNeedNoBookingQueries(SqlStatements statements) {
+        var next = book(start);
+
+        statements.assertExactly(2, () -> assertEquals(next, itemService.showItemInfo(item.getId(), owner.getId())
+                .getNextBooking().getId()));
+        statements.assertExactly(2, () -> assertEquals(next, itemService.findAllMyItems(owner.getId(), 0, 10)
+                .get(0).getNextBooking().getId()));
+    }
+
+    @Test
+    void rollForwardMovesStartedBookingToLast() {
+        var now = LocalDateTime.now();
+        var started = em.merge(new Booking(null, now.minusHours(1), now.plusHours(1), item, booker,
+                BookingStatus.APPROVED));
+        var next = book(start);
+        em.flush();
+        // указатели в состоянии до начала бронирования started
+        var stale = em.find(Item.class, item.getId());
+        stale.setLastBookingId(null);
+        stale.setNextBookingId(started.getId());
+        stale.setNextBookerId(booker.getId());
+        stale.setNextBookingStart(started.getStartDate());
+        em.flush();
+
+        itemBookingPointers.rollForward();
+
+        var stored = em.find(Item.class, item.getId());
+        assertEquals(started.getId(), stored.getLastBookingId());
+        assertEquals(next, stored.getNextBookingId());
+        assertEquals(start, stored.getNextBookingStart());
+    }
+
+    private Long book(LocalDateTime bookingStart) {
+        return bookingService.createBooking(booker.getId(), new BookingDtoRequest(item.getId(), bookingStart,
+                bookingStart.plusHours(1))).getId();
+    }
+}
@@ -0,0 +1,145 @@
+package ru.practicum.shareit.booking;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.dto.BookingDtoRequest;
+import ru.practicum.shareit.booking.dto.BookingDtoResponse;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStates;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.common.SqlStatements;
+import ru.practicum.shareit.common.SqlStatementsExtension;
+import ru.practicum.shareit.item.ItemService;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.UserService;
+import ru.practicum.shareit.user.model.User;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@Transactional
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ExtendWith(SqlStatementsExtension.class)
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class OwnerBookingProjectionTest {
+    final EntityManager em;
+    final BookingService bookingService;
+    final ItemService itemService;
+    final UserService userService;
+    final OwnerBookingRepository ownerBookingRepository;
+    final OwnerBookingProjection ownerBookingProjection;
+    User owner;
+    User booker;
+    Item item;
+    LocalDateTime now;
+
+    @BeforeEach
+    void loadInitial() {
+        owner = em.merge(new User(null, "Andrej", "witcher@mail.com"));
+        booker = em.merge(new User(null, "Geralt", "geralt@mail.com"));
+        item = em.merge(new Item(null, "Hammer", "Heavy", true, owner.getId(), null));
+        em.flush();
+        now = LocalDateTime.now().withNano(0);
+        for (int i = 1; i <= 3; i++) {
+            var start = now.plusDays(i * 2L);
+            var booking = bookingService.createBooking(booker.getId(), new BookingDtoRequest(item.getId(), start,
+                    start.plusDays(1)));
+            if (i == 2) {
+                bookingService.approvedBooking(booking.getId(), false, owner.getId());
+            }
+        }
+        // прошедшее и текущее бронирования нельзя создать через сервис, их строки добавит пересборка
+        em.merge(new Booking(null, now.minusDays(3), now.minusDays(2), item, booker, BookingStatus.APPROVED));
+        em.merge(new Booking(null, now.minusDays(1), now.plusDays(1), item, booker, BookingStatus.APPROVED));
+        em.flush();
+        ownerBookingProjection.rebuild();
+    }
+
+    @ParameterizedTest
+    @EnumSource(BookingStates.class)
+    void readModelMatchesPrimaryTables(BookingStates state) {
+        assertEquals(fromPrimaryTables(state), bookingService.getAllItemBookings(owner.getId(), state.name(), 0, 10));
+    }
+
+    @Test
+    void writesAreAppliedIncrementally() {
+        var start = now.plusDays(10);
+        var created = bookingService.createBooking(booker.getId(), new BookingDtoRequest(item.getId(), start,
+                start.plusDays(1)));
+        bookingService.approvedBooking(created.getId(), true, owner.getId());
+        itemService.editItem(owner.getId(), item.getId(), new ItemDto(null, "Sledgehammer", null, null, null));
+        userService.updateUser(booker.getId(), new User(null, "Ciri", null));
+        em.flush();
+        em.clear();
+
+        for (BookingStates state : BookingStates.values()) {
+            assertEquals(fromPrimaryTables(state), bookingService.getAllItemBookings(owner.getId(), state.name(), 0,
+                    10), state.name());
+        }
+        var first = bookingService.getAllItemBookings(owner.getId(), "ALL", 0, 1).get(0);
+        assertEquals(created.getId(), first.getId());
+        assertEquals(BookingStatus.APPROVED, first.getStatus());
+        assertEquals("Sledgehammer", first.getItem().getName());
+        assertEquals("Ciri", first.getBooker().getName());
+    }
+
+    @Test
+    void rebuildRestoresReadModel() {
+        var expected = bookingService.getAllItemBookings(owner.getId(), "ALL", 0, 10);
+        ownerBookingRepository.deleteAllRows();
+
+        ownerBookingProjection.rebuild();
+
+        assertEquals(5, expected.size());
+        assertEquals(expected, bookingService.getAllItemBookings(owner.getId(), "ALL", 0, 10));
+    }
+
+    @Test
+    void ownerBookingsNeedOneQuery(SqlStatements statements) {
+        statements.assertExactly(1, () -> ownerBookingRepository.findOwnerBookings(owner.getId(), BookingStates.PAST,
+                now, PageRequest.of(0, 10)));
+    }
+
+    private List<BookingDtoResponse> fromPrimaryTables(BookingStates state) {
+        String condition;
+        switch (state) {
+            case ALL:
+                condition = "";
+                break;
+            case CURRENT:
+                condition = "and b.startDate < :now and b.endDate > :now ";
+                break;
+            case PAST:
+                condition = "and b.endDate < :now ";
+                break;
+            case FUTURE:
+                condition = "and b.startDate > :now ";
+                break;
+            default:
+                condition = "and b.status = :status ";
+        }
+        var query = em.createQuery(BookingRepository.VIEW + "where i.ownerId = :ownerId " + condition +
+                        "order by b.startDate desc, b.id desc", BookingDtoResponse.class)
+                .setParameter("ownerId", owner.getId())
+                .setMaxResults(10);
+        if (condition.contains(":now")) {
+            query.setParameter("now", LocalDateTime.now());
+        }
+        if (condition.contains(":status")) {
+            query.setParameter("status", BookingStatus.valueOf(state.name()));
+        }
+        return query.getResultList();
+    }
+}
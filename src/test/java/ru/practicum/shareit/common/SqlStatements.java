@@ -0,0 +1,59 @@
+package ru.practicum.shareit.common;
+
+import lombok.SneakyThrows;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.function.Executable;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManager;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+/**
+ * Число SQL-запросов, подготовленных Hibernate за время выполнения блока. Перед блоком изменения теста
+ * сбрасываются в базу, а контекст сохранения очищается, чтобы блок не получал сущности из кэша первого уровня;
+ * после блока сбрасываются его собственные изменения. Экземпляр передаёт в тест {@link SqlStatementsExtension}.
+ */
+public class SqlStatements {
+    private final EntityManager em;
+    private final Statistics statistics;
+
+    public SqlStatements(EntityManager em) {
+        this.em = em;
+        statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @SneakyThrows
+    public long count(Executable block) {
+        flush();
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            em.clear();
+        }
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        block.execute();
+        flush();
+        return statistics.getPrepareStatementCount();
+    }
+
+    public void assertAtMost(long expected, Executable block) {
+        assertThat(count(block), lessThanOrEqualTo(expected));
+    }
+
+    public void assertExactly(long expected, Executable block) {
+        assertThat(count(block), equalTo(expected));
+    }
+
+    public long getEntityLoadCount() {
+        return statistics.getEntityLoadCount();
+    }
+
+    private void flush() {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            em.flush();
+        }
+    }
+}
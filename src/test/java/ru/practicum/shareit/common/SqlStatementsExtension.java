@@ -0,0 +1,31 @@
+package ru.practicum.shareit.common;
+
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.jupiter.api.extension.ParameterContext;
+import org.junit.jupiter.api.extension.ParameterResolver;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import javax.persistence.EntityManager;
+
+/**
+ * Передаёт в методы тестов с контекстом Spring параметр {@link SqlStatements}:
+ * <pre>
+ * &#64;Test
+ * void getBooking(SqlStatements statements) {
+ *     statements.assertAtMost(2, () -&gt; mvc.perform(get("/bookings/1")));
+ * }
+ * </pre>
+ */
+public class SqlStatementsExtension implements ParameterResolver {
+
+    @Override
+    public boolean supportsParameter(ParameterContext parameterContext, ExtensionContext extensionContext) {
+        return parameterContext.getParameter().getType() == SqlStatements.class;
+    }
+
+    @Override
+    public Object resolveParameter(ParameterContext parameterContext, ExtensionContext extensionContext) {
+        var context = SpringExtension.getApplicationContext(extensionContext);
+        return new SqlStatements(context.getBean(EntityManager.class));
+    }
+}
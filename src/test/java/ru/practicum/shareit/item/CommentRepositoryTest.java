@@ -10,6 +10,7 @@ import ru.practicum.shareit.user.UserRepository;
 import ru.practicum.shareit.user.model.User;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
@@ -45,4 +46,28 @@ public class CommentRepositoryTest {
         assertEquals(comment.getAuthor(), result.get(0).getAuthor());
     }
 
+    @Test
+    void testFindAllByItemIdInOk() {
+        User user = userRepository.save(new User(null, "John", "john@doe.com"));
+        User userAnother = userRepository.save(new User(null, "Adam", "adam@smith.com"));
+
+        Item item = itemRepository.save(new Item(null, "Hammer", "Very big", true,
+                user.getId(), null));
+        Item itemAnother = itemRepository.save(new Item(null, "Hood", "Black", true,
+                user.getId(), null));
+        Item itemWithoutComments = itemRepository.save(new Item(null, "Iron", "Very hot", true,
+                user.getId(), null));
+
+        Comment comment = repository.save(new Comment(null, "Хорошая вещь", item, userAnother,
+                LocalDateTime.now()));
+        Comment commentAnother = repository.save(new Comment(null, "Не очень хорошая вещь", itemAnother,
+                userAnother, LocalDateTime.now()));
+
+        var result = repository.findAllByItemIdIn(List.of(item.getId(), itemAnother.getId(),
+                itemWithoutComments.getId()));
+
+        assertEquals(List.of(comment, commentAnother), result);
+        assertEquals(userAnother.getName(), result.get(0).getAuthor().getName());
+    }
+
 }
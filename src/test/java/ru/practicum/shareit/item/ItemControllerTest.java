@@ -10,21 +10,32 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import ru.practicum.shareit.common.Constants;
+import ru.practicum.shareit.common.CursorPage;
+import ru.practicum.shareit.common.NdjsonWriter;
 import ru.practicum.shareit.common.Validator;
+import ru.practicum.shareit.exceptions.InvalidBookingDates;
 import ru.practicum.shareit.exceptions.InvalidPageParamsException;
+import ru.practicum.shareit.exceptions.NotFoundException;
 import ru.practicum.shareit.exceptions.ValidationIdException;
 import ru.practicum.shareit.item.comment.dto.CommentDtoRequest;
 import ru.practicum.shareit.item.comment.dto.CommentDtoResponse;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.TimeSlotDto;
 
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
 
 import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.hamcrest.Matchers.is;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -224,6 +235,27 @@ public class ItemControllerTest {
                 .andExpect(jsonPath("$[0].available", is(itemDtoResp.getAvailable())));
     }
 
+    @SneakyThrows
+    @Test
+    void testSearchAfterOk() {
+        when(service.searchAfter(anyString(), anyString(), anyInt()))
+                .thenReturn(new CursorPage<>(List.of(itemDtoResp), "next"));
+
+        mvc.perform(get("/items/search")
+                        .param("text", text)
+                        .param("cursor", "")
+                        .param("size", String.valueOf(size))
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string(Constants.NEXT_CURSOR_HEADER, "next"))
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id", is(itemDtoResp.getId()), Long.class));
+
+        verify(service, times(1)).searchAfter(text, "", size);
+        verify(service, never()).search(any(), anyInt(), anyInt());
+    }
+
     @SneakyThrows
     @Test
     void testSearchInvalidParamsThrown() {
@@ -241,6 +273,70 @@ public class ItemControllerTest {
         verify(service, never()).search(any(), anyInt(), anyInt());
     }
 
+    @SneakyThrows
+    @Test
+    void testGetAvailabilityOk() {
+        var from = LocalDateTime.of(2030, 1, 1, 0, 0);
+        var to = from.plusDays(10);
+        var busy = new TimeSlotDto(from.plusDays(2), from.plusDays(3));
+        var availability = new ItemAvailabilityDto(itemId, from, to, List.of(busy),
+                List.of(new TimeSlotDto(from, busy.getStart()), new TimeSlotDto(busy.getEnd(), to)));
+        when(service.getAvailability(itemId, from, to)).thenReturn(availability);
+
+        var result = mvc.perform(get("/items/{itemId}/availability", itemId)
+                        .header(Constants.USER_HEADER, userId)
+                        .param("from", from.toString())
+                        .param("to", to.toString())
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.busy", hasSize(1)))
+                .andExpect(jsonPath("$.free", hasSize(2)))
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        assertEquals(mapper.writeValueAsString(availability), result);
+        verify(validator, times(1)).validateTimeWindow(from, to);
+    }
+
+    @SneakyThrows
+    @Test
+    void testGetAvailabilityInvalidWindowThrown() {
+        var from = LocalDateTime.of(2030, 1, 1, 0, 0);
+        doThrow(new InvalidBookingDates("Окончание периода должно быть после его начала")).when(validator)
+                .validateTimeWindow(from, from);
+
+        mvc.perform(get("/items/{itemId}/availability", itemId)
+                        .header(Constants.USER_HEADER, userId)
+                        .param("from", from.toString())
+                        .param("to", from.toString())
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+
+        verify(service, never()).getAvailability(any(), any(), any());
+    }
+
+    @SneakyThrows
+    @Test
+    void testFindNextFreeSlotOk() {
+        var from = LocalDateTime.of(2030, 1, 1, 0, 0);
+        var slot = new TimeSlotDto(from.plusDays(1), from.plusDays(1).plusHours(3));
+        when(service.findNextFreeSlot(itemId, from, Duration.ofHours(3), from.plusYears(1))).thenReturn(slot);
+
+        var result = mvc.perform(get("/items/{itemId}/availability/next", itemId)
+                        .header(Constants.USER_HEADER, userId)
+                        .param("from", from.toString())
+                        .param("duration", "PT3H")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        assertEquals(mapper.writeValueAsString(slot), result);
+        verify(validator, times(1)).validateDuration(Duration.ofHours(3));
+    }
+
     @SneakyThrows
     @Test
     void testPostCommentOk() {
@@ -276,4 +372,35 @@ public class ItemControllerTest {
         verify(validator, never()).validateId(anyLong());
         verify(service, never()).postComment(anyLong(), anyLong(), any());
     }
+
+    @SneakyThrows
+    @Test
+    void testExportMyItemsOk() {
+        var exported = new ItemDto(itemId, "Hammer", "Very big", true, null);
+        doAnswer(invocation -> {
+            Consumer<ItemDto> consumer = invocation.getArgument(1);
+            consumer.accept(exported);
+            return null;
+        }).when(service).exportMyItems(eq(userId), any());
+
+        var result = mvc.perform(get("/items/export")
+                        .header(Constants.USER_HEADER, userId))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(NdjsonWriter.CONTENT_TYPE))
+                .andReturn()
+                .getResponse()
+                .getContentAsString(StandardCharsets.UTF_8);
+
+        assertEquals(mapper.writeValueAsString(exported) + "\n", result);
+    }
+
+    @SneakyThrows
+    @Test
+    void testExportMyItemsUserNotExistsNotFound() {
+        doThrow(new NotFoundException("Пользователь не найден")).when(service).exportMyItems(eq(userId), any());
+
+        mvc.perform(get("/items/export")
+                        .header(Constants.USER_HEADER, userId))
+                .andExpect(status().isNotFound());
+    }
 }
@@ -7,6 +7,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.request.ItemRequestRepository;
 import ru.practicum.shareit.request.model.ItemRequest;
@@ -14,6 +15,8 @@ import ru.practicum.shareit.user.UserRepository;
 import ru.practicum.shareit.user.model.User;
 
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -74,30 +77,27 @@ public class ItemRepositoryTest {
     }
 
     @Test
-    void testFindAllByRequestIdShouldReturnOneItem() {
-        var result = repository.findAllByRequestId(itemRequest.getId());
-
-        assertTrue(result.size() == 1);
-        assertEquals(item.getId(), result.get(0).getId());
-        assertEquals(item.getName(), result.get(0).getName());
-        assertEquals(item.getDescription(), result.get(0).getDescription());
+    void testStreamAllByOwnerIdShouldReturnOwnerItems() {
+        List<ItemDto> result;
+        try (var items = repository.streamAllByOwnerId(user.getId())) {
+            result = items.collect(Collectors.toList());
+        }
+
+        assertEquals(List.of(
+                new ItemDto(item.getId(), item.getName(), item.getDescription(), item.getIsAvailable(),
+                        item.getRequestId()),
+                new ItemDto(itemAnother.getId(), itemAnother.getName(), itemAnother.getDescription(),
+                        itemAnother.getIsAvailable(), itemAnother.getRequestId())), result);
     }
 
     @Test
-    void testSearchOk() {
-        page = PageRequest.of(0, 10);
-        var result = repository.search("Hamm", page);
-
-        assertTrue(result.size() == 1);
-        assertEquals(item.getId(), result.get(0).getId());
-        assertEquals(item.getName(), result.get(0).getName());
-        assertEquals(item.getDescription(), result.get(0).getDescription());
-
-        result = repository.search("Very", page);
+    void testFindAnswersByRequestIdInShouldReturnOneItem() {
+        var result = repository.findAnswersByRequestIdIn(List.of(itemRequest.getId()));
 
         assertTrue(result.size() == 1);
         assertEquals(item.getId(), result.get(0).getId());
         assertEquals(item.getName(), result.get(0).getName());
         assertEquals(item.getDescription(), result.get(0).getDescription());
+        assertEquals(itemRequest.getId(), result.get(0).getRequestId());
     }
 }
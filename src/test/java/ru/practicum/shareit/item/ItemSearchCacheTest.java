@@ -0,0 +1,131 @@
+package ru.practicum.shareit.item;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.common.CursorPage;
+import ru.practicum.shareit.common.ReplicaRouting;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Item;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+public class ItemSearchCacheTest {
+    SimpleMeterRegistry meterRegistry;
+    ItemSearchCache cache;
+    AtomicInteger loads;
+    ItemDto hammerDto;
+    ItemDto drillDto;
+
+    @BeforeEach
+    void loadInitial() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new ItemSearchCache(mock(ItemRepository.class), 100, Duration.ofSeconds(5), meterRegistry);
+        loads = new AtomicInteger();
+        hammerDto = new ItemDto(1L, "Hammer", "Very big", true, null, null, null, Collections.emptyList());
+        drillDto = new ItemDto(2L, "Дрель", "Аккумуляторная", true, null, null, null, Collections.emptyList());
+    }
+
+    @Test
+    void testGetCachesByNormalizedTextOk() {
+        load("Hammer", hammerDto);
+        load("hAMMER", hammerDto);
+        load("hammer", hammerDto);
+
+        assertEquals(1, loads.get());
+        assertEquals(2.0 / 3, meterRegistry.get("cache.hit.ratio").gauge().value(), 0.001);
+        assertEquals(1.0 / 3, meterRegistry.get("cache.miss.ratio").gauge().value(), 0.001);
+    }
+
+    @Test
+    void testZeroSizeDisablesCacheOk() {
+        cache = new ItemSearchCache(mock(ItemRepository.class), 0, Duration.ofSeconds(5), meterRegistry);
+
+        load("hammer", hammerDto);
+        load("hammer", hammerDto);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void testReplicaPageRightAfterEvictionIsNotCachedOk() {
+        cache.evictItem(hammerDto.getId());
+        ReplicaRouting.allowReplica();
+        try {
+            load("hammer", hammerDto);
+            load("hammer", hammerDto);
+        } finally {
+            ReplicaRouting.clear();
+        }
+        load("hammer", hammerDto);
+        load("hammer", hammerDto);
+
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void testEvictItemRemovesOnlyPagesWithItemOk() {
+        load("hammer", hammerDto);
+        load("дрель", drillDto);
+
+        cache.evictItem(hammerDto.getId());
+        load("hammer", hammerDto);
+        load("дрель", drillDto);
+
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void testEvictRemovesPagesMatchingNewItemOk() {
+        load("молот", null);
+        load("дрель", drillDto);
+
+        cache.evict(new Item(3L, "Молоток", "Новый", true, 1L, null));
+        load("молот", null);
+        load("дрель", drillDto);
+
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void testEvictIgnoresUnavailableNewItemOk() {
+        load("молот", null);
+
+        cache.evict(new Item(3L, "Молоток", "Новый", false, 1L, null));
+        load("молот", null);
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void testEvictRemovesAllPagesMatchingItemBeforeEditOk() {
+        var secondHammerDto = new ItemDto(4L, "Hammer drill", "Small", true, null, null, null,
+                Collections.emptyList());
+        load("hammer", "0", hammerDto);
+        load("hammer", "1", secondHammerDto);
+
+        cache.evict(new Item(1L, "Hammer", "Very big", true, 1L, null),
+                new Item(1L, "Hammer", "Very big", false, 1L, null));
+        load("hammer", "0", secondHammerDto);
+        load("hammer", "1", null);
+
+        assertEquals(4, loads.get());
+    }
+
+    private void load(String text, ItemDto itemDto) {
+        load(text, "0", itemDto);
+    }
+
+    private void load(String text, String position, ItemDto itemDto) {
+        cache.get(text, position, 1, () -> {
+            loads.incrementAndGet();
+            return new CursorPage<>(itemDto == null ? Collections.emptyList() : List.of(itemDto), null);
+        });
+    }
+}
@@ -0,0 +1,90 @@
+package ru.practicum.shareit.item;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.exceptions.InvalidPageParamsException;
+import ru.practicum.shareit.item.model.Item;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class ItemSearchIndexTest {
+    @Mock
+    ItemRepository itemRepository;
+    @InjectMocks
+    ItemSearchIndex index;
+    Item hammer;
+    Item drill;
+    Item sledgehammer;
+    Item hidden;
+
+    @BeforeEach
+    void loadInitial() {
+        hammer = new Item(1L, "Hammer", "Very big", true, 1L, null);
+        drill = new Item(2L, "Дрель", "Аккумуляторная дрель, нужен hammer-режим", true, 1L, null);
+        sledgehammer = new Item(3L, "Sledgehammer", "Heavy", true, 2L, null);
+        hidden = new Item(4L, "Hammer", "Not available", false, 2L, null);
+    }
+
+    @Test
+    void testRebuildIndexesAvailableItemsOk() {
+        when(itemRepository.findAllByIsAvailableTrueAndIdGreaterThanOrderById(anyLong(), any()))
+                .thenReturn(List.of(hammer, drill));
+
+        index.rebuild();
+
+        assertEquals(List.of(hammer.getId()), index.search("big", 0, 10));
+        assertEquals(List.of(drill.getId()), index.search("дРелЬ", 0, 10));
+    }
+
+    @Test
+    void testSearchIsSubstringAndRankedOk() {
+        List.of(hammer, drill, sledgehammer, hidden).forEach(index::index);
+
+        assertEquals(List.of(hammer.getId(), sledgehammer.getId(), drill.getId()), index.search("HAMMER", 0, 10));
+        assertEquals(List.of(sledgehammer.getId(), drill.getId()), index.search("hammer", 1, 10));
+        assertEquals(List.of(hammer.getId(), sledgehammer.getId()), index.search("ha", 0, 2));
+        assertEquals(Collections.emptyList(), index.search("jfshksh", 0, 10));
+    }
+
+    @Test
+    void testIndexUpdatesItemOk() {
+        index.index(hammer);
+        index.index(new Item(hammer.getId(), "Молоток", "Very big", true, 1L, null));
+
+        assertEquals(Collections.emptyList(), index.search("hammer", 0, 10));
+        assertEquals(List.of(hammer.getId()), index.search("молот", 0, 10));
+
+        index.index(new Item(hammer.getId(), "Молоток", "Very big", false, 1L, null));
+
+        assertEquals(Collections.emptyList(), index.search("молот", 0, 10));
+    }
+
+    @Test
+    void testSearchAfterPagesWithCursorOk() {
+        List.of(hammer, drill, sledgehammer).forEach(index::index);
+
+        var first = index.searchAfter("hammer", "", 2);
+        var second = index.searchAfter("hammer", first.getNextCursor(), 2);
+
+        assertEquals(List.of(hammer.getId(), sledgehammer.getId()), first.getIds());
+        assertNotNull(first.getNextCursor());
+        assertEquals(List.of(drill.getId()), second.getIds());
+        assertNull(second.getNextCursor());
+    }
+
+    @Test
+    void testSearchAfterInvalidCursorThrown() {
+        assertThrows(InvalidPageParamsException.class, () -> index.searchAfter("hammer", "не курсор", 2));
+    }
+}
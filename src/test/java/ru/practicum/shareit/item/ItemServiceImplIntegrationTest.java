@@ -1,11 +1,17 @@
 package ru.practicum.shareit.item;
 
 import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.item.comment.model.Comment;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.UserService;
@@ -13,6 +19,8 @@ import ru.practicum.shareit.user.model.User;
 
 import javax.persistence.EntityManager;
 import javax.persistence.TypedQuery;
+import java.time.LocalDateTime;
+import java.util.Arrays;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
@@ -25,6 +33,8 @@ public class ItemServiceImplIntegrationTest {
     final EntityManager em;
     final ItemService service;
     final UserService userService;
+    final ItemSearchIndex itemSearchIndex;
+    final PlatformTransactionManager transactionManager;
     Long userId;
     ItemDto itemDto;
 
@@ -64,4 +74,66 @@ public class ItemServiceImplIntegrationTest {
         assertThat(itemDtoFounded.getName(), equalTo(itemSavedDto.getName()));
         assertThat(itemDtoFounded.getDescription(), equalTo(itemSavedDto.getDescription()));
     }
+
+    @Test
+    void searchStatementCountDoesNotDependOnPageSize() {
+        User author = new User();
+        author.setName("Geralt");
+        author.setEmail("geralt@mail.com");
+        author = em.merge(author);
+        for (int i = 0; i < 5; i++) {
+            var item = em.find(Item.class, service.addItem(userId, itemDto).getId());
+            em.persist(new Comment(null, "Хорошая вещь", item, author, LocalDateTime.now()));
+        }
+
+        em.flush();
+        itemSearchIndex.rebuild();
+
+        long onePage = countStatements(() -> service.search("hammer", 0, 1));
+        long fivePage = countStatements(() -> service.search("hammer", 0, 5));
+
+        assertThat(service.search("hammer", 0, 5).get(4).getComments().size(), equalTo(1));
+        assertThat(fivePage, equalTo(onePage));
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void showItemInfoReadsCommentsInOwnTransaction() {
+        var transactions = new TransactionTemplate(transactionManager);
+        var itemId = service.addItem(userId, itemDto).getId();
+        var authorId = new Long[1];
+        try {
+            transactions.executeWithoutResult(status -> {
+                var author = em.merge(new User(null, "Geralt", "geralt@mail.com"));
+                em.persist(new Comment(null, "Хорошая вещь", em.find(Item.class, itemId), author,
+                        LocalDateTime.now()));
+                authorId[0] = author.getId();
+            });
+
+            var result = service.showItemInfo(itemId, userId);
+
+            assertThat(result.getComments().size(), equalTo(1));
+            assertThat(result.getComments().get(0).getAuthorName(), equalTo("Geralt"));
+        } finally {
+            transactions.executeWithoutResult(status -> {
+                em.createQuery("delete from Comment c where c.item.id = :itemId")
+                        .setParameter("itemId", itemId).executeUpdate();
+                em.createQuery("delete from Item i where i.id = :itemId")
+                        .setParameter("itemId", itemId).executeUpdate();
+                em.createQuery("delete from User u where u.id in (:ids)")
+                        .setParameter("ids", Arrays.asList(userId, authorId[0])).executeUpdate();
+            });
+            itemSearchIndex.rebuild();
+        }
+    }
+
+    private long countStatements(Runnable runnable) {
+        em.flush();
+        em.clear();
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        runnable.run();
+        return statistics.getPrepareStatementCount();
+    }
 }
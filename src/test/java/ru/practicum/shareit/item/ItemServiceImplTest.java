@@ -6,31 +6,45 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.PageRequest;
+import ru.practicum.shareit.booking.ArchivedBookingRepository;
 import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.dto.BookingInterval;
 import ru.practicum.shareit.booking.dto.BookingItemDto;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.common.CursorPage;
+import ru.practicum.shareit.common.EntityCacheInvalidation;
+import ru.practicum.shareit.common.EntityRenamedEvent;
+import ru.practicum.shareit.common.PageCursor;
 import ru.practicum.shareit.exceptions.NotAccessException;
 import ru.practicum.shareit.exceptions.NotBookerException;
 import ru.practicum.shareit.exceptions.NotFoundException;
+import ru.practicum.shareit.item.comment.CommentAddedEvent;
 import ru.practicum.shareit.item.comment.CommentRepository;
 import ru.practicum.shareit.item.comment.dto.CommentDtoRequest;
 import ru.practicum.shareit.item.comment.dto.CommentDtoResponse;
 import ru.practicum.shareit.item.comment.model.Comment;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.TimeSlotDto;
 import ru.practicum.shareit.item.model.Item;
-import ru.practicum.shareit.user.UserRepository;
+import ru.practicum.shareit.user.UserCache;
 import ru.practicum.shareit.user.model.User;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -44,7 +58,17 @@ public class ItemServiceImplTest {
     @Mock
     BookingRepository bookingRepository;
     @Mock
-    UserRepository userRepository;
+    ArchivedBookingRepository archivedBookingRepository;
+    @Mock
+    UserCache userCache;
+    @Mock
+    ItemSearchIndex itemSearchIndex;
+    @Mock
+    ItemSearchCache itemSearchCache;
+    @Mock
+    EntityCacheInvalidation entityCacheInvalidation;
+    @Mock
+    ApplicationEventPublisher eventPublisher;
     @InjectMocks
     ItemServiceImpl itemService;
     Item item;
@@ -99,6 +123,9 @@ public class ItemServiceImplTest {
 
         assertEquals(itemDtoWithoutBookingsAndComments, result);
         verify(itemRepository, times(1)).save(any());
+        verify(itemSearchIndex, times(1)).index(item);
+        verify(itemSearchCache, times(1)).evict(item);
+        verify(eventPublisher, times(1)).publishEvent(new ItemCreatedEvent(item));
     }
 
     @Test
@@ -113,6 +140,24 @@ public class ItemServiceImplTest {
         verify(itemRepository, times(1)).findById(item.getId());
         verify(itemRepository, times(1)).save(item);
         verify(commentRepository, times(1)).findAllByItem(item);
+        verify(itemSearchIndex, times(1)).index(item);
+        verify(itemSearchCache, never()).evict(any(), any());
+        verify(eventPublisher, times(1)).publishEvent(new ItemUpdatedEvent(item));
+    }
+
+    @Test
+    void testEditItemNameEvictsSearchCacheOk() {
+        when(commentRepository.findAllByItem(any())).thenReturn(Collections.emptyList());
+        when(itemRepository.findById(anyLong())).thenReturn(Optional.of(item));
+        when(itemRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        itemDto.setName("Sledgehammer");
+
+        var result = itemService.editItem(userId, item.getId(), itemDto);
+
+        assertEquals("Sledgehammer", result.getName());
+        verify(itemSearchCache, times(1)).evict(new Item(1L, "Hammer", "Very big", true, 1L, 1L), item);
+        verify(eventPublisher, times(1)).publishEvent(new EntityRenamedEvent(Item.class, item.getId(),
+                "Sledgehammer"));
     }
 
     @Test
@@ -134,20 +179,14 @@ public class ItemServiceImplTest {
 
     @Test
     void testShowItemInfoOwnerOk() {
+        pointToBookings(item);
         when(itemRepository.findById(anyLong())).thenReturn(Optional.of(item));
         when(commentRepository.findAllByItem(any())).thenReturn(List.of(comment));
-        when(bookingRepository.findFirstBookingByItemIdAndStartDateBeforeAndStatusNotOrderByStartDateDesc(any(), any(),
-                any())).thenReturn(Optional.of(booking));
-        when(bookingRepository.findFirstBookingByItemIdAndStartDateAfterAndStatusNotOrderByStartDate(any(), any(),
-                any())).thenReturn(Optional.of(bookingAnother));
 
         var result = itemService.showItemInfo(item.getId(), userId);
 
         assertEquals(itemDto, result);
-        verify(bookingRepository, times(1))
-                .findFirstBookingByItemIdAndStartDateBeforeAndStatusNotOrderByStartDateDesc(any(), any(), any());
-        verify(bookingRepository, times(1))
-                .findFirstBookingByItemIdAndStartDateAfterAndStatusNotOrderByStartDate(any(), any(), any());
+        verifyNoInteractions(bookingRepository);
         verify(itemRepository, times(1)).findById(item.getId());
     }
 
@@ -160,10 +199,6 @@ public class ItemServiceImplTest {
 
         assertEquals(itemAnotherOwnerDto, result);
         verify(itemRepository, times(1)).findById(item.getId());
-        verify(bookingRepository, never()).findFirstBookingByItemIdAndStartDateAfterAndStatusNotOrderByStartDate(
-                any(), any(), any());
-        verify(bookingRepository, never()).findFirstBookingByItemIdAndStartDateBeforeAndStatusNotOrderByStartDateDesc(
-                any(), any(), any());
     }
 
     @Test
@@ -176,23 +211,42 @@ public class ItemServiceImplTest {
 
     @Test
     void testFindAllMyItemsOk() {
+        pointToBookings(item);
         when(itemRepository.findItemsByOwnerIdOrderById(anyLong(), any())).thenReturn(List.of(item));
-        when(commentRepository.findAllByItem(any())).thenReturn(List.of(comment));
-        when(bookingRepository.findFirstBookingByItemIdAndStartDateBeforeAndStatusNotOrderByStartDateDesc(any(), any(),
-                any())).thenReturn(Optional.of(booking));
-        when(bookingRepository.findFirstBookingByItemIdAndStartDateAfterAndStatusNotOrderByStartDate(any(), any(),
-                any())).thenReturn(Optional.of(bookingAnother));
+        when(commentRepository.findAllByItemIdIn(any())).thenReturn(List.of(comment));
 
         var result = itemService.findAllMyItems(userId, from, size);
 
         assertEquals(List.of(itemDto), result);
         verify(itemRepository, times(1)).findItemsByOwnerIdOrderById(
                 userId, PageRequest.of(from, size));
-        verify(commentRepository, times(1)).findAllByItem(item);
-        verify(bookingRepository, times(1))
-                .findFirstBookingByItemIdAndStartDateBeforeAndStatusNotOrderByStartDateDesc(any(), any(), any());
-        verify(bookingRepository, times(1))
-                .findFirstBookingByItemIdAndStartDateAfterAndStatusNotOrderByStartDate(any(), any(), any());
+        verify(commentRepository, times(1)).findAllByItemIdIn(List.of(item.getId()));
+        verify(commentRepository, never()).findAllByItem(any());
+        verifyNoInteractions(bookingRepository);
+    }
+
+    @Test
+    void testExportMyItemsOk() {
+        var exported = new ArrayList<ItemDto>();
+        var itemDto = new ItemDto(item.getId(), item.getName(), item.getDescription(), item.getIsAvailable(),
+                item.getRequestId());
+        when(userCache.findById(anyLong())).thenReturn(Optional.of(user));
+        when(itemRepository.streamAllByOwnerId(anyLong())).thenReturn(Stream.of(itemDto));
+
+        itemService.exportMyItems(userId, exported::add);
+
+        assertEquals(List.of(itemDto), exported);
+        verify(itemRepository, times(1)).streamAllByOwnerId(userId);
+    }
+
+    @Test
+    void testExportMyItemsUserNotExistsThrownNotFound() {
+        when(userCache.findById(anyLong())).thenReturn(Optional.empty());
+
+        assertThrows(NotFoundException.class, () -> itemService.exportMyItems(userId, itemDto -> {
+        }));
+
+        verify(itemRepository, never()).streamAllByOwnerId(any());
     }
 
     @Test
@@ -204,19 +258,101 @@ public class ItemServiceImplTest {
         assertEquals(Collections.emptyList(), result);
         verify(itemRepository, times(1)).findItemsByOwnerIdOrderById(1L,
                 PageRequest.of(from, size));
+        verifyNoInteractions(bookingRepository);
+    }
+
+    @Test
+    void testFindAllMyItemsAfterOk() {
+        var second = new Item(item.getId() + 1, "Saw", "Sharp", true, item.getOwnerId(), null);
+        pointToBookings(item);
+        when(itemRepository.findItemsByOwnerIdAndIdGreaterThanOrderById(userId, 0L, PageRequest.of(0, 2)))
+                .thenReturn(List.of(item, second));
+        when(commentRepository.findAllByItemIdIn(any())).thenReturn(List.of(comment));
+
+        var result = itemService.findAllMyItemsAfter(userId, "", 1);
+
+        assertEquals(List.of(itemDto), result.getItems());
+        assertEquals(PageCursor.of(item.getId()).encode(), result.getNextCursor());
+        verify(commentRepository, times(1)).findAllByItemIdIn(List.of(item.getId()));
+        verify(itemRepository, never()).findItemsByOwnerIdOrderById(any(), any());
+    }
+
+    @Test
+    void testGetAvailabilityMergesBusyIntervalsOk() {
+        var from = LocalDateTime.of(2030, 1, 1, 0, 0);
+        var to = from.plusDays(10);
+        when(itemRepository.existsById(item.getId())).thenReturn(true);
+        when(bookingRepository.findIntervalsByItemIdBetween(item.getId(),
+                List.of(BookingStatus.WAITING, BookingStatus.APPROVED), from, to)).thenReturn(List.of(
+                new BookingInterval(1L, userId, from.minusDays(1), from.plusDays(1), BookingStatus.APPROVED),
+                new BookingInterval(2L, userId, from.plusDays(3), from.plusDays(5), BookingStatus.APPROVED),
+                new BookingInterval(3L, userId, from.plusDays(4), from.plusDays(6), BookingStatus.WAITING),
+                new BookingInterval(4L, userId, from.plusDays(9), from.plusDays(12), BookingStatus.APPROVED)));
+
+        var result = itemService.getAvailability(item.getId(), from, to);
+
+        assertEquals(List.of(new TimeSlotDto(from, from.plusDays(1)),
+                new TimeSlotDto(from.plusDays(3), from.plusDays(6)),
+                new TimeSlotDto(from.plusDays(9), to)), result.getBusy());
+        assertEquals(List.of(new TimeSlotDto(from.plusDays(1), from.plusDays(3)),
+                new TimeSlotDto(from.plusDays(6), from.plusDays(9))), result.getFree());
+    }
+
+    @Test
+    void testFindNextFreeSlotOk() {
+        var from = LocalDateTime.of(2030, 1, 1, 0, 0);
+        var to = from.plusDays(10);
+        when(itemRepository.existsById(item.getId())).thenReturn(true);
+        when(bookingRepository.findIntervalsByItemIdBetween(any(), any(), any(), any())).thenReturn(List.of(
+                new BookingInterval(1L, userId, from, from.plusDays(1), BookingStatus.APPROVED),
+                new BookingInterval(2L, userId, from.plusDays(2), from.plusDays(3), BookingStatus.APPROVED)));
+
+        var shortSlot = itemService.findNextFreeSlot(item.getId(), from, Duration.ofDays(1), to);
+        var longSlot = itemService.findNextFreeSlot(item.getId(), from, Duration.ofDays(2), to);
+
+        assertEquals(new TimeSlotDto(from.plusDays(1), from.plusDays(2)), shortSlot);
+        assertEquals(new TimeSlotDto(from.plusDays(3), from.plusDays(5)), longSlot);
+        assertThrows(NotFoundException.class, () ->
+                itemService.findNextFreeSlot(item.getId(), from, Duration.ofDays(8), to));
+    }
+
+    @Test
+    void testGetAvailabilityItemNotExistsThrownNotFound() {
+        when(itemRepository.existsById(anyLong())).thenReturn(false);
+
+        assertThrows(NotFoundException.class, () -> itemService.getAvailability(item.getId(),
+                LocalDateTime.now(), LocalDateTime.now().plusDays(1)));
+        verify(bookingRepository, never()).findIntervalsByItemIdBetween(any(), any(), any(), any());
     }
 
     @Test
     void testSearchOk() {
-        when(itemRepository.search(any(), any())).thenReturn(List.of(item));
-        when(commentRepository.findAllByItem(any())).thenReturn(List.of(comment));
+        passThroughSearchCache();
+        when(itemSearchIndex.search(any(), anyInt(), anyInt())).thenReturn(List.of(item.getId()));
+        when(itemRepository.findAllById(any())).thenReturn(List.of(item));
+        when(commentRepository.findAllByItemIdIn(any())).thenReturn(List.of(comment));
 
         final String text = "Very";
         var result = itemService.search(text, from, size);
 
         assertEquals(List.of(itemDtoWithoutBookings), result);
-        verify(itemRepository, times(1)).search(text, PageRequest.of(0, 10));
-        verify(commentRepository, times(1)).findAllByItem(item);
+        verify(itemSearchIndex, times(1)).search(text, 0, 10);
+        verify(commentRepository, times(1)).findAllByItemIdIn(List.of(item.getId()));
+        verify(commentRepository, never()).findAllByItem(any());
+    }
+
+    @Test
+    void testSearchKeepsIndexOrderOk() {
+        passThroughSearchCache();
+        when(itemSearchIndex.search(any(), anyInt(), anyInt())).thenReturn(List.of(itemAnotherOwner.getId(),
+                item.getId()));
+        when(itemRepository.findAllById(any())).thenReturn(List.of(item, itemAnotherOwner));
+
+        var result = itemService.search("Hammer", size, size);
+
+        assertEquals(List.of(itemAnotherOwner.getId(), item.getId()),
+                List.of(result.get(0).getId(), result.get(1).getId()));
+        verify(itemSearchIndex, times(1)).search("Hammer", size, size);
     }
 
     @Test
@@ -224,81 +360,130 @@ public class ItemServiceImplTest {
         var result = itemService.search("", from, size);
 
         assertEquals(Collections.emptyList(), result);
-        verify(itemRepository, never()).search(any(), any());
+        verify(itemSearchIndex, never()).search(any(), anyInt(), anyInt());
     }
 
     @Test
     void testSearchIfWrongTextOk() {
+        passThroughSearchCache();
         final String wrongText = "jfshksh";
-        when(itemRepository.search(any(), any())).thenReturn(Collections.emptyList());
+        when(itemSearchIndex.search(any(), anyInt(), anyInt())).thenReturn(Collections.emptyList());
 
         var result = itemService.search(wrongText, from, size);
 
         assertEquals(Collections.emptyList(), result);
-        verify(itemRepository, times(1)).search(wrongText, PageRequest.of(from, size));
+        verify(itemSearchIndex, times(1)).search(wrongText, from, size);
+        verify(itemRepository, never()).findAllById(any());
         verify(commentRepository, never()).findAllByItem(any());
+        verify(commentRepository, never()).findAllByItemIdIn(any());
+    }
+
+    @Test
+    void testSearchAfterOk() {
+        passThroughSearchCache();
+        when(itemSearchIndex.searchAfter(any(), any(), anyInt()))
+                .thenReturn(new ItemSearchIndex.SearchPage(List.of(item.getId()), "next"));
+        when(itemRepository.findAllById(any())).thenReturn(List.of(item));
+        when(commentRepository.findAllByItemIdIn(any())).thenReturn(List.of(comment));
+
+        var result = itemService.searchAfter("Very", "", size);
+
+        assertEquals(List.of(itemDtoWithoutBookings), result.getItems());
+        assertEquals("next", result.getNextCursor());
+        verify(itemSearchIndex, times(1)).searchAfter("Very", "", size);
     }
 
     @Test
     void testPostCommentOk() {
         when(commentRepository.save(any())).thenReturn(comment);
-        when(itemRepository.findById(anyLong())).thenReturn(Optional.of(item));
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
-        when(bookingRepository.findAllByBookerIdAndItemIdAndEndDateBeforeAndStatus(anyLong(), any(), any(), any()))
-                .thenReturn(List.of(booking));
+        when(itemRepository.findAllByIdInOrderById(List.of(item.getId()))).thenReturn(List.of(item));
+        when(userCache.findById(anyLong())).thenReturn(Optional.of(user));
+        when(bookingRepository.existsByBookerIdAndItemIdAndEndDateBeforeAndStatus(anyLong(), any(), any(), any()))
+                .thenReturn(true);
 
         var result = itemService.postComment(item.getId(), userId, commentDtoRequest);
 
         assertEquals(commentDtoResponse, result);
         verify(commentRepository, times(1)).save(commentWithoutId);
-        verify(itemRepository, times(1)).findById(item.getId());
-        verify(userRepository, times(2)).findById(userId);
+        verify(itemSearchCache, times(1)).evictItem(item.getId());
+        verify(eventPublisher, times(1)).publishEvent(new CommentAddedEvent(comment));
+        verify(itemRepository, times(1)).findAllByIdInOrderById(List.of(item.getId()));
+        verify(userCache, times(1)).findById(userId);
         verify(bookingRepository, times(1))
-                .findAllByBookerIdAndItemIdAndEndDateBeforeAndStatus(userId, item.getId(),
+                .existsByBookerIdAndItemIdAndEndDateBeforeAndStatus(userId, item.getId(),
                         commentDtoRequest.getCreated(), BookingStatus.APPROVED);
     }
 
+    @Test
+    void testPostCommentArchivedBookingOk() {
+        when(commentRepository.save(any())).thenReturn(comment);
+        when(itemRepository.findAllByIdInOrderById(List.of(item.getId()))).thenReturn(List.of(item));
+        when(userCache.findById(anyLong())).thenReturn(Optional.of(user));
+        when(bookingRepository.existsByBookerIdAndItemIdAndEndDateBeforeAndStatus(anyLong(), any(), any(), any()))
+                .thenReturn(false);
+        when(archivedBookingRepository.existsByBookerIdAndItemIdAndStatus(userId, item.getId(),
+                BookingStatus.APPROVED)).thenReturn(true);
+
+        var result = itemService.postComment(item.getId(), userId, commentDtoRequest);
+
+        assertEquals(commentDtoResponse, result);
+        verify(commentRepository, times(1)).save(commentWithoutId);
+    }
+
     @Test
     void testPostCommentItemNotExistThrownNotFound() {
-        when(itemRepository.findById(anyLong())).thenReturn(Optional.empty());
+        when(itemRepository.findAllByIdInOrderById(List.of(item.getId()))).thenReturn(Collections.emptyList());
 
         assertThrows(NotFoundException.class, () -> itemService.postComment(item.getId(), userId, commentDtoRequest));
 
         verify(commentRepository, never()).save(any());
-        verify(itemRepository, times(1)).findById(item.getId());
-        verify(userRepository, never()).findById(any());
+        verify(itemRepository, times(1)).findAllByIdInOrderById(List.of(item.getId()));
+        verify(userCache, never()).findById(any());
         verify(bookingRepository, never())
-                .findAllByBookerIdAndItemIdAndEndDateBeforeAndStatus(any(), any(), any(), any());
+                .existsByBookerIdAndItemIdAndEndDateBeforeAndStatus(any(), any(), any(), any());
     }
 
     @Test
     void testPostCommentUserNotExistThrownNotFound() {
-        when(itemRepository.findById(anyLong())).thenReturn(Optional.of(item));
-        when(userRepository.findById(anyLong())).thenReturn(Optional.empty());
+        when(itemRepository.findAllByIdInOrderById(List.of(item.getId()))).thenReturn(List.of(item));
+        when(userCache.findById(anyLong())).thenReturn(Optional.empty());
 
         assertThrows(NotFoundException.class, () -> itemService.postComment(item.getId(), userId, commentDtoRequest));
 
         verify(commentRepository, never()).save(any());
-        verify(itemRepository, times(1)).findById(item.getId());
-        verify(userRepository, times(1)).findById(userId);
+        verify(itemRepository, times(1)).findAllByIdInOrderById(List.of(item.getId()));
+        verify(userCache, times(1)).findById(userId);
         verify(bookingRepository, never())
-                .findAllByBookerIdAndItemIdAndEndDateBeforeAndStatus(any(), any(), any(), any());
+                .existsByBookerIdAndItemIdAndEndDateBeforeAndStatus(any(), any(), any(), any());
     }
 
     @Test
     void testPostCommentUserNotBookerThrownNoBookerExc() {
-        when(itemRepository.findById(anyLong())).thenReturn(Optional.of(item));
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
-        when(bookingRepository.findAllByBookerIdAndItemIdAndEndDateBeforeAndStatus(anyLong(), any(), any(), any()))
-                .thenReturn(Collections.emptyList());
+        when(itemRepository.findAllByIdInOrderById(List.of(item.getId()))).thenReturn(List.of(item));
+        when(userCache.findById(anyLong())).thenReturn(Optional.of(user));
+        when(bookingRepository.existsByBookerIdAndItemIdAndEndDateBeforeAndStatus(anyLong(), any(), any(), any()))
+                .thenReturn(false);
 
         assertThrows(NotBookerException.class, () -> itemService.postComment(item.getId(), userId, commentDtoRequest));
 
         verify(commentRepository, never()).save(any());
-        verify(itemRepository, times(1)).findById(item.getId());
-        verify(userRepository, times(1)).findById(userId);
+        verify(itemRepository, times(1)).findAllByIdInOrderById(List.of(item.getId()));
+        verify(userCache, times(1)).findById(userId);
         verify(bookingRepository, times(1))
-                .findAllByBookerIdAndItemIdAndEndDateBeforeAndStatus(userId, item.getId(),
+                .existsByBookerIdAndItemIdAndEndDateBeforeAndStatus(userId, item.getId(),
                         commentDtoRequest.getCreated(), BookingStatus.APPROVED);
     }
+
+    private void passThroughSearchCache() {
+        when(itemSearchCache.get(any(), any(), anyInt(), any())).thenAnswer(invocation ->
+                invocation.<Supplier<CursorPage<ItemDto>>>getArgument(3).get());
+    }
+
+    private void pointToBookings(Item item) {
+        item.setLastBookingId(booking.getId());
+        item.setLastBookerId(booking.getBooker().getId());
+        item.setNextBookingId(bookingAnother.getId());
+        item.setNextBookerId(bookingAnother.getBooker().getId());
+        item.setNextBookingStart(bookingAnother.getStartDate());
+    }
 }
@@ -0,0 +1,171 @@
+package ru.practicum.shareit.outbox;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import ru.practicum.shareit.booking.BookingService;
+import ru.practicum.shareit.booking.dto.BookingDtoRequest;
+import ru.practicum.shareit.item.ItemService;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.outbox.model.OutboxEvent;
+import ru.practicum.shareit.request.ItemRequestService;
+import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.user.UserRepository;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * События пишутся перед фиксацией транзакции, поэтому тест работает без общей транзакции и удаляет свои строки сам:
+ * вещи, бронирования и запросы удаляются каскадом вместе с пользователями.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class OutboxRelayTest {
+    final UserRepository userRepository;
+    final ItemService itemService;
+    final ItemRequestService itemRequestService;
+    final BookingService bookingService;
+    final OutboxRepository outboxRepository;
+    final OutboxRelay outboxRelay;
+    final RecordingSink sink;
+    final MeterRegistry meterRegistry;
+    @Value("${shareit.outbox.max-attempts}")
+    int maxAttempts;
+    User owner;
+    User booker;
+
+    @BeforeEach
+    void loadInitial() {
+        owner = userRepository.save(new User(null, "Andrej", "outbox-owner@mail.com"));
+        booker = userRepository.save(new User(null, "Geralt", "outbox-booker@mail.com"));
+        outboxRepository.deleteAllInBatch();
+        sink.events.clear();
+        sink.failNext = false;
+        sink.rejected.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteById(owner.getId());
+        userRepository.deleteById(booker.getId());
+        outboxRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void changesAreRelayedInOrder() {
+        var item = itemService.addItem(owner.getId(), new ItemDto(null, "Hammer", "Heavy", true, null, null, null,
+                null));
+        itemService.editItem(owner.getId(), item.getId(), new ItemDto(null, "Hammer drill", null, null, null, null,
+                null, null));
+        itemRequestService.addRequest(booker.getId(), new ItemRequestDto("Need a ladder"));
+        var start = LocalDateTime.now().plusDays(1);
+        var booking = bookingService.createBooking(booker.getId(), new BookingDtoRequest(item.getId(), start,
+                start.plusDays(1)));
+        bookingService.approvedBooking(booking.getId(), true, owner.getId());
+
+        outboxRelay.relay();
+
+        assertEquals(List.of("ItemCreated", "ItemUpdated", "ItemRequestCreated", "BookingCreated",
+                "BookingStatusChanged"), sink.events.stream().map(OutboxEvent::getEventType)
+                .collect(Collectors.toList()));
+        assertEquals(List.of(item.getId(), item.getId()), sink.events.stream()
+                .filter(event -> OutboxWriter.ITEM.equals(event.getAggregateType()))
+                .map(OutboxEvent::getAggregateId).collect(Collectors.toList()));
+        assertTrue(sink.events.get(1).getPayload().contains("\"name\":\"Hammer drill\""));
+        assertTrue(sink.events.get(4).getPayload().contains("\"status\":\"APPROVED\""));
+        assertEquals(0, outboxRepository.count());
+    }
+
+    @Test
+    void failedBatchIsDeliveredAgain() {
+        itemService.addItem(owner.getId(), new ItemDto(null, "Hammer", "Heavy", true, null, null, null, null));
+        sink.failNext = true;
+
+        outboxRelay.relay();
+
+        assertTrue(sink.events.isEmpty());
+        assertEquals(1, outboxRepository.count());
+
+        outboxRelay.relay();
+
+        assertEquals(1, sink.events.size());
+        assertEquals("ItemCreated", sink.events.get(0).getEventType());
+        assertEquals(0, outboxRepository.count());
+    }
+
+    @Test
+    void rejectedEventIsMarkedFailedAndStopsBlockingQueue() {
+        var hammer = itemService.addItem(owner.getId(), new ItemDto(null, "Hammer", "Heavy", true, null, null, null,
+                null));
+        var ladder = itemService.addItem(owner.getId(), new ItemDto(null, "Ladder", "Tall", true, null, null, null,
+                null));
+        var saw = itemService.addItem(owner.getId(), new ItemDto(null, "Saw", "Sharp", true, null, null, null, null));
+        sink.rejected.add(hammer.getId());
+        double failuresBefore = meterRegistry.get("outbox.relay.failures").counter().count();
+
+        outboxRelay.relay();
+
+        assertTrue(sink.events.isEmpty());
+        assertEquals(3, meterRegistry.get("outbox.events.pending").gauge().value());
+        assertTrue(meterRegistry.get("outbox.lag").gauge().value() >= 0);
+
+        for (int i = 0; i < maxAttempts; i++) {
+            outboxRelay.relay();
+        }
+
+        assertEquals(List.of(ladder.getId(), saw.getId()), sink.events.stream().map(OutboxEvent::getAggregateId)
+                .collect(Collectors.toList()));
+        var failed = outboxRepository.findAll();
+        assertEquals(1, failed.size());
+        assertEquals(hammer.getId(), failed.get(0).getAggregateId());
+        assertEquals(maxAttempts, failed.get(0).getAttempts());
+        assertNotNull(failed.get(0).getFailed());
+        assertEquals(0, meterRegistry.get("outbox.events.pending").gauge().value());
+        assertEquals(1, meterRegistry.get("outbox.events.failed").gauge().value());
+        assertEquals(0, meterRegistry.get("outbox.lag").gauge().value());
+        assertEquals(failuresBefore + maxAttempts, meterRegistry.get("outbox.relay.failures").counter().count());
+    }
+
+    static class RecordingSink implements OutboxSink {
+        final List<OutboxEvent> events = new ArrayList<>();
+        final Set<Long> rejected = new HashSet<>();
+        boolean failNext;
+
+        @Override
+        public void publish(List<OutboxEvent> batch) {
+            if (failNext) {
+                failNext = false;
+                throw new IllegalStateException("Получатель недоступен");
+            }
+            if (batch.stream().anyMatch(event -> rejected.contains(event.getAggregateId()))) {
+                throw new IllegalArgumentException("Получатель не принимает событие");
+            }
+            events.addAll(batch);
+        }
+    }
+
+    @TestConfiguration
+    static class SinkConfig {
+        @Bean
+        RecordingSink recordingSink() {
+            return new RecordingSink();
+        }
+    }
+}
@@ -102,10 +102,12 @@ public class ItemRequestControllerTest {
     @SneakyThrows
     @Test
     void testGetMyRequestsOk() {
-        when(service.getMyRequests(userId)).thenReturn(List.of(itemRequestDtoResponseWithAnswers));
+        when(service.getMyRequests(userId, from, size)).thenReturn(List.of(itemRequestDtoResponseWithAnswers));
 
         mvc.perform(get("/requests")
                         .header(Constants.USER_HEADER, userId)
+                        .param("from", String.valueOf(from))
+                        .param("size", String.valueOf(size))
                         .characterEncoding(StandardCharsets.UTF_8)
                         .accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
@@ -135,7 +137,7 @@ public class ItemRequestControllerTest {
 
         verify(validator, times(1)).validateId(userId);
         verify(validator, times(1)).checkIsUserExists(userId);
-        verify(service, never()).getMyRequests(anyLong());
+        verify(service, never()).getMyRequests(anyLong(), anyInt(), anyInt());
     }
 
     @SneakyThrows
@@ -245,4 +247,21 @@ public class ItemRequestControllerTest {
         verify(validator, never()).checkIsUserExists(anyLong());
         verify(service, never()).getAll(anyInt(), anyInt(), anyLong());
     }
+
+    @SneakyThrows
+    @Test
+    void testGetMyRequestsInvalidParamsThrown() {
+        doThrow(new InvalidPageParamsException("Неверные параметры")).when(validator).validatePageParams(from, size);
+
+        mvc.perform(get("/requests")
+                        .header(Constants.USER_HEADER, userId)
+                        .param("from", String.valueOf(from))
+                        .param("size", String.valueOf(size))
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+
+        verify(validator, times(1)).validatePageParams(from, size);
+        verify(service, never()).getMyRequests(anyLong(), anyInt(), anyInt());
+    }
 }
@@ -41,7 +41,7 @@ public class ItemRequestRepositoryTest {
 
     @Test
     void testFindAllByUserIdOrderByCreatedDescOk() {
-        var result = repository.findAllByUserIdOrderByCreatedDesc(user.getId());
+        var result = repository.findAllByUserIdOrderByCreatedDesc(PageRequest.of(0, 10), user.getId());
 
         assertEquals(2, result.size());
         assertEquals(itemRequest2.getId(), result.get(0).getId());
@@ -6,14 +6,17 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import ru.practicum.shareit.exceptions.NotFoundException;
 import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.request.dto.ItemRequestAnswerDto;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.dto.ItemRequestDtoResponse;
 import ru.practicum.shareit.request.dto.ItemRequestDtoResponseWithAnswers;
 import ru.practicum.shareit.request.dto.ItemRequestMapper;
 import ru.practicum.shareit.request.model.ItemRequest;
-import ru.practicum.shareit.user.UserRepository;
+import ru.practicum.shareit.user.UserCache;
 import ru.practicum.shareit.user.model.User;
 
 import java.time.LocalDateTime;
@@ -29,11 +32,13 @@ import static org.mockito.Mockito.*;
 @ExtendWith(MockitoExtension.class)
 public class ItemRequestServiceImplTest {
     @Mock
-    UserRepository userRepository;
+    UserCache userCache;
     @Mock
     ItemRequestRepository requestRepository;
     @Mock
     ItemRepository itemRepository;
+    @Mock
+    ApplicationEventPublisher eventPublisher;
     @InjectMocks
     ItemRequestServiceImpl itemRequestService;
     User user;
@@ -56,48 +61,52 @@ public class ItemRequestServiceImplTest {
     @Test
     void addRequestOk() {
         var req = ItemRequestMapper.toItemRequest(user, requestDto);
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
+        when(userCache.findById(anyLong())).thenReturn(Optional.of(user));
         when(requestRepository.save(req)).thenReturn(request);
 
         var result = itemRequestService.addRequest(user.getId(), requestDto);
 
         assertEquals(requestDtoResponse, result);
         verify(requestRepository, times(1)).save(req);
+        verify(eventPublisher, times(1)).publishEvent(new ItemRequestCreatedEvent(request));
     }
 
     @Test
     void addRequestThrownNotFound() {
-        when(userRepository.findById(anyLong())).thenThrow(NotFoundException.class);
+        when(userCache.findById(anyLong())).thenThrow(NotFoundException.class);
 
         assertThrows(NotFoundException.class, () -> itemRequestService.addRequest(user.getId(), requestDto));
         verify(requestRepository, never()).save(any());
+        verifyNoInteractions(eventPublisher);
     }
 
     @Test
     void testGetMyRequestsOk() {
-        when(requestRepository.findAllByUserIdOrderByCreatedDesc(anyLong())).thenReturn(List.of(request));
-        when(itemRepository.findAllByRequestId(anyLong())).thenReturn(Collections.emptyList());
+        when(requestRepository.findAllByUserIdOrderByCreatedDesc(any(), anyLong())).thenReturn(List.of(request));
+        when(itemRepository.findAnswersByRequestIdIn(any())).thenReturn(Collections.emptyList());
 
-        var result = itemRequestService.getMyRequests(user.getId());
+        var result = itemRequestService.getMyRequests(user.getId(), 0, 10);
 
         assertEquals(List.of(requestDtoResponseWithAnswers), result);
-        verify(requestRepository, times(1)).findAllByUserIdOrderByCreatedDesc(any());
+        verify(requestRepository, times(1)).findAllByUserIdOrderByCreatedDesc(PageRequest.of(0, 10), user.getId());
+        verify(itemRepository, times(1)).findAnswersByRequestIdIn(List.of(request.getId()));
     }
 
     @Test
     void testGetMyRequestsIfEmptyOk() {
-        when(requestRepository.findAllByUserIdOrderByCreatedDesc(anyLong())).thenReturn(Collections.emptyList());
+        when(requestRepository.findAllByUserIdOrderByCreatedDesc(any(), anyLong())).thenReturn(Collections.emptyList());
 
-        var result = itemRequestService.getMyRequests(user.getId());
+        var result = itemRequestService.getMyRequests(user.getId(), 0, 10);
 
         assertEquals(Collections.emptyList(), result);
-        verify(requestRepository, times(1)).findAllByUserIdOrderByCreatedDesc(anyLong());
+        verify(requestRepository, times(1)).findAllByUserIdOrderByCreatedDesc(any(), anyLong());
+        verify(itemRepository, never()).findAnswersByRequestIdIn(any());
     }
 
     @Test
     void testFindItemRequestOk() {
         when(requestRepository.findById(anyLong())).thenReturn(Optional.of(request));
-        when(itemRepository.findAllByRequestId(anyLong())).thenReturn(Collections.emptyList());
+        when(itemRepository.findAnswersByRequestIdIn(any())).thenReturn(Collections.emptyList());
 
         var result = itemRequestService.findItemRequest(request.getId());
 
@@ -115,7 +124,7 @@ public class ItemRequestServiceImplTest {
     @Test
     void testGetAllOk() {
         when(requestRepository.findAllByUserIdNotOrderByCreatedDesc(any(), anyLong())).thenReturn(List.of(request));
-        when(itemRepository.findAllByRequestId(anyLong())).thenReturn(Collections.emptyList());
+        when(itemRepository.findAnswersByRequestIdIn(any())).thenReturn(Collections.emptyList());
         final int from = 0;
         final int size = 10;
 
@@ -137,4 +146,20 @@ public class ItemRequestServiceImplTest {
         verify(requestRepository, times(1))
                 .findAllByUserIdNotOrderByCreatedDesc(any(), anyLong());
     }
+
+    @Test
+    void testGetAllGroupsAnswersByRequestOk() {
+        var another = new ItemRequest(2L, "Need drill", user, LocalDateTime.now());
+        var hammer = new ItemRequestAnswerDto(1L, "Hammer", "Heavy", true, request.getId());
+        var drill = new ItemRequestAnswerDto(2L, "Drill", "Cordless", true, another.getId());
+        when(requestRepository.findAllByUserIdNotOrderByCreatedDesc(any(), anyLong()))
+                .thenReturn(List.of(request, another));
+        when(itemRepository.findAnswersByRequestIdIn(any())).thenReturn(List.of(hammer, drill));
+
+        var result = itemRequestService.getAll(0, 10, 5L);
+
+        assertEquals(List.of(hammer), result.get(0).getItems());
+        assertEquals(List.of(drill), result.get(1).getItems());
+        verify(itemRepository, times(1)).findAnswersByRequestIdIn(List.of(request.getId(), another.getId()));
+    }
 }
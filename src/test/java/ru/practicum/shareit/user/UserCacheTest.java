@@ -0,0 +1,100 @@
+package ru.practicum.shareit.user;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import ru.practicum.shareit.common.EntityInvalidatedEvent;
+import ru.practicum.shareit.common.PrimaryReader;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class UserCacheTest {
+    @Mock
+    UserRepository userRepository;
+    PrimaryReader primaryReader = new PrimaryReader(mock(PlatformTransactionManager.class),
+            mock(EntityManagerFactory.class));
+    SimpleMeterRegistry meterRegistry;
+    UserCache cache;
+    User user;
+
+    @BeforeEach
+    void loadInitial() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new UserCache(userRepository, primaryReader, 100, meterRegistry);
+        user = new User(1L, "John", "john@mail.com");
+    }
+
+    @Test
+    void testFindByIdLoadsOnceOk() {
+        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+
+        cache.findById(user.getId());
+        cache.findById(user.getId());
+        var result = cache.findById(user.getId());
+
+        assertEquals(Optional.of(user), result);
+        assertNotSame(user, result.get());
+        verify(userRepository, times(1)).findById(user.getId());
+        assertEquals(2.0 / 3, meterRegistry.get("cache.hit.ratio").tag("cache", "users").gauge().value(), 0.001);
+    }
+
+    @Test
+    void testFindByIdDoesNotCacheMissingUserOk() {
+        when(userRepository.findById(user.getId())).thenReturn(Optional.empty());
+
+        cache.findById(user.getId());
+        var result = cache.findById(user.getId());
+
+        assertTrue(result.isEmpty());
+        verify(userRepository, times(2)).findById(user.getId());
+    }
+
+    @Test
+    void testEvictReloadsUserOk() {
+        var renamed = new User(user.getId(), "Jack", user.getEmail());
+        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user), Optional.of(renamed));
+
+        cache.findById(user.getId());
+        cache.evict(user.getId());
+        var result = cache.findById(user.getId());
+
+        assertEquals(Optional.of(renamed), result);
+        verify(userRepository, times(2)).findById(user.getId());
+    }
+
+    @Test
+    void testZeroSizeDisablesCacheOk() {
+        cache = new UserCache(userRepository, primaryReader, 0, meterRegistry);
+        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+
+        cache.findById(user.getId());
+        cache.findById(user.getId());
+
+        verify(userRepository, times(2)).findById(user.getId());
+    }
+
+    @Test
+    void testInvalidatedEventReloadsUserOk() {
+        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+
+        cache.findById(user.getId());
+        cache.onEntityInvalidated(new EntityInvalidatedEvent(User.class, user.getId(), true));
+        cache.onEntityInvalidated(new EntityInvalidatedEvent(Item.class, user.getId(), true));
+        cache.findById(user.getId());
+
+        verify(userRepository, times(2)).findById(user.getId());
+    }
+}
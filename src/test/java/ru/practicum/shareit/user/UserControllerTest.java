@@ -10,6 +10,8 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.common.Constants;
+import ru.practicum.shareit.common.CursorPage;
 import ru.practicum.shareit.common.Validator;
 import ru.practicum.shareit.exceptions.ValidationIdException;
 import ru.practicum.shareit.user.dto.UserDto;
@@ -22,6 +24,7 @@ import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -62,6 +65,24 @@ public class UserControllerTest {
                 .andExpect(jsonPath("$[0].email", is(userDto.getEmail())));
     }
 
+    @SneakyThrows
+    @Test
+    void getAllUsersAfterOk() {
+        when(service.getAllAfter("", 1)).thenReturn(new CursorPage<>(List.of(userDto), null));
+
+        mvc.perform(get("/users")
+                        .param("cursor", "")
+                        .param("size", "1")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string(Constants.HAS_MORE_HEADER, "false"))
+                .andExpect(header().doesNotExist(Constants.NEXT_CURSOR_HEADER))
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id", is(userDto.getId()), Long.class));
+        verify(validator, times(1)).validatePageParams(0, 1);
+        verify(service, never()).getAll();
+    }
+
     @SneakyThrows
     @Test
     void testGetUserOk() {
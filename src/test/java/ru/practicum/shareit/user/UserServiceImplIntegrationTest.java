@@ -13,6 +13,7 @@ import javax.persistence.TypedQuery;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.notNullValue;
 
 @Transactional
@@ -46,6 +47,18 @@ public class UserServiceImplIntegrationTest {
         assertThat(userDto.getEmail(), equalTo(userSavedDto.getEmail()));
     }
 
+    @Test
+    void sqlInsertTakesIdAfterSavedUsers() {
+        UserDto userSavedDto = service.createUser(makeUser("Пётр", "some@email.com"));
+        em.flush();
+
+        em.createNativeQuery("insert into users (name, email) values ('Павел', 'other@email.com')").executeUpdate();
+
+        Long insertedId = ((Number) em.createNativeQuery("select id from users where email = 'other@email.com'")
+                .getSingleResult()).longValue();
+        assertThat(insertedId, greaterThan(userSavedDto.getId()));
+    }
+
      User makeUser(String name, String email) {
         User user = new User();
         user.setName(name);
@@ -7,6 +7,10 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import ru.practicum.shareit.common.EntityCacheInvalidation;
+import ru.practicum.shareit.common.PageCursor;
 import ru.practicum.shareit.exceptions.NotFoundException;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.model.User;
@@ -16,6 +20,7 @@ import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.when;
@@ -24,6 +29,12 @@ import static org.mockito.Mockito.when;
 public class UserServiceImplementTest {
     @Mock
     UserRepository userRepository;
+    @Mock
+    UserCache userCache;
+    @Mock
+    EntityCacheInvalidation entityCacheInvalidation;
+    @Mock
+    ApplicationEventPublisher eventPublisher;
     @InjectMocks
     UserServiceImpl userService;
     UserDto userDto;
@@ -60,6 +71,27 @@ public class UserServiceImplementTest {
         Mockito.verify(userRepository, Mockito.times(1)).findAll();
     }
 
+    @Test
+    void testGetAllAfterOk() {
+        var second = new User(2L, "Jack", "jack@mail.com");
+        when(userRepository.findAllByIdGreaterThanOrderById(0L, PageRequest.of(0, 2))).thenReturn(List.of(user, second));
+
+        var result = userService.getAllAfter("", 1);
+
+        assertEquals(List.of(userDto), result.getItems());
+        assertEquals(PageCursor.of(user.getId()).encode(), result.getNextCursor());
+    }
+
+    @Test
+    void testGetAllAfterLastPageOk() {
+        when(userRepository.findAllByIdGreaterThanOrderById(1L, PageRequest.of(0, 11))).thenReturn(List.of());
+
+        var result = userService.getAllAfter(PageCursor.of(1L).encode(), 10);
+
+        assertEquals(Collections.emptyList(), result.getItems());
+        assertFalse(result.isHasMore());
+    }
+
     @Test
     void testCreateUserOk() {
         when(userRepository.save(user)).thenReturn(user);
@@ -80,6 +112,7 @@ public class UserServiceImplementTest {
         assertEquals(userDtoUpdate, result);
         Mockito.verify(userRepository, Mockito.times(1)).save(user);
         Mockito.verify(userRepository, Mockito.times(1)).findById(userUpdate.getId());
+        Mockito.verify(userCache, Mockito.times(1)).evict(userUpdate.getId());
     }
 
     @Test
@@ -88,6 +121,7 @@ public class UserServiceImplementTest {
 
         assertThrows(NotFoundException.class, () -> userService.updateUser(userUpdate.getId(), userUpdate));
         Mockito.verify(userRepository, Mockito.never()).save(userUpdate);
+        Mockito.verify(userCache, Mockito.never()).evict(Mockito.any());
     }
 
     @Test
@@ -97,6 +131,7 @@ public class UserServiceImplementTest {
         userService.deleteUser(user.getId());
 
         Mockito.verify(userRepository, Mockito.times(1)).deleteByIdAndReturnCount(user.getId());
+        Mockito.verify(userCache, Mockito.times(1)).evict(user.getId());
     }
 
     @Test